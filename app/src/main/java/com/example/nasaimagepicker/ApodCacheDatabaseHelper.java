@@ -0,0 +1,306 @@
+package com.example.nasaimagepicker;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ApodCacheDatabaseHelper manages the persistent, date-keyed cache of APOD metadata kept in the
+ * apod_entry table of {@link ApodDatabase}. Entries for past dates never change and are served without
+ * any network access; only the entry for today expires after a short time to live. The cache is
+ * bounded in size and evicts the least recently used entries first, but never entries that are
+ * still referenced by saved images or history records.
+ */
+public class ApodCacheDatabaseHelper {
+
+    /**
+     * The time to live of today's entry, which may still change or not be published yet.
+     */
+    static final long TODAY_TTL_MS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * The maximum number of entries kept in the cache.
+     */
+    static final int MAX_ENTRIES = 2000;
+
+    private static ApodCacheDatabaseHelper instance;
+
+    private final ApodDatabase database;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Returns the shared ApodCacheDatabaseHelper, creating it on first use.
+     *
+     * @param context The context to use for locating paths to the database.
+     * @return The shared ApodCacheDatabaseHelper instance.
+     */
+    public static synchronized ApodCacheDatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new ApodCacheDatabaseHelper(ApodDatabase.getInstance(context));
+        }
+        return instance;
+    }
+
+    /**
+     * Discards the shared instance and closes the shared database so the next call to
+     * {@link #getInstance(Context)} opens a new one.
+     */
+    @VisibleForTesting
+    static synchronized void resetInstance() {
+        instance = null;
+        ApodDatabase.resetInstance();
+    }
+
+    /**
+     * Constructs a new instance of ApodCacheDatabaseHelper.
+     *
+     * @param database The shared database.
+     */
+    private ApodCacheDatabaseHelper(ApodDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Returns the cached entry for the given date and marks it as recently used.
+     * Today's entry is only returned while it is younger than {@link #TODAY_TTL_MS}.
+     *
+     * @param date The date of the entry.
+     * @return The cached entry, or null if it is not cached or has expired.
+     */
+    public ApodEntry getEntry(String date) {
+        String key = ApodDates.normalize(date);
+        SQLiteDatabase db = database.getWritableDatabase();
+        ApodEntry entry = null;
+        long id = -1;
+        long fetchedAt = 0;
+
+        Cursor cursor = db.query(ApodDatabase.TABLE_APOD_ENTRY, null,
+                ApodDatabase.COLUMN_DATE + " = ? AND " + ApodDatabase.COLUMN_FETCHED_AT + " IS NOT NULL", new String[]{key},
+                null, null, ApodDatabase.COLUMN_FETCHED_AT + " DESC", "1");
+        if (cursor.moveToFirst()) {
+            entry = readEntry(cursor);
+            id = cursor.getLong(cursor.getColumnIndexOrThrow(ApodDatabase.COLUMN_ID));
+            fetchedAt = cursor.getLong(cursor.getColumnIndexOrThrow(ApodDatabase.COLUMN_FETCHED_AT));
+        }
+        cursor.close();
+
+        long now = System.currentTimeMillis();
+        if (entry == null || (ApodDates.isToday(key) && now - fetchedAt > TODAY_TTL_MS)) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(ApodDatabase.COLUMN_LAST_ACCESSED, now);
+        db.update(ApodDatabase.TABLE_APOD_ENTRY, contentValues, ApodDatabase.COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
+        hitCount.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Returns the most recently fetched entry for the given date even if it has expired, without
+     * counting a lookup or marking the entry as recently used. Used to serve something rather than
+     * nothing while the API cannot be reached.
+     *
+     * @param date The date of the entry.
+     * @return The cached entry, or null if the date has never been fetched.
+     */
+    public ApodEntry getStaleEntry(String date) {
+        Cursor cursor = database.getReadableDatabase().query(ApodDatabase.TABLE_APOD_ENTRY, null,
+                ApodDatabase.COLUMN_DATE + " = ? AND " + ApodDatabase.COLUMN_FETCHED_AT + " IS NOT NULL",
+                new String[]{ApodDates.normalize(date)}, null, null, ApodDatabase.COLUMN_FETCHED_AT + " DESC", "1");
+        try {
+            return cursor.moveToFirst() ? readEntry(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Returns the most recently fetched entry for the given date if it was fetched at or after the
+     * given time, even if it has expired, without counting a lookup or marking the entry as recently used.
+     *
+     * @param date         The date of the entry.
+     * @param fetchedSince The earliest fetch time accepted, in milliseconds since the epoch.
+     * @return The cached entry, or null if the date has not been fetched since then.
+     */
+    public ApodEntry getEntryFetchedSince(String date, long fetchedSince) {
+        Cursor cursor = database.getReadableDatabase().query(ApodDatabase.TABLE_APOD_ENTRY, null,
+                ApodDatabase.COLUMN_DATE + " = ? AND " + ApodDatabase.COLUMN_FETCHED_AT + " >= ?",
+                new String[]{ApodDates.normalize(date), String.valueOf(fetchedSince)},
+                null, null, ApodDatabase.COLUMN_FETCHED_AT + " DESC", "1");
+        try {
+            return cursor.moveToFirst() ? readEntry(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Stores an entry in the cache, updating any previous entry with the same URL in place, and evicts
+     * the least recently used entries if the cache has grown beyond {@link #MAX_ENTRIES}.
+     *
+     * @param entry The entry to store.
+     * @return true if the entry was stored, false otherwise.
+     */
+    public boolean putEntry(ApodEntry entry) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long result = ApodDatabase.upsertEntry(db, toContentValues(entry, System.currentTimeMillis()));
+            trimToSize(db);
+            db.setTransactionSuccessful();
+            return result != -1;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Stores several entries in the cache in a single transaction, updating any previous entries with
+     * the same URLs in place, and then evicts the least recently used entries beyond {@link #MAX_ENTRIES}.
+     *
+     * @param entries The entries to store.
+     * @return The number of entries stored.
+     */
+    public int putEntries(List<ApodEntry> entries) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        long now = System.currentTimeMillis();
+        int stored = 0;
+        db.beginTransaction();
+        try {
+            for (ApodEntry entry : entries) {
+                if (ApodDatabase.upsertEntry(db, toContentValues(entry, now)) != -1) {
+                    stored++;
+                }
+            }
+            trimToSize(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return stored;
+    }
+
+    /**
+     * Returns the cached entries between two dates, ordered by date. Unlike {@link #getEntry(String)},
+     * this does not count as a lookup and does not mark the entries as recently used, so background
+     * work can check what is cached without skewing the statistics or the eviction order. An expired
+     * entry for today is left out.
+     *
+     * @param startDate The first date of the range, inclusive.
+     * @param endDate   The last date of the range, inclusive.
+     * @return The cached entries in the range.
+     */
+    public List<ApodEntry> getEntriesBetween(String startDate, String endDate) {
+        String today = ApodDates.today();
+        long todayCutoff = System.currentTimeMillis() - TODAY_TTL_MS;
+        List<ApodEntry> entries = new ArrayList<>();
+        Cursor cursor = database.getReadableDatabase().query(ApodDatabase.TABLE_APOD_ENTRY, null,
+                ApodDatabase.COLUMN_DATE + " BETWEEN ? AND ? AND " + ApodDatabase.COLUMN_FETCHED_AT + " IS NOT NULL"
+                        + " AND (" + ApodDatabase.COLUMN_DATE + " != ? OR " + ApodDatabase.COLUMN_FETCHED_AT + " > ?)",
+                new String[]{ApodDates.normalize(startDate), ApodDates.normalize(endDate), today, String.valueOf(todayCutoff)},
+                null, null, ApodDatabase.COLUMN_DATE);
+        try {
+            while (cursor.moveToNext()) {
+                entries.add(readEntry(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the number of entries currently in the cache.
+     *
+     * @return The number of cached entries.
+     */
+    public long size() {
+        return DatabaseUtils.queryNumEntries(database.getReadableDatabase(), ApodDatabase.TABLE_APOD_ENTRY,
+                ApodDatabase.COLUMN_FETCHED_AT + " IS NOT NULL");
+    }
+
+    /**
+     * Returns the number of lookups that were served from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups that were not served from the cache.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Reads the entry at the current position of a cursor over the apod_entry table.
+     *
+     * @param cursor The cursor positioned at the entry.
+     * @return The entry.
+     */
+    static ApodEntry readEntry(Cursor cursor) {
+        return new ApodEntry(
+                cursor.getString(cursor.getColumnIndexOrThrow(ApodDatabase.COLUMN_DATE)),
+                cursor.getString(cursor.getColumnIndexOrThrow(ApodDatabase.COLUMN_URL)),
+                cursor.getString(cursor.getColumnIndexOrThrow(ApodDatabase.COLUMN_HDURL)),
+                cursor.getString(cursor.getColumnIndexOrThrow(ApodDatabase.COLUMN_TITLE)),
+                cursor.getString(cursor.getColumnIndexOrThrow(ApodDatabase.COLUMN_EXPLANATION)),
+                cursor.getString(cursor.getColumnIndexOrThrow(ApodDatabase.COLUMN_MEDIA_TYPE)),
+                cursor.getString(cursor.getColumnIndexOrThrow(ApodDatabase.COLUMN_THUMBNAIL_URL)),
+                cursor.getString(cursor.getColumnIndexOrThrow(ApodDatabase.COLUMN_COPYRIGHT)));
+    }
+
+    /**
+     * Converts an entry to the values stored in the apod_entry table.
+     *
+     * @param entry The entry to convert.
+     * @param now   The current time, used as the fetch and access time.
+     * @return The values for the apod_entry table.
+     */
+    private static ContentValues toContentValues(ApodEntry entry, long now) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(ApodDatabase.COLUMN_DATE, ApodDates.normalize(entry.getDate()));
+        contentValues.put(ApodDatabase.COLUMN_URL, entry.getUrl());
+        contentValues.put(ApodDatabase.COLUMN_HDURL, entry.getHdUrl());
+        contentValues.put(ApodDatabase.COLUMN_TITLE, entry.getTitle());
+        contentValues.put(ApodDatabase.COLUMN_EXPLANATION, entry.getExplanation());
+        contentValues.put(ApodDatabase.COLUMN_MEDIA_TYPE, entry.getMediaType());
+        contentValues.put(ApodDatabase.COLUMN_THUMBNAIL_URL, entry.getThumbnailUrl());
+        contentValues.put(ApodDatabase.COLUMN_COPYRIGHT, entry.getCopyright());
+        contentValues.put(ApodDatabase.COLUMN_FETCHED_AT, now);
+        contentValues.put(ApodDatabase.COLUMN_LAST_ACCESSED, now);
+        return contentValues;
+    }
+
+    /**
+     * Deletes the least recently used cached entries beyond {@link #MAX_ENTRIES}. Entries that are
+     * referenced by saved images or history records are kept.
+     *
+     * @param db The database.
+     */
+    private void trimToSize(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + ApodDatabase.TABLE_APOD_ENTRY + " WHERE " + ApodDatabase.COLUMN_ID + " IN (" +
+                "SELECT " + ApodDatabase.COLUMN_ID + " FROM " + ApodDatabase.TABLE_APOD_ENTRY +
+                " WHERE " + ApodDatabase.COLUMN_FETCHED_AT + " IS NOT NULL" +
+                " AND " + ApodDatabase.COLUMN_ID + " NOT IN (SELECT " + ApodDatabase.COLUMN_ENTRY_ID + " FROM " + ApodDatabase.TABLE_SAVED + ")" +
+                " AND " + ApodDatabase.COLUMN_ID + " NOT IN (SELECT " + ApodDatabase.COLUMN_ENTRY_ID + " FROM " + ApodDatabase.TABLE_HISTORY + ")" +
+                " ORDER BY " + ApodDatabase.COLUMN_LAST_ACCESSED + " DESC LIMIT -1 OFFSET " + MAX_ENTRIES + ")");
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.nasaimagepicker;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.JsonReader;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ApodClient fetches entries from NASA's Astronomy Picture of the Day (APOD) API.
+ * Requests run on a small bounded executor, responses are decoded as a stream by {@link ApodJsonParser},
+ * and every response body is fully consumed and closed (never disconnected) so that the
+ * underlying keep-alive connection is returned to the pool and reused by the next request.
+ * Requests that fail with a transient status or without any response are retried according to a
+ * {@link RetryPolicy}, and a {@link CircuitBreaker} stops sending requests while the API is
+ * throttling the app or failing.
+ */
+public class ApodClient {
+
+    private static final String TAG = "ApodClient";
+
+    /**
+     * The response header with the delay the server asks for before the next request.
+     */
+    static final String HEADER_RETRY_AFTER = "Retry-After";
+
+    /**
+     * The response header with the number of requests left in the current rate limit window of the API key.
+     */
+    static final String HEADER_RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+
+    /**
+     * The base URL of NASA's APOD API.
+     */
+    public static final String DEFAULT_BASE_URL = "https://api.nasa.gov/planetary/apod";
+
+    /**
+     * The API key used to access NASA's APOD API.
+     */
+    public static final String NASA_API_KEY = "DgPLcIlnmN0Cwrzcg3e9NraFaYLIDI68Ysc6Zh3d";
+
+    /**
+     * The default timeout, in milliseconds, for establishing a connection.
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 10000;
+
+    /**
+     * The default timeout, in milliseconds, for reading a response.
+     */
+    public static final int DEFAULT_READ_TIMEOUT_MS = 15000;
+
+    /**
+     * The maximum number of requests that run at the same time.
+     */
+    private static final int MAX_CONCURRENT_REQUESTS = 3;
+
+    /**
+     * The maximum number of days requested in a single start_date/end_date request.
+     */
+    static final int RANGE_CHUNK_DAYS = 120;
+
+    private static ApodClient instance;
+
+    private final String baseUrl;
+    private final String apiKey;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+    private final ExecutorService executor;
+    private final Executor callbackExecutor;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Returns the shared ApodClient used by the app, creating it on first use.
+     * Sharing one client lets all screens reuse the same pooled connections.
+     *
+     * @return The shared ApodClient instance.
+     */
+    public static synchronized ApodClient getInstance() {
+        if (instance == null) {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            instance = new ApodClient(DEFAULT_BASE_URL, NASA_API_KEY,
+                    DEFAULT_CONNECT_TIMEOUT_MS, DEFAULT_READ_TIMEOUT_MS,
+                    Executors.newFixedThreadPool(MAX_CONCURRENT_REQUESTS), mainHandler::post);
+        }
+        return instance;
+    }
+
+    /**
+     * Constructs a new ApodClient.
+     *
+     * @param baseUrl          The base URL of the APOD API.
+     * @param apiKey           The API key sent with every request.
+     * @param connectTimeoutMs The timeout, in milliseconds, for establishing a connection.
+     * @param readTimeoutMs    The timeout, in milliseconds, for reading a response.
+     * @param executor         The bounded executor that runs the requests.
+     * @param callbackExecutor The executor on which callbacks are delivered.
+     */
+    public ApodClient(String baseUrl, String apiKey, int connectTimeoutMs, int readTimeoutMs,
+                      ExecutorService executor, Executor callbackExecutor) {
+        this(baseUrl, apiKey, connectTimeoutMs, readTimeoutMs, executor, callbackExecutor,
+                new RetryPolicy(), new CircuitBreaker());
+    }
+
+    /**
+     * Constructs a new ApodClient with the given retry policy and circuit breaker.
+     *
+     * @param baseUrl          The base URL of the APOD API.
+     * @param apiKey           The API key sent with every request.
+     * @param connectTimeoutMs The timeout, in milliseconds, for establishing a connection.
+     * @param readTimeoutMs    The timeout, in milliseconds, for reading a response.
+     * @param executor         The bounded executor that runs the requests.
+     * @param callbackExecutor The executor on which callbacks are delivered.
+     * @param retryPolicy      The policy that decides whether and when failed requests are retried.
+     * @param circuitBreaker   The circuit breaker that stops requests while the API is throttling or failing.
+     */
+    public ApodClient(String baseUrl, String apiKey, int connectTimeoutMs, int readTimeoutMs,
+                      ExecutorService executor, Executor callbackExecutor,
+                      RetryPolicy retryPolicy, CircuitBreaker circuitBreaker) {
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        this.executor = executor;
+        this.callbackExecutor = callbackExecutor;
+        this.retryPolicy = retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Fetches the entry for the given date in the background and delivers the result to the callback
+     * on the callback executor.
+     *
+     * @param date     The date of the entry to fetch.
+     * @param callback The callback that receives the entry or the error.
+     * @return A Future that can be used to cancel the request.
+     */
+    public Future<?> fetch(String date, Callback callback) {
+        return executor.submit(() -> {
+            try {
+                ApodEntry entry = fetchEntry(date);
+                callbackExecutor.execute(() -> callback.onSuccess(entry));
+            } catch (IOException | RuntimeException e) {
+                // Every failure reaches the callback, so no caller waits forever on a Future nobody reads
+                callbackExecutor.execute(() -> callback.onError(e));
+            }
+        });
+    }
+
+    /**
+     * Fetches the entry for the given date on the calling thread.
+     *
+     * @param date The date of the entry to fetch.
+     * @return The decoded entry.
+     * @throws IOException If the request fails, the server returns an error status or the response is malformed.
+     */
+    public ApodEntry fetchEntry(String date) throws IOException {
+        return get("date=" + date, "APOD request for " + date, ApodJsonParser::readEntry);
+    }
+
+    /**
+     * Fetches all entries between two dates in the background and delivers them to the callback on the
+     * callback executor. Long ranges are split into chunks of {@link #RANGE_CHUNK_DAYS} days.
+     *
+     * @param startDate The first date of the range, inclusive.
+     * @param endDate   The last date of the range, inclusive.
+     * @param callback  The callback that receives the entries or the error.
+     * @return A Future that can be used to cancel the request.
+     */
+    public Future<?> fetchRange(String startDate, String endDate, RangeCallback callback) {
+        return executor.submit(() -> {
+            try {
+                List<ApodEntry> entries = fetchRangeEntries(startDate, endDate);
+                callbackExecutor.execute(() -> callback.onSuccess(entries));
+            } catch (IOException | RuntimeException e) {
+                // Every failure reaches the callback, so no caller waits forever on a Future nobody reads
+                callbackExecutor.execute(() -> callback.onError(e));
+            }
+        });
+    }
+
+    /**
+     * Fetches all entries between two dates on the calling thread, using one start_date/end_date request
+     * per chunk of {@link #RANGE_CHUNK_DAYS} days.
+     *
+     * @param startDate The first date of the range, inclusive.
+     * @param endDate   The last date of the range, inclusive.
+     * @return The decoded entries in the order returned by the API.
+     * @throws IOException If any request fails, the server returns an error status or a response is malformed.
+     */
+    public List<ApodEntry> fetchRangeEntries(String startDate, String endDate) throws IOException {
+        String end = ApodDates.normalize(endDate);
+        String chunkStart = ApodDates.normalize(startDate);
+        List<ApodEntry> entries = new ArrayList<>();
+        while (chunkStart.compareTo(end) <= 0) {
+            String chunkEnd = ApodDates.addDays(chunkStart, RANGE_CHUNK_DAYS - 1);
+            if (chunkEnd.compareTo(end) > 0) {
+                chunkEnd = end;
+            }
+            entries.addAll(get("start_date=" + chunkStart + "&end_date=" + chunkEnd,
+                    "APOD range request for " + chunkStart + ".." + chunkEnd, ApodJsonParser::readResponse));
+            chunkStart = ApodDates.addDays(chunkEnd, 1);
+        }
+        return entries;
+    }
+
+    /**
+     * Performs a GET request with the given query and decodes the response body as a stream. The
+     * request is retried with jittered exponential backoff while it fails with a transient status or
+     * without any response, as long as the retry policy allows it and the circuit breaker lets it through.
+     *
+     * @param query          The query parameters to append after the API key and the thumbnail flag.
+     * @param description    A description of the request used in error messages.
+     * @param responseReader The reader that decodes the response body.
+     * @param <T>            The type of the decoded response.
+     * @return The decoded response.
+     * @throws IOException If the request fails, the server returns an error status, the circuit is open or the response is malformed.
+     */
+    private <T> T get(String query, String description, ResponseReader<T> responseReader) throws IOException {
+        // thumbs=true makes the API include a still thumbnail_url for video entries
+        URL url = new URL(baseUrl + "?api_key=" + apiKey + "&thumbs=true&" + query);
+        for (int attempt = 1; ; attempt++) {
+            circuitBreaker.beforeRequest();
+            HttpURLConnection connection = openConnection(url);
+            int statusCode;
+            try {
+                statusCode = connection.getResponseCode();
+            } catch (IOException e) {
+                circuitBreaker.onFailure(0, -1);
+                long delayMs = retryPolicy.delayMs(attempt, -1);
+                if (Thread.currentThread().isInterrupted() || !retryPolicy.canRetry(attempt, -1)
+                        || circuitBreaker.remainingOpenMs() > delayMs) {
+                    throw e;
+                }
+                backOff(description, attempt, delayMs, e);
+                continue;
+            }
+
+            int rateLimitRemaining = connection.getHeaderFieldInt(HEADER_RATE_LIMIT_REMAINING, -1);
+            if (statusCode == HttpURLConnection.HTTP_OK) {
+                circuitBreaker.onSuccess(rateLimitRemaining);
+                return readBody(connection, description, responseReader);
+            }
+
+            // Consume the error body so the connection can still be reused
+            drainAndClose(connection.getErrorStream());
+            long retryAfterMs = RetryPolicy.parseRetryAfter(connection.getHeaderField(HEADER_RETRY_AFTER), System.currentTimeMillis());
+            ApodHttpException error = new ApodHttpException(statusCode, description + " failed with HTTP " + statusCode, retryAfterMs);
+            if (!error.isRetryable()) {
+                // The API is answering normally, it just has nothing for this request
+                circuitBreaker.onSuccess(rateLimitRemaining);
+                throw error;
+            }
+            circuitBreaker.onFailure(statusCode, retryAfterMs);
+            long delayMs = retryPolicy.delayMs(attempt, retryAfterMs);
+            // Retrying is pointless if the circuit would still be open by the time of the next attempt
+            if (!retryPolicy.canRetry(attempt, retryAfterMs) || circuitBreaker.remainingOpenMs() > delayMs) {
+                throw error;
+            }
+            backOff(description, attempt, delayMs, error);
+        }
+    }
+
+    /**
+     * Decodes the body of a successful response as a stream and consumes whatever is left of it.
+     *
+     * @param connection     The connection with the successful response.
+     * @param description    A description of the request used in error messages.
+     * @param responseReader The reader that decodes the response body.
+     * @param <T>            The type of the decoded response.
+     * @return The decoded response.
+     * @throws IOException If the body cannot be read or is malformed.
+     */
+    private static <T> T readBody(HttpURLConnection connection, String description, ResponseReader<T> responseReader) throws IOException {
+        InputStream inputStream = new BufferedInputStream(connection.getInputStream());
+        try {
+            JsonReader reader = new JsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            return responseReader.read(reader);
+        } catch (IllegalStateException e) {
+            throw new IOException("Malformed response to " + description, e);
+        } finally {
+            drainAndClose(inputStream);
+        }
+    }
+
+    /**
+     * Waits before the next attempt of a failed request.
+     *
+     * @param description A description of the request used in log messages.
+     * @param attempt     The number of the attempt that failed.
+     * @param delayMs     The delay before the next attempt.
+     * @param cause       The failure of the attempt.
+     * @throws InterruptedIOException If the request is cancelled while waiting.
+     */
+    private static void backOff(String description, int attempt, long delayMs, IOException cause) throws InterruptedIOException {
+        Log.w(TAG, description + " failed on attempt " + attempt + ", retrying in " + delayMs + " ms", cause);
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException(description + " cancelled while backing off");
+            interrupted.initCause(cause);
+            throw interrupted;
+        }
+    }
+
+    /**
+     * Stops accepting new requests. Requests that are already running are allowed to finish.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Opens a GET connection with the configured timeouts and keep-alive enabled.
+     *
+     * @param url The URL to open.
+     * @return The opened connection.
+     * @throws IOException If the connection cannot be opened.
+     */
+    private HttpURLConnection openConnection(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("GET");
+        connection.setConnectTimeout(connectTimeoutMs);
+        connection.setReadTimeout(readTimeoutMs);
+        connection.setRequestProperty("Connection", "keep-alive");
+        connection.setRequestProperty("Accept", "application/json");
+        return connection;
+    }
+
+    /**
+     * Reads any remaining bytes from the stream and closes it, which returns the connection to the pool.
+     *
+     * @param inputStream The stream to drain, may be null.
+     * @throws IOException If the stream cannot be read.
+     */
+    private static void drainAndClose(InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            return;
+        }
+        try {
+            byte[] buffer = new byte[1024];
+            while (inputStream.read(buffer) != -1) {
+                // Discard the remaining bytes
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Interface definition for a callback to be invoked when a fetch completes.
+     */
+    public interface Callback {
+        /**
+         * Called when the entry has been fetched and decoded.
+         *
+         * @param entry The fetched entry.
+         */
+        void onSuccess(ApodEntry entry);
+
+        /**
+         * Called when the fetch failed.
+         *
+         * @param e The error that caused the failure.
+         */
+        void onError(Exception e);
+    }
+
+    /**
+     * Interface definition for a callback to be invoked when a range fetch completes.
+     */
+    public interface RangeCallback {
+        /**
+         * Called when all entries of the range have been fetched and decoded.
+         *
+         * @param entries The fetched entries.
+         */
+        void onSuccess(List<ApodEntry> entries);
+
+        /**
+         * Called when the fetch failed.
+         *
+         * @param e The error that caused the failure.
+         */
+        void onError(Exception e);
+    }
+
+    /**
+     * Decodes a response body from a JsonReader.
+     *
+     * @param <T> The type of the decoded response.
+     */
+    private interface ResponseReader<T> {
+        T read(JsonReader reader) throws IOException;
+    }
+}
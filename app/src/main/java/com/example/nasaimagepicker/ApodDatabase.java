@@ -0,0 +1,602 @@
+package com.example.nasaimagepicker;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ApodDatabase is the SQLiteOpenHelper that owns the single database of the NASA Image Picker app.
+ * Every APOD entry is stored once in the apod_entry table; saved images and history records refer to
+ * it through foreign keys, and entries fetched from the API double as the metadata cache.
+ * Schema changes are applied by versioned migrations in {@link #onUpgrade(SQLiteDatabase, int, int)}.
+ */
+public class ApodDatabase extends SQLiteOpenHelper {
+
+    private static final String TAG = "ApodDatabase";
+
+    /**
+     * The name of the database. This is the file that used to hold only the saved images,
+     * kept so that existing installs are upgraded in place.
+     */
+    private static final String DATABASE_NAME = "saved_images.db";
+
+    /**
+     * The version of the database.
+     * Version 1 only had the images table; version 2 introduced apod_entry, saved and history;
+     * version 3 added the local path of downloaded saved images; version 4 added the thumbnail URL of video entries;
+     * version 5 added the copyright credit of entries; version 6 added the full-text index of entries;
+     * version 7 normalized all dates and access times to zero-padded ISO-8601 and indexed access times;
+     * version 8 added the view count of history records.
+     */
+    private static final int DATABASE_VERSION = 8;
+
+    /**
+     * The separate history database used before version 2.
+     */
+    private static final String LEGACY_HISTORY_DATABASE_NAME = "history.db";
+
+    /**
+     * The separate metadata cache database used before version 2.
+     */
+    private static final String LEGACY_CACHE_DATABASE_NAME = "apod_cache.db";
+
+    /**
+     * The size, in KiB, of the SQLite page cache kept by the shared connection.
+     */
+    private static final int PAGE_CACHE_KIB = 2048;
+
+    /**
+     * The GLOB pattern of a normalized date, "yyyy-MM-dd".
+     */
+    private static final String DATE_GLOB = "[0-9][0-9][0-9][0-9]-[0-9][0-9]-[0-9][0-9]";
+
+    /**
+     * The GLOB pattern of a normalized access time, "yyyy-MM-dd HH:mm:ss".
+     */
+    private static final String TIMESTAMP_GLOB = DATE_GLOB + " [0-9][0-9]:[0-9][0-9]:[0-9][0-9]";
+
+    /**
+     * A word of a search, made of letters and digits only.
+     */
+    private static final Pattern SEARCH_WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    static final String TABLE_APOD_ENTRY = "apod_entry";
+    static final String TABLE_SAVED = "saved";
+    static final String TABLE_HISTORY = "history";
+    static final String TABLE_APOD_ENTRY_FTS = "apod_entry_fts";
+
+    static final String COLUMN_ID = "_id";
+    static final String COLUMN_DATE = "date";
+    static final String COLUMN_URL = "url";
+    static final String COLUMN_HDURL = "hdurl";
+    static final String COLUMN_TITLE = "title";
+    static final String COLUMN_EXPLANATION = "explanation";
+    static final String COLUMN_MEDIA_TYPE = "media_type";
+    static final String COLUMN_FETCHED_AT = "fetched_at";
+    static final String COLUMN_LAST_ACCESSED = "last_accessed";
+    static final String COLUMN_ENTRY_ID = "entry_id";
+    static final String COLUMN_DATE_ACCESSED = "date_accessed";
+    static final String COLUMN_LOCAL_PATH = "local_path";
+    static final String COLUMN_THUMBNAIL_URL = "thumbnail_url";
+    static final String COLUMN_COPYRIGHT = "copyright";
+    static final String COLUMN_VIEW_COUNT = "view_count";
+    static final String COLUMN_DOCID = "docid";
+    static final String COLUMN_RANK = "rank";
+
+    private static ApodDatabase instance;
+
+    private final Context context;
+
+    /**
+     * The legacy database files whose data has been copied and that can be deleted once the
+     * migration transaction has been committed.
+     */
+    private final List<String> migratedLegacyDatabases = new ArrayList<>();
+
+    /**
+     * Returns the shared ApodDatabase, creating it on first use. The helper is bound to the
+     * application context and its connection stays open for the lifetime of the process.
+     *
+     * @param context The context to use for locating paths to the database.
+     * @return The shared ApodDatabase instance.
+     */
+    public static synchronized ApodDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = new ApodDatabase(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Closes and discards the shared instance so the next call to {@link #getInstance(Context)}
+     * opens a new one.
+     */
+    @VisibleForTesting
+    static synchronized void resetInstance() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    /**
+     * Constructs a new instance of ApodDatabase.
+     *
+     * @param context The context to use for locating paths to the database.
+     */
+    private ApodDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.context = context;
+    }
+
+    /**
+     * Called when the database connection is being configured. Enables foreign keys and write-ahead
+     * logging, and enlarges the page cache of the long-lived connection.
+     *
+     * @param db The database.
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.setForeignKeyConstraintsEnabled(true);
+        db.enableWriteAheadLogging();
+        db.execSQL("PRAGMA cache_size = -" + PAGE_CACHE_KIB);
+    }
+
+    /**
+     * Called when the database is created for the first time. Creates the current schema and copies
+     * any data left in the legacy history and cache databases.
+     *
+     * @param db The database.
+     */
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        createVersion2Tables(db);
+        migrateToVersion3(db);
+        migrateToVersion4(db);
+        migrateToVersion5(db);
+        migrateToVersion6(db);
+        migrateToVersion7(db);
+        migrateToVersion8(db);
+        importLegacyDatabases(db);
+    }
+
+    /**
+     * Called when the database needs to be upgraded. Each step migrates the schema by one version and
+     * copies the existing data forward, so any older version can be upgraded to the current one.
+     *
+     * @param db         The database.
+     * @param oldVersion The old database version.
+     * @param newVersion The new database version.
+     */
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            migrateToVersion2(db);
+        }
+        if (oldVersion < 3) {
+            migrateToVersion3(db);
+        }
+        if (oldVersion < 4) {
+            migrateToVersion4(db);
+        }
+        if (oldVersion < 5) {
+            migrateToVersion5(db);
+        }
+        if (oldVersion < 6) {
+            migrateToVersion6(db);
+        }
+        if (oldVersion < 7) {
+            migrateToVersion7(db);
+        }
+        if (oldVersion < 8) {
+            migrateToVersion8(db);
+        }
+    }
+
+    /**
+     * Called when the database has been opened. Deletes the legacy database files once their data has
+     * been committed to this database.
+     *
+     * @param db The database.
+     */
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        for (String name : migratedLegacyDatabases) {
+            context.deleteDatabase(name);
+        }
+        migratedLegacyDatabases.clear();
+    }
+
+    /**
+     * Creates the tables introduced in version 2.
+     *
+     * @param db The database.
+     */
+    private static void createVersion2Tables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_APOD_ENTRY + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COLUMN_DATE + " TEXT, " +
+                COLUMN_URL + " TEXT NOT NULL UNIQUE, " +
+                COLUMN_HDURL + " TEXT, " +
+                COLUMN_TITLE + " TEXT, " +
+                COLUMN_EXPLANATION + " TEXT, " +
+                COLUMN_MEDIA_TYPE + " TEXT, " +
+                COLUMN_FETCHED_AT + " INTEGER, " +  // Null for entries that were never fetched from the API
+                COLUMN_LAST_ACCESSED + " INTEGER)");
+        db.execSQL("CREATE INDEX idx_apod_entry_date ON " + TABLE_APOD_ENTRY + " (" + COLUMN_DATE + ")");
+        db.execSQL("CREATE INDEX idx_apod_entry_last_accessed ON " + TABLE_APOD_ENTRY + " (" + COLUMN_LAST_ACCESSED + ")");
+
+        db.execSQL("CREATE TABLE " + TABLE_SAVED + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COLUMN_ENTRY_ID + " INTEGER NOT NULL UNIQUE REFERENCES " + TABLE_APOD_ENTRY + "(" + COLUMN_ID + ") ON DELETE CASCADE)");
+
+        db.execSQL("CREATE TABLE " + TABLE_HISTORY + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COLUMN_ENTRY_ID + " INTEGER NOT NULL REFERENCES " + TABLE_APOD_ENTRY + "(" + COLUMN_ID + ") ON DELETE CASCADE, " +
+                COLUMN_DATE_ACCESSED + " TEXT)");
+        db.execSQL("CREATE INDEX idx_history_entry_id ON " + TABLE_HISTORY + " (" + COLUMN_ENTRY_ID + ")");
+    }
+
+    /**
+     * Migrates a version 1 database, which only had the images table, to version 2. Saved images keep
+     * their IDs and are moved to the saved table, and the legacy history and cache databases are merged in.
+     *
+     * @param db The database.
+     */
+    private void migrateToVersion2(SQLiteDatabase db) {
+        createVersion2Tables(db);
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_APOD_ENTRY + " (" + COLUMN_URL + ", " + COLUMN_DATE + ", " + COLUMN_EXPLANATION + ")" +
+                " SELECT url, date, description FROM images WHERE url IS NOT NULL ORDER BY _id");
+        db.execSQL("INSERT INTO " + TABLE_SAVED + " (" + COLUMN_ID + ", " + COLUMN_ENTRY_ID + ")" +
+                " SELECT i._id, e." + COLUMN_ID + " FROM images i JOIN " + TABLE_APOD_ENTRY + " e ON e." + COLUMN_URL + " = i.url");
+        db.execSQL("DROP TABLE images");
+        importLegacyDatabases(db);
+    }
+
+    /**
+     * Migrates a version 2 database to version 3 by adding the path of the downloaded file to saved
+     * images. Existing saved images have no file yet and are downloaded the next time they are shown.
+     *
+     * @param db The database.
+     */
+    private static void migrateToVersion3(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_SAVED + " ADD COLUMN " + COLUMN_LOCAL_PATH + " TEXT");
+    }
+
+    /**
+     * Migrates a version 3 database to version 4 by adding the thumbnail URL of video entries. Existing
+     * video entries have no thumbnail until they are fetched again, and are shown with a placeholder.
+     *
+     * @param db The database.
+     */
+    private static void migrateToVersion4(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_APOD_ENTRY + " ADD COLUMN " + COLUMN_THUMBNAIL_URL + " TEXT");
+    }
+
+    /**
+     * Migrates a version 4 database to version 5 by adding the copyright credit of entries. Existing
+     * entries get their credit the next time they are fetched.
+     *
+     * @param db The database.
+     */
+    private static void migrateToVersion5(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_APOD_ENTRY + " ADD COLUMN " + COLUMN_COPYRIGHT + " TEXT");
+    }
+
+    /**
+     * Migrates a version 5 database to version 6 by adding an FTS4 index over the title and explanation
+     * of entries. The index is an external content table that reads the text from apod_entry, and
+     * triggers keep it in step with every insert, delete and change of the indexed columns, so it is
+     * updated incrementally by whichever helper writes the entry. Existing entries are indexed once here.
+     *
+     * @param db The database.
+     */
+    private static void migrateToVersion6(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_APOD_ENTRY_FTS + " USING fts4(content=\"" + TABLE_APOD_ENTRY + "\", " +
+                COLUMN_TITLE + ", " + COLUMN_EXPLANATION + ")");
+        String indexNew = " BEGIN INSERT INTO " + TABLE_APOD_ENTRY_FTS + " (" + COLUMN_DOCID + ", " + COLUMN_TITLE + ", " + COLUMN_EXPLANATION + ")" +
+                " VALUES (new." + COLUMN_ID + ", new." + COLUMN_TITLE + ", new." + COLUMN_EXPLANATION + "); END";
+        // The old row must be removed from the index while apod_entry still holds its text
+        String unindexOld = " BEGIN DELETE FROM " + TABLE_APOD_ENTRY_FTS + " WHERE " + COLUMN_DOCID + " = old." + COLUMN_ID + "; END";
+        String indexedColumns = " OF " + COLUMN_TITLE + ", " + COLUMN_EXPLANATION;
+        db.execSQL("CREATE TRIGGER apod_entry_fts_after_insert AFTER INSERT ON " + TABLE_APOD_ENTRY + indexNew);
+        db.execSQL("CREATE TRIGGER apod_entry_fts_before_update BEFORE UPDATE" + indexedColumns + " ON " + TABLE_APOD_ENTRY + unindexOld);
+        db.execSQL("CREATE TRIGGER apod_entry_fts_after_update AFTER UPDATE" + indexedColumns + " ON " + TABLE_APOD_ENTRY + indexNew);
+        db.execSQL("CREATE TRIGGER apod_entry_fts_before_delete BEFORE DELETE ON " + TABLE_APOD_ENTRY + unindexOld);
+        db.execSQL("INSERT INTO " + TABLE_APOD_ENTRY_FTS + " (" + TABLE_APOD_ENTRY_FTS + ") VALUES ('rebuild')");
+    }
+
+    /**
+     * Migrates a version 6 database to version 7. Dates and access times written before they were
+     * normalized, such as "2024-3-7", are rewritten as zero-padded ISO-8601, so that text order is
+     * chronological order and ranges can be answered by index range scans. Access times get the
+     * index that range queries and sorting on them need; entry dates and URLs are already indexed.
+     *
+     * @param db The database.
+     */
+    private static void migrateToVersion7(SQLiteDatabase db) {
+        normalizeColumn(db, TABLE_APOD_ENTRY, COLUMN_DATE, DATE_GLOB, false);
+        normalizeColumn(db, TABLE_HISTORY, COLUMN_DATE_ACCESSED, TIMESTAMP_GLOB, true);
+        db.execSQL("CREATE INDEX idx_history_date_accessed ON " + TABLE_HISTORY + " (" + COLUMN_DATE_ACCESSED + ")");
+    }
+
+    /**
+     * Migrates a version 7 database to version 8 by adding the view count of history records. Every
+     * existing record stands for a single view; records are only combined once the user turns on
+     * compaction of repeated views.
+     *
+     * @param db The database.
+     */
+    private static void migrateToVersion8(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_HISTORY + " ADD COLUMN " + COLUMN_VIEW_COUNT + " INTEGER NOT NULL DEFAULT 1");
+    }
+
+    /**
+     * Rewrites the values of a date or timestamp column that do not have the normalized form yet.
+     * Values that cannot be parsed are left unchanged.
+     *
+     * @param db        The database.
+     * @param table     The table.
+     * @param column    The column holding dates or timestamps.
+     * @param glob      The GLOB pattern of normalized values.
+     * @param timestamp Whether the column holds timestamps rather than dates.
+     */
+    private static void normalizeColumn(SQLiteDatabase db, String table, String column, String glob, boolean timestamp) {
+        Cursor cursor = db.query(table, new String[]{COLUMN_ID, column},
+                column + " IS NOT NULL AND " + column + " NOT GLOB ?", new String[]{glob}, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                String value = cursor.getString(1);
+                String normalized = timestamp ? ApodDates.normalizeTimestamp(value) : ApodDates.normalize(value);
+                if (!normalized.equals(value)) {
+                    ContentValues contentValues = new ContentValues();
+                    contentValues.put(column, normalized);
+                    db.update(table, contentValues, COLUMN_ID + " = ?", new String[]{String.valueOf(cursor.getLong(0))});
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Returns a parenthesized list of record IDs for an IN clause. The IDs are written into the SQL
+     * rather than bound, so the list is not limited by the number of bind arguments a statement can take.
+     *
+     * @param ids The record IDs, not empty.
+     * @return The list, for example "(3,1,2)".
+     */
+    static String idList(Collection<Long> ids) {
+        StringBuilder list = new StringBuilder("(");
+        for (long id : ids) {
+            if (list.length() > 1) {
+                list.append(',');
+            }
+            list.append(id);
+        }
+        return list.append(')').toString();
+    }
+
+    /**
+     * Returns the bounds of a half-open range covering every date or access time from the start date
+     * up to and including the end date. The end bound is the day after the end date, so it compares
+     * greater than any timestamp on the end date.
+     *
+     * @param startDate The first date of the range, inclusive.
+     * @param endDate   The last date of the range, inclusive.
+     * @return The inclusive lower bound and the exclusive upper bound.
+     */
+    static String[] dateRangeArgs(String startDate, String endDate) {
+        return new String[]{ApodDates.normalize(startDate), ApodDates.addDays(ApodDates.normalize(endDate), 1)};
+    }
+
+    /**
+     * Returns a subquery over the full-text index that selects the IDs of the entries matching a search
+     * in a {@link #COLUMN_DOCID} column, with a {@link #COLUMN_RANK} column that is 0 for entries whose
+     * title matches every term and 1 for entries that only match through their explanation. It takes
+     * the two arguments returned by {@link #searchArgs(String)}.
+     *
+     * @return The subquery, in parentheses.
+     */
+    static String rankedSearchSubquery() {
+        return "(SELECT " + COLUMN_DOCID + ", " + COLUMN_DOCID + " NOT IN (SELECT " + COLUMN_DOCID + " FROM " + TABLE_APOD_ENTRY_FTS +
+                " WHERE " + TABLE_APOD_ENTRY_FTS + " MATCH ?) AS " + COLUMN_RANK +
+                " FROM " + TABLE_APOD_ENTRY_FTS + " WHERE " + TABLE_APOD_ENTRY_FTS + " MATCH ?)";
+    }
+
+    /**
+     * Turns the text typed into a search box into the arguments of {@link #rankedSearchSubquery()}.
+     * Every word of the text becomes a prefix term, so results update while the last word is still
+     * being typed, and all terms must match. Punctuation is dropped, so the user can never write FTS
+     * query syntax by accident.
+     *
+     * @param text The text typed by the user.
+     * @return The title query and the query over all columns, or null if the text has no words.
+     */
+    static String[] searchArgs(String text) {
+        Matcher words = SEARCH_WORD.matcher(text == null ? "" : text);
+        StringBuilder titleQuery = new StringBuilder();
+        StringBuilder anyQuery = new StringBuilder();
+        while (words.find()) {
+            if (anyQuery.length() > 0) {
+                titleQuery.append(' ');
+                anyQuery.append(' ');
+            }
+            // With the trailing star, words such as OR or NEAR are read as terms rather than operators
+            titleQuery.append(COLUMN_TITLE).append(':').append(words.group()).append('*');
+            anyQuery.append(words.group()).append('*');
+        }
+        return anyQuery.length() == 0 ? null : new String[]{titleQuery.toString(), anyQuery.toString()};
+    }
+
+    /**
+     * Copies the rows of the separate history and cache databases used before version 2.
+     * Legacy files are read through their own connection because ATTACH is not allowed inside the
+     * migration transaction.
+     *
+     * @param db The database.
+     */
+    private void importLegacyDatabases(SQLiteDatabase db) {
+        importLegacyDatabase(db, LEGACY_HISTORY_DATABASE_NAME, legacy -> {
+            Cursor cursor = legacy.rawQuery("SELECT _id, url, date, description, date_accessed FROM history" +
+                    " WHERE url IS NOT NULL ORDER BY _id", null);
+            while (cursor.moveToNext()) {
+                long entryId = ensureEntry(db, cursor.getString(1), cursor.getString(2), cursor.getString(3));
+                ContentValues contentValues = new ContentValues();
+                contentValues.put(COLUMN_ID, cursor.getLong(0));
+                contentValues.put(COLUMN_ENTRY_ID, entryId);
+                contentValues.put(COLUMN_DATE_ACCESSED, ApodDates.normalizeTimestamp(cursor.getString(4)));
+                db.insert(TABLE_HISTORY, null, contentValues);
+            }
+            cursor.close();
+        });
+
+        importLegacyDatabase(db, LEGACY_CACHE_DATABASE_NAME, legacy -> {
+            Cursor cursor = legacy.rawQuery("SELECT date, url, hdurl, title, explanation, media_type, fetched_at, last_accessed" +
+                    " FROM apod_entry", null);
+            while (cursor.moveToNext()) {
+                ContentValues contentValues = new ContentValues();
+                contentValues.put(COLUMN_DATE, ApodDates.normalize(cursor.getString(0)));
+                contentValues.put(COLUMN_URL, cursor.getString(1));
+                contentValues.put(COLUMN_HDURL, cursor.getString(2));
+                contentValues.put(COLUMN_TITLE, cursor.getString(3));
+                contentValues.put(COLUMN_EXPLANATION, cursor.getString(4));
+                contentValues.put(COLUMN_MEDIA_TYPE, cursor.getString(5));
+                contentValues.put(COLUMN_FETCHED_AT, cursor.getLong(6));
+                contentValues.put(COLUMN_LAST_ACCESSED, cursor.getLong(7));
+                upsertEntry(db, contentValues);
+            }
+            cursor.close();
+        });
+    }
+
+    /**
+     * Opens a legacy database file read-only, if it exists, and copies its rows with the given importer.
+     * A legacy file that cannot be read is skipped so that it does not block the migration.
+     *
+     * @param db       The database.
+     * @param name     The name of the legacy database file.
+     * @param importer The importer that copies the rows.
+     */
+    private void importLegacyDatabase(SQLiteDatabase db, String name, LegacyImporter importer) {
+        File file = context.getDatabasePath(name);
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            SQLiteDatabase legacy = SQLiteDatabase.openDatabase(file.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+            try {
+                importer.importFrom(legacy);
+            } finally {
+                legacy.close();
+            }
+            migratedLegacyDatabases.add(name);
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Could not import legacy database " + name, e);
+        }
+    }
+
+    /**
+     * Returns the ID of the entry with the given URL, inserting a new entry with the given date and
+     * explanation if there is none. Existing entries are left unchanged.
+     *
+     * @param db          The database.
+     * @param url         The URL of the entry.
+     * @param date        The date of the entry.
+     * @param explanation The explanation of the entry, used only for new entries.
+     * @return The ID of the entry.
+     */
+    static long ensureEntry(SQLiteDatabase db, String url, String date, String explanation) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COLUMN_URL, url);
+        contentValues.put(COLUMN_DATE, ApodDates.normalize(date));
+        contentValues.put(COLUMN_EXPLANATION, explanation);
+        long id = db.insertWithOnConflict(TABLE_APOD_ENTRY, null, contentValues, SQLiteDatabase.CONFLICT_IGNORE);
+        return id != -1 ? id : findEntryId(db, url);
+    }
+
+    /**
+     * Returns the ID of the entry with the URL of the given entry, inserting it with all its details if
+     * there is none. An existing entry without a title, such as one recorded before its details were
+     * known, is completed with them; other existing entries are left unchanged. The entry is not given
+     * a fetch time, so it does not count as cached.
+     *
+     * @param db    The database.
+     * @param entry The entry.
+     * @return The ID of the entry.
+     */
+    static long ensureEntry(SQLiteDatabase db, ApodEntry entry) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COLUMN_URL, entry.getUrl());
+        contentValues.put(COLUMN_DATE, ApodDates.normalize(entry.getDate()));
+        contentValues.put(COLUMN_HDURL, entry.getHdUrl());
+        contentValues.put(COLUMN_TITLE, entry.getTitle());
+        contentValues.put(COLUMN_EXPLANATION, entry.getExplanation());
+        contentValues.put(COLUMN_MEDIA_TYPE, entry.getMediaType());
+        contentValues.put(COLUMN_THUMBNAIL_URL, entry.getThumbnailUrl());
+        contentValues.put(COLUMN_COPYRIGHT, entry.getCopyright());
+        long id = db.insertWithOnConflict(TABLE_APOD_ENTRY, null, contentValues, SQLiteDatabase.CONFLICT_IGNORE);
+        if (id != -1) {
+            return id;
+        }
+        if (entry.getTitle() != null) {
+            db.update(TABLE_APOD_ENTRY, contentValues, COLUMN_URL + " = ? AND " + COLUMN_TITLE + " IS NULL",
+                    new String[]{entry.getUrl()});
+        }
+        return findEntryId(db, entry.getUrl());
+    }
+
+    /**
+     * Updates the entry with the URL in the given values, or inserts it if there is none. Unlike
+     * a REPLACE, updating in place keeps the entry ID that saved and history rows refer to.
+     *
+     * @param db            The database.
+     * @param contentValues The values of the entry, including its URL.
+     * @return The ID of the entry.
+     */
+    static long upsertEntry(SQLiteDatabase db, ContentValues contentValues) {
+        String url = contentValues.getAsString(COLUMN_URL);
+        int updated = db.update(TABLE_APOD_ENTRY, contentValues, COLUMN_URL + " = ?", new String[]{url});
+        if (updated > 0) {
+            return findEntryId(db, url);
+        }
+        return db.insert(TABLE_APOD_ENTRY, null, contentValues);
+    }
+
+    /**
+     * Returns the ID of the entry with the given URL.
+     *
+     * @param db  The database.
+     * @param url The URL of the entry.
+     * @return The ID of the entry, or -1 if there is none.
+     */
+    private static long findEntryId(SQLiteDatabase db, String url) {
+        Cursor cursor = db.query(TABLE_APOD_ENTRY, new String[]{COLUMN_ID}, COLUMN_URL + " = ?", new String[]{url},
+                null, null, null);
+        long id = cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        cursor.close();
+        return id;
+    }
+
+    /**
+     * Copies the rows of a legacy database into this database.
+     */
+    private interface LegacyImporter {
+        void importFrom(SQLiteDatabase legacy);
+    }
+}
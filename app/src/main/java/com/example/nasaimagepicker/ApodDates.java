@@ -0,0 +1,216 @@
+package com.example.nasaimagepicker;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApodDates contains helpers for the date strings used as keys for APOD entries.
+ * All dates are handled in the ISO-8601 format "yyyy-MM-dd" expected by the APOD API. APOD dates
+ * follow US Eastern time, where a new entry is published every day, whatever the device's time zone.
+ */
+public final class ApodDates {
+
+    /**
+     * The date of the first APOD entry; the API rejects earlier dates.
+     */
+    public static final String FIRST_DATE = "1995-06-16";
+
+    /**
+     * The time zone in which APOD publishes its entries and in which its dates change.
+     */
+    static final TimeZone APOD_TIME_ZONE = TimeZone.getTimeZone("America/New_York");
+
+    private ApodDates() {
+    }
+
+    /**
+     * Normalizes a date such as "2024-3-7" to the zero-padded form "2024-03-07".
+     *
+     * @param date The date to normalize, with year, month and day separated by dashes.
+     * @return The normalized date, or the input unchanged if it cannot be parsed.
+     */
+    public static String normalize(String date) {
+        if (date == null) {
+            return null;
+        }
+        String[] parts = date.trim().split("-");
+        if (parts.length != 3) {
+            return date;
+        }
+        try {
+            return format(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) - 1, Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            return date;
+        }
+    }
+
+    /**
+     * Formats a calendar date as "yyyy-MM-dd".
+     *
+     * @param year  The year.
+     * @param month The month (0-11 for compatibility with Calendar).
+     * @param day   The day of the month.
+     * @return The formatted date.
+     */
+    public static String format(int year, int month, int day) {
+        return String.format(Locale.US, "%04d-%02d-%02d", year, month + 1, day);
+    }
+
+    /**
+     * Formats a point in time as the local timestamp "yyyy-MM-dd HH:mm:ss" used for access times.
+     * Digits are always ASCII, whatever the default locale, so timestamps sort and compare as text.
+     *
+     * @param timeMillis The time in milliseconds since the epoch.
+     * @return The formatted timestamp.
+     */
+    public static String formatTimestamp(long timeMillis) {
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(timeMillis);
+        return String.format(Locale.US, "%s %02d:%02d:%02d",
+                format(c.get(Calendar.YEAR), c.get(Calendar.MONTH), c.get(Calendar.DAY_OF_MONTH)),
+                c.get(Calendar.HOUR_OF_DAY), c.get(Calendar.MINUTE), c.get(Calendar.SECOND));
+    }
+
+    /**
+     * Normalizes a timestamp such as "2024-3-7 9:05:00" to the zero-padded form "2024-03-07 09:05:00".
+     * A timestamp without a time is normalized like a date.
+     *
+     * @param timestamp The timestamp to normalize, a date optionally followed by a space and "H:m:s".
+     * @return The normalized timestamp, or the input unchanged if it cannot be parsed.
+     */
+    public static String normalizeTimestamp(String timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        String[] parts = timestamp.trim().split("\\s+");
+        if (parts.length == 1) {
+            return normalize(parts[0]);
+        }
+        String[] time = parts.length == 2 ? parts[1].split(":") : new String[0];
+        if (time.length != 3) {
+            return timestamp;
+        }
+        try {
+            return String.format(Locale.US, "%s %02d:%02d:%02d", normalize(parts[0]),
+                    Integer.parseInt(time[0]), Integer.parseInt(time[1]), Integer.parseInt(time[2]));
+        } catch (NumberFormatException e) {
+            return timestamp;
+        }
+    }
+
+    /**
+     * Returns today's APOD date in the format "yyyy-MM-dd". Ahead of US Eastern time this is still
+     * yesterday's local date, since today's entry has not been published yet.
+     *
+     * @return Today's date.
+     */
+    public static String today() {
+        return today(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the APOD date at a point in time, in the format "yyyy-MM-dd".
+     *
+     * @param timeMillis The time in milliseconds since the epoch.
+     * @return The APOD date at that time.
+     */
+    static String today(long timeMillis) {
+        Calendar c = Calendar.getInstance(APOD_TIME_ZONE);
+        c.setTimeInMillis(timeMillis);
+        return format(c.get(Calendar.YEAR), c.get(Calendar.MONTH), c.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * Returns whether the given date is today.
+     *
+     * @param date The date to check.
+     * @return true if the date is today, false otherwise.
+     */
+    public static boolean isToday(String date) {
+        return today().equals(normalize(date));
+    }
+
+    /**
+     * Returns the date that is the given number of days after the given date.
+     *
+     * @param date The start date in the format "yyyy-MM-dd".
+     * @param days The number of days to add, may be negative.
+     * @return The resulting date in the format "yyyy-MM-dd".
+     */
+    public static String addDays(String date, int days) {
+        Calendar c = toCalendar(date);
+        c.add(Calendar.DAY_OF_MONTH, days);
+        return format(c.get(Calendar.YEAR), c.get(Calendar.MONTH), c.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * Returns the number of days from the first date to the second date.
+     *
+     * @param from The first date in the format "yyyy-MM-dd".
+     * @param to   The second date in the format "yyyy-MM-dd".
+     * @return The number of days between the dates, negative if the second date is earlier.
+     */
+    public static int daysBetween(String from, String to) {
+        long fromMs = toCalendar(from).getTimeInMillis();
+        long toMs = toCalendar(to).getTimeInMillis();
+        return (int) Math.round((toMs - fromMs) / (double) TimeUnit.DAYS.toMillis(1));
+    }
+
+    /**
+     * Returns the time of midnight US Eastern time at the start of the given APOD date.
+     *
+     * @param date The date in the format "yyyy-MM-dd".
+     * @return The start of the date in milliseconds since the epoch.
+     */
+    public static long startOfDay(String date) {
+        return toCalendar(date).getTimeInMillis();
+    }
+
+    /**
+     * Converts a date in the format "yyyy-MM-dd" to a Calendar in the device's time zone set to local
+     * midnight of that day, as expected by date pickers.
+     *
+     * @param date The date to convert.
+     * @return The local Calendar for the date.
+     * @throws IllegalArgumentException If the date cannot be parsed.
+     */
+    public static Calendar toLocalCalendar(String date) {
+        return toCalendar(date, TimeZone.getDefault());
+    }
+
+    /**
+     * Converts a date in the format "yyyy-MM-dd" to a Calendar set to midnight of that day US Eastern time.
+     *
+     * @param date The date to convert.
+     * @return The Calendar for the date.
+     * @throws IllegalArgumentException If the date cannot be parsed.
+     */
+    private static Calendar toCalendar(String date) {
+        return toCalendar(date, APOD_TIME_ZONE);
+    }
+
+    /**
+     * Converts a date in the format "yyyy-MM-dd" to a Calendar set to midnight of that day in a time zone.
+     *
+     * @param date     The date to convert.
+     * @param timeZone The time zone of the Calendar.
+     * @return The Calendar for the date.
+     * @throws IllegalArgumentException If the date cannot be parsed.
+     */
+    private static Calendar toCalendar(String date, TimeZone timeZone) {
+        String[] parts = normalize(date).split("-");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+        Calendar c = Calendar.getInstance(timeZone);
+        c.clear();
+        try {
+            c.set(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) - 1, Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid date: " + date, e);
+        }
+        return c;
+    }
+}
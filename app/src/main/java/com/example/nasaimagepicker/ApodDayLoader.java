@@ -0,0 +1,92 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.Target;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ApodDayLoader loads the days of a {@link DayWindow}: entries come from the metadata store through
+ * {@link ApodRepository}, which also loads the days that are not stored yet,
+ * and pictures are decoded by {@link ThumbnailLoader} down to the size of the pager.
+ */
+public class ApodDayLoader implements DayWindow.Loader {
+
+    private static final String TAG = "ApodDayLoader";
+
+    private final ApodRepository repository;
+    private final ThumbnailLoader thumbnailLoader;
+    private final int pictureSizePx;
+    private final Object tag;
+
+    /**
+     * The targets of the pending picture loads by day, kept here because Picasso only holds targets weakly.
+     */
+    private final Map<String, Target> pendingTargets = new HashMap<>();
+
+    /**
+     * Constructs a new ApodDayLoader.
+     *
+     * @param context       The context used to open the repository and the thumbnail loader.
+     * @param pictureSizePx The maximum width and height of decoded pictures.
+     * @param tag           The tag of the screen making the requests.
+     */
+    public ApodDayLoader(Context context, int pictureSizePx, Object tag) {
+        this.repository = ApodRepository.getInstance(context);
+        this.thumbnailLoader = ThumbnailLoader.getInstance(context);
+        this.pictureSizePx = pictureSizePx;
+        this.tag = tag;
+    }
+
+    @Override
+    public Cancellable loadStoredEntries(String startDate, String endDate, ApodClient.RangeCallback callback) {
+        return repository.loadCached(startDate, endDate, callback);
+    }
+
+    @Override
+    public Cancellable loadEntries(String startDate, String endDate, ApodClient.RangeCallback callback) {
+        return repository.loadRange(startDate, endDate, callback);
+    }
+
+    @Override
+    public Cancellable loadEntry(String date, ApodClient.Callback callback) {
+        return repository.load(date, callback);
+    }
+
+    @Override
+    public void loadPicture(String date, String url, DayWindow.PictureCallback callback) {
+        Target target = new Target() {
+            @Override
+            public void onBitmapLoaded(Bitmap bitmap, Picasso.LoadedFrom from) {
+                pendingTargets.remove(date);
+                callback.onPictureLoaded(bitmap);
+            }
+
+            @Override
+            public void onBitmapFailed(Exception e, Drawable errorDrawable) {
+                pendingTargets.remove(date);
+                Log.w(TAG, "Could not load the picture for " + date, e);
+            }
+
+            @Override
+            public void onPrepareLoad(Drawable placeHolderDrawable) {
+            }
+        };
+        pendingTargets.put(date, target);
+        thumbnailLoader.loadPreview(url, pictureSizePx, target, tag);
+    }
+
+    @Override
+    public void cancelPicture(String date) {
+        Target target = pendingTargets.remove(date);
+        if (target != null) {
+            thumbnailLoader.cancelRequest(target);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.nasaimagepicker;
+
+/**
+ * ApodEntry represents a single Astronomy Picture of the Day entry as returned by NASA's APOD API.
+ * It holds the metadata the app uses for a date: the image URLs, the title, the explanation,
+ * the copyright credit and the media type of the entry. Video entries carry the URL of a still thumbnail, because their
+ * url points at an embedded player that cannot be decoded as an image.
+ */
+public class ApodEntry {
+
+    /**
+     * The media type of entries whose url is an image.
+     */
+    static final String MEDIA_TYPE_IMAGE = "image";
+
+    /**
+     * The media type of entries whose url is an embedded video player.
+     */
+    static final String MEDIA_TYPE_VIDEO = "video";
+
+    private final String date;
+    private final String url;
+    private final String hdUrl;
+    private final String title;
+    private final String explanation;
+    private final String mediaType;
+    private final String thumbnailUrl;
+    private final String copyright;
+
+    /**
+     * Constructs a new ApodEntry.
+     *
+     * @param date        The date of the entry in the format "yyyy-MM-dd".
+     * @param url         The URL of the image (or embedded media) for the entry.
+     * @param hdUrl       The URL of the high-definition image, or null if not provided.
+     * @param title       The title of the entry.
+     * @param explanation The explanation text of the entry.
+     * @param mediaType   The media type of the entry, for example "image" or "video".
+     */
+    public ApodEntry(String date, String url, String hdUrl, String title, String explanation, String mediaType) {
+        this(date, url, hdUrl, title, explanation, mediaType, null, null);
+    }
+
+    /**
+     * Constructs a new ApodEntry with the thumbnail of a video entry.
+     *
+     * @param date         The date of the entry in the format "yyyy-MM-dd".
+     * @param url          The URL of the image (or embedded media) for the entry.
+     * @param hdUrl        The URL of the high-definition image, or null if not provided.
+     * @param title        The title of the entry.
+     * @param explanation  The explanation text of the entry.
+     * @param mediaType    The media type of the entry, for example "image" or "video".
+     * @param thumbnailUrl The URL of the thumbnail of a video entry, or null if not provided.
+     */
+    public ApodEntry(String date, String url, String hdUrl, String title, String explanation, String mediaType, String thumbnailUrl) {
+        this(date, url, hdUrl, title, explanation, mediaType, thumbnailUrl, null);
+    }
+
+    /**
+     * Constructs a new ApodEntry with the thumbnail of a video entry and the copyright credit.
+     *
+     * @param date         The date of the entry in the format "yyyy-MM-dd".
+     * @param url          The URL of the image (or embedded media) for the entry.
+     * @param hdUrl        The URL of the high-definition image, or null if not provided.
+     * @param title        The title of the entry.
+     * @param explanation  The explanation text of the entry.
+     * @param mediaType    The media type of the entry, for example "image" or "video".
+     * @param thumbnailUrl The URL of the thumbnail of a video entry, or null if not provided.
+     * @param copyright    The copyright credit of the entry, or null if it is in the public domain.
+     */
+    public ApodEntry(String date, String url, String hdUrl, String title, String explanation, String mediaType,
+                     String thumbnailUrl, String copyright) {
+        this.date = date;
+        this.url = url;
+        this.hdUrl = hdUrl;
+        this.title = title;
+        this.explanation = explanation;
+        this.mediaType = mediaType;
+        this.thumbnailUrl = thumbnailUrl;
+        this.copyright = copyright;
+    }
+
+    /**
+     * Returns the date of the entry.
+     *
+     * @return The date of the entry in the format "yyyy-MM-dd".
+     */
+    public String getDate() {
+        return date;
+    }
+
+    /**
+     * Returns the URL of the image (or embedded media) for the entry.
+     *
+     * @return The URL of the entry.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the URL of the high-definition image.
+     *
+     * @return The high-definition URL, or null if not provided.
+     */
+    public String getHdUrl() {
+        return hdUrl;
+    }
+
+    /**
+     * Returns the title of the entry.
+     *
+     * @return The title of the entry.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns the explanation text of the entry.
+     *
+     * @return The explanation text of the entry.
+     */
+    public String getExplanation() {
+        return explanation;
+    }
+
+    /**
+     * Returns the media type of the entry.
+     *
+     * @return The media type of the entry, for example "image" or "video".
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Returns the URL of the thumbnail of a video entry.
+     *
+     * @return The thumbnail URL, or null if not provided.
+     */
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    /**
+     * Returns the copyright credit of the entry.
+     *
+     * @return The copyright credit, or null if the entry is in the public domain.
+     */
+    public String getCopyright() {
+        return copyright;
+    }
+
+    /**
+     * Returns the URL of the still image that represents the entry: the image itself for image
+     * entries, and the thumbnail for videos and other media.
+     *
+     * @return The URL of the still image, or null if the entry has none.
+     */
+    public String getPreviewUrl() {
+        return previewUrl(mediaType, url, thumbnailUrl);
+    }
+
+    /**
+     * Returns the URL of the still image that represents an entry with the given media type. Entries
+     * without a media type were stored before it was recorded and are assumed to be images.
+     *
+     * @param mediaType    The media type of the entry, or null if unknown.
+     * @param url          The URL of the entry.
+     * @param thumbnailUrl The URL of the thumbnail of the entry, or null.
+     * @return The URL of the still image, or null if the entry has none.
+     */
+    static String previewUrl(String mediaType, String url, String thumbnailUrl) {
+        return mediaType == null || MEDIA_TYPE_IMAGE.equals(mediaType) ? url : thumbnailUrl;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.nasaimagepicker;
+
+import java.io.IOException;
+
+/**
+ * ApodHttpException is thrown by {@link ApodClient} when the APOD API answers with a
+ * non-successful HTTP status code, so callers can tell a server error apart from "no image".
+ */
+public class ApodHttpException extends IOException {
+
+    private final int statusCode;
+    private final long retryAfterMs;
+
+    /**
+     * Constructs a new ApodHttpException.
+     *
+     * @param statusCode The HTTP status code returned by the server.
+     * @param message    A message describing the failed request.
+     */
+    public ApodHttpException(int statusCode, String message) {
+        this(statusCode, message, -1);
+    }
+
+    /**
+     * Constructs a new ApodHttpException for a response that may carry a Retry-After header.
+     *
+     * @param statusCode   The HTTP status code returned by the server.
+     * @param message      A message describing the failed request.
+     * @param retryAfterMs The delay requested by the server before the next attempt, or -1 if none was given.
+     */
+    public ApodHttpException(int statusCode, String message, long retryAfterMs) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * Returns the HTTP status code returned by the server.
+     *
+     * @return The HTTP status code.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Returns the delay the server asked for with a Retry-After header.
+     *
+     * @return The delay in milliseconds, or -1 if the server did not ask for one.
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+    /**
+     * Returns whether the status code describes a transient condition, such as throttling or an
+     * overloaded server, after which the same request may succeed.
+     *
+     * @return true if the request may be retried, false otherwise.
+     */
+    public boolean isRetryable() {
+        switch (statusCode) {
+            case 408:
+            case 429:
+            case 500:
+            case 502:
+            case 503:
+            case 504:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.nasaimagepicker;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ApodJsonParser decodes APOD API responses into {@link ApodEntry} objects with a streaming
+ * JsonReader, straight from the response stream. No intermediate String or JSON tree is built:
+ * only the fields the app keeps are materialized and everything else is skipped, and newlines
+ * inside the explanation are preserved. Entries of a range without a url, which the API returns
+ * for some days, are skipped so that they do not fail the whole range.
+ */
+public final class ApodJsonParser {
+
+    private ApodJsonParser() {
+    }
+
+    /**
+     * Decodes a complete response, which is either a single entry object, as returned for a date
+     * request, or an array of entries, as returned for a start_date/end_date or count request.
+     *
+     * @param reader The reader of the response body.
+     * @return The decoded entries, in the order of the response.
+     * @throws IOException If the response cannot be read or is malformed.
+     */
+    public static List<ApodEntry> parse(Reader reader) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        try {
+            return readResponse(jsonReader);
+        } catch (IllegalStateException e) {
+            throw new IOException("Malformed APOD response", e);
+        }
+    }
+
+    /**
+     * Decodes a response that is either a single entry object or an array of entries.
+     *
+     * @param reader The reader positioned at the start of the response.
+     * @return The decoded entries, in the order of the response.
+     * @throws IOException If the JSON cannot be read or a single entry has no url.
+     */
+    static List<ApodEntry> readResponse(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            return readEntries(reader);
+        }
+        ApodEntry entry = readEntry(reader);
+        if (entry == null) {
+            throw new IOException("APOD response has no url");
+        }
+        return Collections.singletonList(entry);
+    }
+
+    /**
+     * Decodes an array of APOD entries as returned for a start_date/end_date request.
+     *
+     * @param reader The reader positioned at the start of the array.
+     * @return The decoded entries, without the entries that have no url.
+     * @throws IOException If the JSON cannot be read.
+     */
+    static List<ApodEntry> readEntries(JsonReader reader) throws IOException {
+        List<ApodEntry> entries = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            ApodEntry entry = readEntry(reader);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        reader.endArray();
+        return entries;
+    }
+
+    /**
+     * Decodes a single APOD entry object, skipping any fields the app does not use.
+     *
+     * @param reader The reader positioned at the start of the entry object.
+     * @return The decoded entry, or null if the entry has no url.
+     * @throws IOException If the JSON cannot be read.
+     */
+    static ApodEntry readEntry(JsonReader reader) throws IOException {
+        String date = null;
+        String url = null;
+        String hdUrl = null;
+        String title = null;
+        String explanation = null;
+        String mediaType = null;
+        String thumbnailUrl = null;
+        String copyright = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "date":
+                    date = reader.nextString();
+                    break;
+                case "url":
+                    url = reader.nextString();
+                    break;
+                case "hdurl":
+                    hdUrl = reader.nextString();
+                    break;
+                case "title":
+                    title = reader.nextString();
+                    break;
+                case "explanation":
+                    explanation = reader.nextString();
+                    break;
+                case "media_type":
+                    mediaType = reader.nextString();
+                    break;
+                case "thumbnail_url":
+                    thumbnailUrl = reader.nextString();
+                    break;
+                case "copyright":
+                    // The API often wraps the credit in line breaks
+                    copyright = reader.nextString().trim();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (url == null) {
+            return null;
+        }
+        return new ApodEntry(date, url, hdUrl, title, explanation, mediaType, thumbnailUrl, copyright);
+    }
+}
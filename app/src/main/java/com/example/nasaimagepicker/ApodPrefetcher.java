@@ -0,0 +1,277 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApodPrefetcher warms the caches around the date the user is looking at. Once a date has resolved,
+ * it loads the metadata of the previous and next {@link #PREFETCH_DAYS} days into the metadata cache
+ * with a single range request, and then downloads their images into the thumbnail disk cache, nearest
+ * days first, so that stepping to an adjacent day needs no network access. The work runs on a
+ * background-priority thread, counts every request against a data budget, and is cancelled as soon as
+ * the user jumps to another date.
+ */
+public class ApodPrefetcher {
+
+    private static final String TAG = "ApodPrefetcher";
+
+    /**
+     * The number of days before and after the current date that are prefetched.
+     */
+    static final int PREFETCH_DAYS = 3;
+
+    /**
+     * The maximum number of network requests the prefetcher may make per {@link #BUDGET_WINDOW_MS}.
+     */
+    static final int REQUEST_BUDGET = 30;
+
+    /**
+     * The length of the window over which the request budget applies.
+     */
+    static final long BUDGET_WINDOW_MS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * The size prefetched images are decoded to while they are written to the disk cache.
+     */
+    static final int THUMBNAIL_SIZE_PX = 256;
+
+    private static ApodPrefetcher instance;
+
+    private final ApodClient apodClient;
+    private final ApodCacheDatabaseHelper cache;
+    private final ThumbnailPrefetcher thumbnails;
+    private final ExecutorService executor;
+    private final int days;
+    private final int requestBudget;
+    private final long budgetWindowMs;
+
+    private Cancellable pendingPrefetch;
+    private long budgetWindowStart;
+    private int requestsInWindow;
+
+    /**
+     * Returns the shared ApodPrefetcher, creating it on first use. Images are only prefetched on
+     * unmetered networks; metadata is small enough to be prefetched on any network.
+     *
+     * @param context The context used to open the caches.
+     * @return The shared ApodPrefetcher instance.
+     */
+    public static synchronized ApodPrefetcher getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            ConnectivityManager connectivityManager = appContext.getSystemService(ConnectivityManager.class);
+            ThumbnailLoader thumbnailLoader = ThumbnailLoader.getInstance(appContext);
+            Object tag = new Object();
+            ThumbnailPrefetcher thumbnails = new ThumbnailPrefetcher() {
+                @Override
+                public boolean isAllowed() {
+                    return !connectivityManager.isActiveNetworkMetered();
+                }
+
+                @Override
+                public void prefetch(String url) {
+                    thumbnailLoader.prefetch(url, THUMBNAIL_SIZE_PX, tag);
+                }
+
+                @Override
+                public void cancel() {
+                    thumbnailLoader.cancelTag(tag);
+                }
+            };
+            ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, TAG));
+            instance = new ApodPrefetcher(ApodClient.getInstance(), ApodCacheDatabaseHelper.getInstance(appContext),
+                    thumbnails, executor, PREFETCH_DAYS, REQUEST_BUDGET, BUDGET_WINDOW_MS);
+        }
+        return instance;
+    }
+
+    /**
+     * Constructs a new ApodPrefetcher.
+     *
+     * @param apodClient     The client used to fetch the metadata of the adjacent days.
+     * @param cache          The metadata cache that receives the fetched entries.
+     * @param thumbnails     The prefetcher that downloads images into the thumbnail disk cache.
+     * @param executor       The executor on which prefetching runs.
+     * @param days           The number of days before and after the current date to prefetch.
+     * @param requestBudget  The maximum number of network requests per budget window.
+     * @param budgetWindowMs The length of the budget window.
+     */
+    ApodPrefetcher(ApodClient apodClient, ApodCacheDatabaseHelper cache, ThumbnailPrefetcher thumbnails,
+                   ExecutorService executor, int days, int requestBudget, long budgetWindowMs) {
+        this.apodClient = apodClient;
+        this.cache = cache;
+        this.thumbnails = thumbnails;
+        this.executor = executor;
+        this.days = days;
+        this.requestBudget = requestBudget;
+        this.budgetWindowMs = budgetWindowMs;
+    }
+
+    /**
+     * Starts prefetching the days around the given date, cancelling any prefetch around another date.
+     * Must be called on the main thread.
+     *
+     * @param date The date the user is looking at.
+     * @return A handle that cancels the prefetch.
+     */
+    public synchronized Cancellable prefetchAround(String date) {
+        cancel();
+        String center = ApodDates.normalize(date);
+        Cancellable cancellable = new Cancellable();
+        cancellable.setFuture(executor.submit(() -> prefetch(center, cancellable)));
+        pendingPrefetch = cancellable;
+        return cancellable;
+    }
+
+    /**
+     * Cancels the current prefetch, including any image downloads it has queued. Must be called on the
+     * main thread.
+     */
+    public synchronized void cancel() {
+        if (pendingPrefetch != null) {
+            pendingPrefetch.cancel();
+            pendingPrefetch = null;
+            thumbnails.cancel();
+        }
+    }
+
+    /**
+     * Prefetches the metadata and images of the days around a date. Runs on the prefetch executor.
+     *
+     * @param center      The date the user is looking at.
+     * @param cancellable The handle of this prefetch.
+     */
+    private void prefetch(String center, Cancellable cancellable) {
+        String first = ApodDates.addDays(center, -days);
+        if (first.compareTo(ApodDates.FIRST_DATE) < 0) {
+            first = ApodDates.FIRST_DATE;
+        }
+        String last = ApodDates.addDays(center, days);
+        String today = ApodDates.today();
+        if (last.compareTo(today) > 0) {
+            last = today;
+        }
+
+        Map<String, ApodEntry> entries = new HashMap<>();
+        for (ApodEntry entry : cache.getEntriesBetween(first, last)) {
+            entries.put(ApodDates.normalize(entry.getDate()), entry);
+        }
+
+        // Fetch every missing day with one range request spanning the first and last of them
+        String firstMissing = null;
+        String lastMissing = null;
+        for (String day = first; day.compareTo(last) <= 0; day = ApodDates.addDays(day, 1)) {
+            if (!day.equals(center) && !entries.containsKey(day)) {
+                if (firstMissing == null) {
+                    firstMissing = day;
+                }
+                lastMissing = day;
+            }
+        }
+        if (firstMissing != null) {
+            if (cancellable.isCancelled() || !acquireRequest()) {
+                return;
+            }
+            try {
+                List<ApodEntry> fetched = apodClient.fetchRangeEntries(firstMissing, lastMissing);
+                cache.putEntries(fetched);
+                for (ApodEntry entry : fetched) {
+                    entries.put(ApodDates.normalize(entry.getDate()), entry);
+                }
+                Log.d(TAG, "Prefetched " + fetched.size() + " entries around " + center);
+            } catch (IOException e) {
+                Log.w(TAG, "Could not prefetch entries around " + center, e);
+            }
+        }
+
+        if (!thumbnails.isAllowed()) {
+            return;
+        }
+        for (String day : nearestFirst(center)) {
+            ApodEntry entry = entries.get(day);
+            if (cancellable.isCancelled()) {
+                return;
+            }
+            String previewUrl = entry != null ? entry.getPreviewUrl() : null;
+            if (previewUrl == null) {
+                continue;
+            }
+            if (!acquireRequest()) {
+                Log.d(TAG, "Request budget exhausted, not prefetching more images");
+                return;
+            }
+            thumbnails.prefetch(previewUrl);
+        }
+    }
+
+    /**
+     * Returns the days around a date ordered by their distance from it, the day before first.
+     *
+     * @param center The date the user is looking at.
+     * @return The adjacent days, nearest first.
+     */
+    private List<String> nearestFirst(String center) {
+        List<String> result = new ArrayList<>(days * 2);
+        for (int distance = 1; distance <= days; distance++) {
+            result.add(ApodDates.addDays(center, -distance));
+            result.add(ApodDates.addDays(center, distance));
+        }
+        return result;
+    }
+
+    /**
+     * Takes one request from the budget, starting a new budget window if the current one has ended.
+     *
+     * @return true if the request may be made, false if the budget of the current window is spent.
+     */
+    private synchronized boolean acquireRequest() {
+        long now = System.currentTimeMillis();
+        if (now - budgetWindowStart >= budgetWindowMs) {
+            budgetWindowStart = now;
+            requestsInWindow = 0;
+        }
+        if (requestsInWindow >= requestBudget) {
+            return false;
+        }
+        requestsInWindow++;
+        return true;
+    }
+
+    /**
+     * ThumbnailPrefetcher downloads images into the thumbnail disk cache on behalf of the prefetcher.
+     */
+    interface ThumbnailPrefetcher {
+        /**
+         * Returns whether images may be prefetched on the current network.
+         *
+         * @return true if images may be prefetched, false otherwise.
+         */
+        boolean isAllowed();
+
+        /**
+         * Queues the download of an image at low priority.
+         *
+         * @param url The URL of the image.
+         */
+        void prefetch(String url);
+
+        /**
+         * Cancels all queued image downloads.
+         */
+        void cancel();
+    }
+}
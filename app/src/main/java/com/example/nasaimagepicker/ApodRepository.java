@@ -0,0 +1,319 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * ApodRepository is the single entry point for loading APOD entries. It serves entries from the
+ * on-disk metadata cache when possible and only falls back to the network on a cache miss, storing
+ * every fetched entry so the next lookup for the same date needs no network at all. Concurrent loads
+ * of the same uncached date share a single network request, and if that request fails, for example
+ * because the API is throttling the app, an expired cached entry is served instead of the error.
+ * Today's entry expires quickly, but one fetched earlier the same day, typically by
+ * {@link ApodSyncWorker}, is served at once while a fresh copy is fetched into the cache behind it.
+ */
+public class ApodRepository {
+
+    private static final String TAG = "ApodRepository";
+
+    /**
+     * The callback of a background refresh, which only needs the fetched entry to reach the cache.
+     */
+    private static final ApodClient.Callback REVALIDATE_CALLBACK = new ApodClient.Callback() {
+        @Override
+        public void onSuccess(ApodEntry entry) {
+        }
+
+        @Override
+        public void onError(Exception e) {
+            Log.d(TAG, "Could not refresh today's entry: " + e);
+        }
+    };
+
+    private static ApodRepository instance;
+
+    private final ApodClient apodClient;
+    private final ApodCacheDatabaseHelper cache;
+    private final Executor diskExecutor;
+    private final Executor mainExecutor;
+
+    /**
+     * The network fetches in flight by date, each shared by all the loads waiting for that date.
+     * Guarded by itself.
+     */
+    private final Map<String, SharedFetch> inFlight = new HashMap<>();
+
+    /**
+     * Returns the shared ApodRepository, creating it on first use.
+     *
+     * @param context The context used to open the metadata cache.
+     * @return The shared ApodRepository instance.
+     */
+    public static synchronized ApodRepository getInstance(Context context) {
+        if (instance == null) {
+            AppExecutors executors = AppExecutors.getInstance();
+            instance = new ApodRepository(ApodClient.getInstance(), ApodCacheDatabaseHelper.getInstance(context),
+                    executors.diskIO(), executors.mainThread());
+        }
+        return instance;
+    }
+
+    /**
+     * Constructs a new ApodRepository.
+     *
+     * @param apodClient   The client used to fetch entries that are not cached.
+     * @param cache        The on-disk metadata cache.
+     * @param diskExecutor The executor used for cache access.
+     * @param mainExecutor The executor on which callbacks are delivered.
+     */
+    public ApodRepository(ApodClient apodClient, ApodCacheDatabaseHelper cache, Executor diskExecutor, Executor mainExecutor) {
+        this.apodClient = apodClient;
+        this.cache = cache;
+        this.diskExecutor = diskExecutor;
+        this.mainExecutor = mainExecutor;
+    }
+
+    /**
+     * Loads the entry for the given date, from the cache if possible and from the network otherwise.
+     * Today's entry is served from the cache if it was fetched earlier today, and refreshed in the background.
+     * If a network fetch for the same date is already in flight, the load waits for it instead of
+     * starting another one. The callback is invoked on the main thread, unless the load is cancelled first.
+     *
+     * @param date     The date of the entry to load.
+     * @param callback The callback that receives the entry or the error.
+     * @return A handle that cancels the load and suppresses the callback.
+     */
+    public Cancellable load(String date, ApodClient.Callback callback) {
+        String key = ApodDates.normalize(date);
+        Cancellable cancellable = new Cancellable();
+        diskExecutor.execute(() -> {
+            if (cancellable.isCancelled()) {
+                return;
+            }
+            ApodEntry cached = cache.getEntry(key);
+            Log.d(TAG, "Cache " + (cached != null ? "hit" : "miss") + " for " + key
+                    + " (hits=" + cache.getHitCount() + ", misses=" + cache.getMissCount() + ")");
+            boolean revalidate = false;
+            if (cached == null && ApodDates.isToday(key)) {
+                // Today's entry synced in the background earlier today is shown at once and refreshed behind it
+                cached = cache.getEntryFetchedSince(key, ApodDates.startOfDay(key));
+                revalidate = cached != null;
+            }
+            if (cached != null) {
+                ApodEntry entry = cached;
+                mainExecutor.execute(() -> {
+                    if (!cancellable.isCancelled()) {
+                        callback.onSuccess(entry);
+                    }
+                });
+                if (revalidate) {
+                    joinFetch(key, new Cancellable(), REVALIDATE_CALLBACK);
+                }
+                return;
+            }
+
+            joinFetch(key, cancellable, callback);
+        });
+        return cancellable;
+    }
+
+    /**
+     * Waits for the in-flight fetch of a date, starting it if there is none. Cancelling the load only
+     * detaches its callback; the fetch itself is cancelled once no load is waiting for it any more.
+     *
+     * @param key         The normalized date.
+     * @param cancellable The handle of the load.
+     * @param callback    The callback of the load.
+     */
+    private void joinFetch(String key, Cancellable cancellable, ApodClient.Callback callback) {
+        Waiter waiter = new Waiter(cancellable, callback);
+        SharedFetch fetch;
+        boolean start;
+        synchronized (inFlight) {
+            fetch = inFlight.get(key);
+            start = fetch == null;
+            if (start) {
+                fetch = new SharedFetch();
+                inFlight.put(key, fetch);
+            }
+            fetch.waiters.add(waiter);
+        }
+        SharedFetch joined = fetch;
+        cancellable.setCancelAction(() -> leaveFetch(key, joined, waiter));
+        if (!start) {
+            Log.d(TAG, "Joined in-flight fetch for " + key);
+            return;
+        }
+
+        Future<?> future = apodClient.fetch(key, new ApodClient.Callback() {
+            @Override
+            public void onSuccess(ApodEntry entry) {
+                diskExecutor.execute(() -> cache.putEntry(entry));
+                for (Waiter w : completeFetch(key, joined)) {
+                    if (!w.cancellable.isCancelled()) {
+                        w.callback.onSuccess(entry);
+                    }
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                // While the API is throttled or unreachable, an expired entry is better than none
+                diskExecutor.execute(() -> {
+                    ApodEntry stale = cache.getStaleEntry(key);
+                    if (stale != null) {
+                        Log.d(TAG, "Serving stale entry for " + key + " after " + e);
+                    }
+                    mainExecutor.execute(() -> {
+                        for (Waiter w : completeFetch(key, joined)) {
+                            if (w.cancellable.isCancelled()) {
+                                continue;
+                            }
+                            if (stale != null) {
+                                w.callback.onSuccess(stale);
+                            } else {
+                                w.callback.onError(e);
+                            }
+                        }
+                    });
+                });
+            }
+        });
+        synchronized (inFlight) {
+            if (joined.waiters.isEmpty() && inFlight.get(key) != joined) {
+                // Every load gave up before the request was even started
+                future.cancel(true);
+            } else {
+                joined.future = future;
+            }
+        }
+    }
+
+    /**
+     * Detaches a cancelled load from a fetch, and cancels the fetch if no other load is waiting for it.
+     *
+     * @param key    The normalized date.
+     * @param fetch  The fetch the load was waiting for.
+     * @param waiter The cancelled load.
+     */
+    private void leaveFetch(String key, SharedFetch fetch, Waiter waiter) {
+        synchronized (inFlight) {
+            if (inFlight.get(key) != fetch || !fetch.waiters.remove(waiter) || !fetch.waiters.isEmpty()) {
+                return;
+            }
+            inFlight.remove(key);
+            if (fetch.future != null) {
+                fetch.future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Removes a finished fetch from the in-flight map and returns the loads that were waiting for it,
+     * so that a later load of the same date starts from the cache again.
+     *
+     * @param key   The normalized date.
+     * @param fetch The finished fetch.
+     * @return The loads waiting for the fetch.
+     */
+    private List<Waiter> completeFetch(String key, SharedFetch fetch) {
+        synchronized (inFlight) {
+            if (inFlight.get(key) == fetch) {
+                inFlight.remove(key);
+            }
+            List<Waiter> waiters = new ArrayList<>(fetch.waiters);
+            fetch.waiters.clear();
+            return waiters;
+        }
+    }
+
+    /**
+     * Loads the entries between two dates that are already in the metadata cache, without any network
+     * access. Days that are not cached are simply missing from the result. The callback is invoked on
+     * the main thread, unless the load is cancelled first.
+     *
+     * @param startDate The first date of the range, inclusive.
+     * @param endDate   The last date of the range, inclusive.
+     * @param callback  The callback that receives the cached entries.
+     * @return A handle that cancels the load and suppresses the callback.
+     */
+    public Cancellable loadCached(String startDate, String endDate, ApodClient.RangeCallback callback) {
+        Cancellable cancellable = new Cancellable();
+        diskExecutor.execute(() -> {
+            if (cancellable.isCancelled()) {
+                return;
+            }
+            List<ApodEntry> entries = cache.getEntriesBetween(startDate, endDate);
+            mainExecutor.execute(() -> {
+                if (!cancellable.isCancelled()) {
+                    callback.onSuccess(entries);
+                }
+            });
+        });
+        return cancellable;
+    }
+
+    /**
+     * Loads all entries between two dates with start_date/end_date requests and stores them in the
+     * metadata cache in a single transaction. The callback is invoked on the main thread once the
+     * entries have been stored, unless the load is cancelled first.
+     *
+     * @param startDate The first date of the range, inclusive.
+     * @param endDate   The last date of the range, inclusive.
+     * @param callback  The callback that receives the entries or the error.
+     * @return A handle that cancels the load and suppresses the callback.
+     */
+    public Cancellable loadRange(String startDate, String endDate, ApodClient.RangeCallback callback) {
+        Cancellable cancellable = new Cancellable();
+        cancellable.setFuture(apodClient.fetchRange(startDate, endDate, new ApodClient.RangeCallback() {
+            @Override
+            public void onSuccess(List<ApodEntry> entries) {
+                diskExecutor.execute(() -> {
+                    int stored = cache.putEntries(entries);
+                    Log.d(TAG, "Stored " + stored + " entries for " + startDate + ".." + endDate);
+                    mainExecutor.execute(() -> {
+                        if (!cancellable.isCancelled()) {
+                            callback.onSuccess(entries);
+                        }
+                    });
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (!cancellable.isCancelled()) {
+                    callback.onError(e);
+                }
+            }
+        }));
+        return cancellable;
+    }
+
+    /**
+     * A network fetch of one date shared by several loads.
+     */
+    private static final class SharedFetch {
+        final List<Waiter> waiters = new ArrayList<>();
+        Future<?> future;
+    }
+
+    /**
+     * A load waiting for a shared fetch.
+     */
+    private static final class Waiter {
+        final Cancellable cancellable;
+        final ApodClient.Callback callback;
+
+        Waiter(Cancellable cancellable, ApodClient.Callback callback) {
+            this.cancellable = cancellable;
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApodSyncWorker keeps the metadata cache up to date in the background, so that opening the app shows
+ * the latest entry without waiting for the network. It runs periodically while the device is charging
+ * on an unmetered network, fetches the days missing since the last sync with a single range request
+ * and today's entry with another, stores them in one transaction, and downloads their images into the
+ * thumbnail disk cache one at a time before it finishes. Today's entry is left for the next run if it
+ * has not been published yet.
+ */
+public class ApodSyncWorker extends Worker {
+
+    private static final String TAG = "ApodSyncWorker";
+
+    /**
+     * The name under which the periodic sync is enqueued, so that it is only scheduled once.
+     */
+    static final String UNIQUE_WORK_NAME = "apod_sync";
+
+    /**
+     * The interval between syncs.
+     */
+    static final long SYNC_INTERVAL_HOURS = 12;
+
+    /**
+     * The initial delay before a failed sync is retried, doubled after every further failure.
+     */
+    static final long BACKOFF_DELAY_MINUTES = 30;
+
+    /**
+     * The number of runs after which a failing sync gives up until its next period.
+     */
+    static final int MAX_RUN_ATTEMPTS = 3;
+
+    /**
+     * The maximum number of days before today that are backfilled, however long ago the last sync was.
+     */
+    static final int MAX_BACKFILL_DAYS = 30;
+
+    /**
+     * The name of the preferences that hold the sync state.
+     */
+    static final String PREFS_NAME = "apod_sync";
+
+    /**
+     * The preference key of the latest date up to which every entry has been synced.
+     */
+    static final String KEY_LAST_SYNCED_DATE = "last_synced_date";
+
+    private final ApodClient apodClient;
+    private final ApodCacheDatabaseHelper cache;
+    private final ThumbnailDownloader thumbnails;
+    private final SharedPreferences preferences;
+
+    /**
+     * Constructs a new ApodSyncWorker with the shared client and caches. Called by WorkManager.
+     *
+     * @param context The application context.
+     * @param params  The parameters of this run.
+     */
+    public ApodSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        this(context, params, ApodClient.getInstance(), ApodCacheDatabaseHelper.getInstance(context),
+                newThumbnailDownloader(context), context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+    }
+
+    /**
+     * Constructs a new ApodSyncWorker.
+     *
+     * @param context     The application context.
+     * @param params      The parameters of this run.
+     * @param apodClient  The client used to fetch the missing entries.
+     * @param cache       The metadata cache that receives the fetched entries.
+     * @param thumbnails  The downloader that stores images in the thumbnail disk cache.
+     * @param preferences The preferences that hold the sync state.
+     */
+    ApodSyncWorker(@NonNull Context context, @NonNull WorkerParameters params, ApodClient apodClient,
+                   ApodCacheDatabaseHelper cache, ThumbnailDownloader thumbnails,
+                   SharedPreferences preferences) {
+        super(context, params);
+        this.apodClient = apodClient;
+        this.cache = cache;
+        this.thumbnails = thumbnails;
+        this.preferences = preferences;
+    }
+
+    /**
+     * Schedules the periodic sync unless it is already scheduled.
+     *
+     * @param context The context used to obtain the WorkManager.
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresCharging(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(ApodSyncWorker.class, SYNC_INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_DELAY_MINUTES, TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Creates the downloader that stores the images of synced entries with the shared ThumbnailLoader.
+     * The constraints of the work already restrict it to unmetered networks.
+     *
+     * @param context The context used to obtain the ThumbnailLoader.
+     * @return The thumbnail downloader.
+     */
+    private static ThumbnailDownloader newThumbnailDownloader(Context context) {
+        ThumbnailLoader thumbnailLoader = ThumbnailLoader.getInstance(context);
+        return url -> thumbnailLoader.prefetchNow(url, ApodPrefetcher.THUMBNAIL_SIZE_PX);
+    }
+
+    /**
+     * Fetches the entries missing since the last sync into the metadata cache and their images into the
+     * thumbnail cache. Runs on a WorkManager background thread.
+     *
+     * @return success once every published entry is cached, or retry if a request failed.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        String today = ApodDates.today();
+        String yesterday = ApodDates.addDays(today, -1);
+        String first = ApodDates.addDays(today, -MAX_BACKFILL_DAYS);
+        String lastSynced = preferences.getString(KEY_LAST_SYNCED_DATE, null);
+        if (lastSynced != null && lastSynced.compareTo(first) > 0) {
+            first = lastSynced;
+        }
+
+        Set<String> cachedDates = new HashSet<>();
+        for (ApodEntry entry : cache.getEntriesBetween(first, today)) {
+            cachedDates.add(ApodDates.normalize(entry.getDate()));
+        }
+
+        // Fetch every missing day before today with one range request spanning the first and last of them
+        String firstMissing = null;
+        String lastMissing = null;
+        for (String day = first; day.compareTo(yesterday) <= 0; day = ApodDates.addDays(day, 1)) {
+            if (!cachedDates.contains(day)) {
+                if (firstMissing == null) {
+                    firstMissing = day;
+                }
+                lastMissing = day;
+            }
+        }
+
+        List<ApodEntry> fetched = new ArrayList<>();
+        String synced = lastSynced;
+        try {
+            if (firstMissing != null) {
+                fetched.addAll(apodClient.fetchRangeEntries(firstMissing, lastMissing));
+            }
+            synced = yesterday;
+            if (cachedDates.contains(today)) {
+                synced = today;
+            } else if (!isStopped()) {
+                try {
+                    fetched.add(apodClient.fetchEntry(today));
+                    synced = today;
+                } catch (ApodHttpException e) {
+                    if (e.isRetryable()) {
+                        throw e;
+                    }
+                    // The API rejects today's date until the entry has been published
+                    Log.d(TAG, "Today's entry is not available yet: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not sync entries since " + first, e);
+            store(fetched, synced);
+            return getRunAttemptCount() + 1 < MAX_RUN_ATTEMPTS ? Result.retry() : Result.failure();
+        }
+        store(fetched, synced);
+
+        // Download the images of the newest entries first, so the most likely to be opened are ready soonest.
+        // They are downloaded while the work runs, and no further one is started once it is stopped, for
+        // example because the device was unplugged or left the unmetered network.
+        for (int i = fetched.size() - 1; i >= 0 && !isStopped(); i--) {
+            String previewUrl = fetched.get(i).getPreviewUrl();
+            if (previewUrl != null) {
+                try {
+                    thumbnails.download(previewUrl);
+                } catch (IOException e) {
+                    // The entry is cached; its image is downloaded when it is first shown instead
+                    Log.w(TAG, "Could not download " + previewUrl, e);
+                }
+            }
+        }
+        Log.i(TAG, "Synced " + fetched.size() + " entries up to " + synced);
+        return Result.success();
+    }
+
+    /**
+     * Stores the fetched entries in one transaction and records the date up to which the cache is complete.
+     *
+     * @param fetched The fetched entries.
+     * @param synced  The latest date up to which every entry is cached, or null if unknown.
+     */
+    private void store(List<ApodEntry> fetched, String synced) {
+        if (!fetched.isEmpty()) {
+            cache.putEntries(fetched);
+        }
+        if (synced != null) {
+            preferences.edit().putString(KEY_LAST_SYNCED_DATE, synced).apply();
+        }
+    }
+
+    /**
+     * ThumbnailDownloader stores images in the thumbnail disk cache on behalf of the sync.
+     */
+    interface ThumbnailDownloader {
+        /**
+         * Downloads an image into the thumbnail disk cache and returns once it is stored.
+         *
+         * @param url The URL of the image.
+         * @throws IOException If the image cannot be downloaded.
+         */
+        void download(String url) throws IOException;
+    }
+}
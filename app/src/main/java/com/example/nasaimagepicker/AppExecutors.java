@@ -0,0 +1,146 @@
+package com.example.nasaimagepicker;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * AppExecutors holds the app-wide executors used to move work off the main thread.
+ * Disk work runs on a single background thread so database access is serialized,
+ * and results are posted back through the main thread executor.
+ */
+public class AppExecutors {
+
+    private static final String TAG = "AppExecutors";
+
+    private static AppExecutors instance;
+
+    private final ExecutorService diskIO;
+    private final Executor mainThread;
+
+    /**
+     * Returns the shared AppExecutors instance, creating it on first use.
+     *
+     * @return The shared AppExecutors instance.
+     */
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            instance = new AppExecutors(Executors.newSingleThreadExecutor(), mainHandler::post);
+        }
+        return instance;
+    }
+
+    /**
+     * Constructs a new AppExecutors.
+     *
+     * @param diskIO     The executor used for database and file access.
+     * @param mainThread The executor that runs tasks on the main thread.
+     */
+    public AppExecutors(ExecutorService diskIO, Executor mainThread) {
+        this.diskIO = diskIO;
+        this.mainThread = mainThread;
+    }
+
+    /**
+     * Returns the executor used for database and file access.
+     *
+     * @return The disk executor.
+     */
+    public ExecutorService diskIO() {
+        return diskIO;
+    }
+
+    /**
+     * Returns the executor that runs tasks on the main thread.
+     *
+     * @return The main thread executor.
+     */
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Runs a task on the disk executor and delivers its result on the main thread. A task that fails
+     * is only logged, and its callback is not called.
+     *
+     * @param task     The task to run in the background.
+     * @param callback The callback that receives the result on the main thread.
+     * @param <T>      The type of the result.
+     * @return A Future that can be used to cancel the task before it runs.
+     */
+    public <T> Future<?> runOnDiskIO(DiskTask<T> task, ResultCallback<T> callback) {
+        return runOnDiskIO(task, callback, e -> { });
+    }
+
+    /**
+     * Runs a task on the disk executor and delivers its result, or the exception it failed with, on
+     * the main thread. Every failure reaches a callback, since nobody reads the returned Future and a
+     * caller waiting for the result, such as a list loading its next page, would otherwise wait forever.
+     *
+     * @param task     The task to run in the background.
+     * @param callback The callback that receives the result on the main thread.
+     * @param onError  The callback that receives the failure on the main thread.
+     * @param <T>      The type of the result.
+     * @return A Future that can be used to cancel the task before it runs.
+     */
+    public <T> Future<?> runOnDiskIO(DiskTask<T> task, ResultCallback<T> callback, ErrorCallback onError) {
+        return diskIO.submit(() -> {
+            T result;
+            try {
+                result = task.run();
+            } catch (RuntimeException e) {
+                // SQLiteException and its subclasses, such as a full disk or a locked database
+                Log.e(TAG, "Disk task failed", e);
+                mainThread.execute(() -> onError.onError(e));
+                return;
+            }
+            mainThread.execute(() -> callback.onResult(result));
+        });
+    }
+
+    /**
+     * A unit of database or file work that produces a result.
+     *
+     * @param <T> The type of the result.
+     */
+    public interface DiskTask<T> {
+        /**
+         * Performs the work on the disk executor.
+         *
+         * @return The result of the work.
+         */
+        T run();
+    }
+
+    /**
+     * Receives the result of a {@link DiskTask} on the main thread.
+     *
+     * @param <T> The type of the result.
+     */
+    public interface ResultCallback<T> {
+        /**
+         * Called on the main thread with the result of the task.
+         *
+         * @param result The result of the task.
+         */
+        void onResult(T result);
+    }
+
+    /**
+     * Receives the failure of a {@link DiskTask} on the main thread.
+     */
+    public interface ErrorCallback {
+        /**
+         * Called on the main thread with the exception the task failed with.
+         *
+         * @param e The exception thrown by the task.
+         */
+        void onError(RuntimeException e);
+    }
+}
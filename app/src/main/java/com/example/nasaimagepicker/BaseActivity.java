@@ -5,10 +5,12 @@ import android.os.Bundle;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
+import android.widget.Toast;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.ActionBarDrawerToggle;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.appcompat.widget.Toolbar;
 import androidx.drawerlayout.widget.DrawerLayout;
 import com.google.android.material.navigation.NavigationView;
@@ -48,6 +50,43 @@ public abstract class BaseActivity extends AppCompatActivity {
         setupNavigation();
     }
 
+    /**
+     * Runs a task on the shared disk executor and delivers its result on the main thread, unless this
+     * activity has been destroyed by then. The task itself always completes, so writes are never lost.
+     * If the task fails, the user is told that the storage could not be accessed.
+     *
+     * @param task     The database or file work to run in the background.
+     * @param callback The callback that receives the result on the main thread.
+     * @param <T>      The type of the result.
+     */
+    protected <T> void runOnDiskIO(AppExecutors.DiskTask<T> task, AppExecutors.ResultCallback<T> callback) {
+        runOnDiskIO(task, callback, e -> { });
+    }
+
+    /**
+     * Runs a task on the shared disk executor like {@link #runOnDiskIO(AppExecutors.DiskTask, AppExecutors.ResultCallback)},
+     * and lets the caller recover if the task fails, for example by allowing a page to be loaded again.
+     * The user is told that the storage could not be accessed.
+     *
+     * @param task     The database or file work to run in the background.
+     * @param callback The callback that receives the result on the main thread.
+     * @param onError  The callback that receives the failure on the main thread.
+     * @param <T>      The type of the result.
+     */
+    protected <T> void runOnDiskIO(AppExecutors.DiskTask<T> task, AppExecutors.ResultCallback<T> callback,
+                                   AppExecutors.ErrorCallback onError) {
+        AppExecutors.getInstance().runOnDiskIO(task, result -> {
+            if (!isDestroyed()) {
+                callback.onResult(result);
+            }
+        }, e -> {
+            if (!isDestroyed()) {
+                onError.onError(e);
+                Toast.makeText(this, R.string.error_storage, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     /**
      * Initialize the contents of the Activity's standard options menu. Adds the help menu item to the toolbar.
      *
@@ -61,6 +100,45 @@ public abstract class BaseActivity extends AppCompatActivity {
         return true;
     }
 
+    /**
+     * Adds a search box to the toolbar. The listener is told about every change of the typed text,
+     * so results can follow the user's typing, and about a null query when the search box is closed.
+     *
+     * @param menu     The options menu to add the search box to.
+     * @param listener The listener notified when the query changes.
+     */
+    protected void addSearchMenu(Menu menu, SearchListener listener) {
+        getMenuInflater().inflate(R.menu.search_menu, menu);
+        MenuItem searchItem = menu.findItem(R.id.search);
+        SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint(getString(R.string.search_hint));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                searchView.clearFocus();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                listener.onSearch(newText.trim().isEmpty() ? null : newText);
+                return true;
+            }
+        });
+        searchItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                listener.onSearch(null);
+                return true;
+            }
+        });
+    }
+
     /**
      * Handle item selection in the options menu. Shows the help dialog when the help menu item is selected.
      *
@@ -131,4 +209,16 @@ public abstract class BaseActivity extends AppCompatActivity {
             drawerToggle.syncState();
         }
     }
+
+    /**
+     * Listener notified when the query of the search box changes.
+     */
+    protected interface SearchListener {
+        /**
+         * Called when the query changes.
+         *
+         * @param query The text typed by the user, or null if the search box is empty or closed.
+         */
+        void onSearch(String query);
+    }
 }
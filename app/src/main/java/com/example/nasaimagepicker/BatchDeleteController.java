@@ -0,0 +1,235 @@
+package com.example.nasaimagepicker;
+
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.view.ActionMode;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * BatchDeleteController adds multi-select and batch deletion to a list screen. A long press selects
+ * items and shows a contextual toolbar that deletes the selection; the options menu clears the whole
+ * list or deletes the items older than a chosen age. Every deletion is a single statement run on the
+ * disk executor, and the displayed list is updated by removing the deleted items from it rather than
+ * by querying the database again.
+ */
+public class BatchDeleteController implements ImageAdapter.SelectionListener {
+
+    /**
+     * The ages offered by "delete older than", in days, matching the labels of the
+     * delete_older_than_options string array.
+     */
+    static final int[] DELETE_OLDER_THAN_DAYS = {7, 30, 182, 365};
+
+    private final BaseActivity activity;
+    private final ImageAdapter adapter;
+    private final Deleter deleter;
+    private final Runnable onItemsRemoved;
+
+    /**
+     * The contextual toolbar shown while items are selected, or null.
+     */
+    private ActionMode actionMode;
+
+    private final ActionMode.Callback actionModeCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.selection_menu, menu);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            if (item.getItemId() == R.id.delete_selected) {
+                confirmDeleteSelected();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            actionMode = null;
+            adapter.clearSelection();
+        }
+    };
+
+    /**
+     * Constructs a new BatchDeleteController and enables the selection of items in the adapter.
+     *
+     * @param activity       The screen that shows the list.
+     * @param adapter        The adapter of the list.
+     * @param deleter        The deletions of the rows behind the list.
+     * @param onItemsRemoved Called on the main thread after items have been removed from the list, so
+     *                       the screen can load more items if the list has become short.
+     */
+    public BatchDeleteController(BaseActivity activity, ImageAdapter adapter, Deleter deleter, Runnable onItemsRemoved) {
+        this.activity = activity;
+        this.adapter = adapter;
+        this.deleter = deleter;
+        this.onItemsRemoved = onItemsRemoved;
+        adapter.setSelectionListener(this);
+    }
+
+    /**
+     * Adds the "delete older than" and "clear all" items to the options menu.
+     *
+     * @param menu The options menu of the screen.
+     */
+    public void onCreateOptionsMenu(Menu menu) {
+        activity.getMenuInflater().inflate(R.menu.batch_delete_menu, menu);
+    }
+
+    /**
+     * Handles the items added by {@link #onCreateOptionsMenu(Menu)}.
+     *
+     * @param item The menu item that was selected.
+     * @return true if the selection was handled.
+     */
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.clear_all) {
+            confirmClearAll();
+            return true;
+        }
+        if (item.getItemId() == R.id.delete_older_than) {
+            chooseAge();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Shows the contextual toolbar with the number of selected items, or hides it once nothing is selected.
+     *
+     * @param selectedCount The number of items selected now.
+     */
+    @Override
+    public void onSelectionChanged(int selectedCount) {
+        if (selectedCount == 0) {
+            if (actionMode != null) {
+                actionMode.finish();
+            }
+            return;
+        }
+        if (actionMode == null) {
+            actionMode = activity.startSupportActionMode(actionModeCallback);
+        }
+        if (actionMode != null) {
+            actionMode.setTitle(activity.getString(R.string.selected_count, selectedCount));
+        }
+    }
+
+    /**
+     * Asks for confirmation, then deletes the selected items.
+     */
+    private void confirmDeleteSelected() {
+        List<Long> ids = adapter.getSelectedIds();
+        confirm(activity.getString(R.string.confirm_delete_selected, ids.size()), () -> {
+            Set<Long> deletedIds = new HashSet<>(ids);
+            activity.runOnDiskIO(() -> deleter.deleteSelected(ids),
+                    deleted -> onDeleted(deleted, item -> deletedIds.contains(item.getId())));
+        });
+    }
+
+    /**
+     * Asks for confirmation, then deletes every item of the list, including those not loaded yet.
+     */
+    private void confirmClearAll() {
+        confirm(activity.getString(R.string.confirm_clear_all), () ->
+                activity.runOnDiskIO(deleter::deleteAll, deleted -> onDeleted(deleted, item -> true)));
+    }
+
+    /**
+     * Lets the user choose an age, then asks for confirmation and deletes the items older than that.
+     */
+    private void chooseAge() {
+        new AlertDialog.Builder(activity)
+                .setTitle(R.string.delete_older_than)
+                .setItems(R.array.delete_older_than_options, (dialog, which) -> {
+                    String cutoff = ApodDates.addDays(ApodDates.today(), -DELETE_OLDER_THAN_DAYS[which]);
+                    confirm(activity.getString(R.string.confirm_delete_older_than, cutoff), () ->
+                            activity.runOnDiskIO(() -> deleter.deleteOlderThan(cutoff), deleted -> onDeleted(deleted, item -> {
+                                String date = deleter.dateOf(item);
+                                return date != null && date.compareTo(cutoff) < 0;
+                            })));
+                })
+                .show();
+    }
+
+    /**
+     * Shows a confirmation dialog.
+     *
+     * @param message   The question to confirm.
+     * @param onConfirm Called when the user confirms.
+     */
+    private void confirm(String message, Runnable onConfirm) {
+        new AlertDialog.Builder(activity)
+                .setMessage(message)
+                .setPositiveButton(android.R.string.yes, (dialog, which) -> onConfirm.run())
+                .setNegativeButton(android.R.string.no, null)
+                .show();
+    }
+
+    /**
+     * Removes the deleted items from the list in one update and reports how many were deleted.
+     *
+     * @param deletedCount The number of rows deleted.
+     * @param removed      The filter of the displayed items that were deleted.
+     */
+    private void onDeleted(int deletedCount, Predicate<ImageItem> removed) {
+        adapter.removeItems(removed);
+        if (actionMode != null) {
+            actionMode.finish();
+        }
+        Toast.makeText(activity, activity.getString(R.string.items_deleted, deletedCount), Toast.LENGTH_SHORT).show();
+        onItemsRemoved.run();
+    }
+
+    /**
+     * The deletions of the rows behind a list. The delete methods run on the disk executor.
+     */
+    public interface Deleter {
+        /**
+         * Deletes the records with the given IDs.
+         *
+         * @param ids The IDs of the records to delete.
+         * @return The number of records deleted.
+         */
+        int deleteSelected(List<Long> ids);
+
+        /**
+         * Deletes all records.
+         *
+         * @return The number of records deleted.
+         */
+        int deleteAll();
+
+        /**
+         * Deletes the records whose date, as returned by {@link #dateOf(ImageItem)}, is before the given date.
+         *
+         * @param date The earliest date to keep, in the format "yyyy-MM-dd".
+         * @return The number of records deleted.
+         */
+        int deleteOlderThan(String date);
+
+        /**
+         * Returns the date of an item that "delete older than" compares, so the displayed items can be
+         * matched against the deleted rows.
+         *
+         * @param item The item.
+         * @return The date or timestamp of the item in ISO-8601, or null if it has none.
+         */
+        String dateOf(ImageItem item);
+    }
+}
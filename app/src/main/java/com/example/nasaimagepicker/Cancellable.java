@@ -0,0 +1,71 @@
+package com.example.nasaimagepicker;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cancellable is a handle to background work whose result is delivered to a callback. Cancelling it
+ * interrupts the work if it is still running and guarantees that the callback is not invoked
+ * afterwards, so a screen can drop its pending loads when it goes away or the user asks for
+ * something else.
+ */
+public class Cancellable {
+
+    private volatile boolean cancelled;
+    private volatile Future<?> future;
+    private final AtomicReference<Runnable> cancelAction = new AtomicReference<>();
+
+    /**
+     * Cancels the work. Has no effect if the work has already delivered its result.
+     */
+    public void cancel() {
+        cancelled = true;
+        Future<?> current = future;
+        if (current != null) {
+            current.cancel(true);
+        }
+        Runnable action = cancelAction.getAndSet(null);
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    /**
+     * Returns whether the work has been cancelled.
+     *
+     * @return true if {@link #cancel()} has been called, false otherwise.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Attaches the Future of the stage of the work currently running, so that it can be interrupted.
+     * If the work has already been cancelled, the Future is cancelled right away.
+     *
+     * @param future The Future of the current stage.
+     */
+    void setFuture(Future<?> future) {
+        this.future = future;
+        if (cancelled) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Sets an action that runs once when the work is cancelled, for work that is shared with other
+     * callers and must not simply be interrupted. If the work has already been cancelled, the action
+     * runs right away.
+     *
+     * @param action The action to run on cancellation.
+     */
+    void setCancelAction(Runnable action) {
+        cancelAction.set(action);
+        if (cancelled) {
+            Runnable pending = cancelAction.getAndSet(null);
+            if (pending != null) {
+                pending.run();
+            }
+        }
+    }
+}
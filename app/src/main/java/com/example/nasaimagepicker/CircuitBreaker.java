@@ -0,0 +1,131 @@
+package com.example.nasaimagepicker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CircuitBreaker stops {@link ApodClient} from sending requests that are bound to fail. The circuit
+ * opens when the API throttles the app with a 429, when it reports that no requests remain in the
+ * current rate limit window, or after several consecutive server or network failures. While open,
+ * requests fail immediately with a {@link CircuitOpenException}, so callers can fall back to cached
+ * data without waiting. Once the open period is over, a single trial request is let through; its
+ * success closes the circuit, and its failure opens it again for twice as long.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The default number of consecutive failures that open the circuit.
+     */
+    static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+    /**
+     * The default time the circuit stays open the first time it opens without a Retry-After delay.
+     */
+    static final long DEFAULT_OPEN_MS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * The longest time the circuit stays open without a Retry-After delay.
+     */
+    static final long MAX_OPEN_MS = TimeUnit.MINUTES.toMillis(15);
+
+    private final int failureThreshold;
+    private final long openMs;
+
+    private int consecutiveFailures;
+    private int consecutiveOpenings;
+    private long openUntilMs;
+    private boolean halfOpen;
+    private boolean trialInFlight;
+
+    /**
+     * Constructs a CircuitBreaker with the default limits.
+     */
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MS);
+    }
+
+    /**
+     * Constructs a new CircuitBreaker.
+     *
+     * @param failureThreshold The number of consecutive failures that open the circuit.
+     * @param openMs           The time the circuit stays open the first time it opens without a Retry-After delay.
+     */
+    public CircuitBreaker(int failureThreshold, long openMs) {
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    /**
+     * Called before a request is sent. Lets the request through if the circuit is closed, or if it is
+     * the trial request after the open period.
+     *
+     * @throws CircuitOpenException If the circuit is open or a trial request is already in flight.
+     */
+    public synchronized void beforeRequest() throws CircuitOpenException {
+        if (!halfOpen && openUntilMs == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now < openUntilMs) {
+            throw new CircuitOpenException(openUntilMs - now);
+        }
+        if (trialInFlight) {
+            throw new CircuitOpenException(0);
+        }
+        halfOpen = true;
+        openUntilMs = 0;
+        trialInFlight = true;
+    }
+
+    /**
+     * Called when the API has answered, with a success or an error that is not caused by load.
+     *
+     * @param rateLimitRemaining The value of the X-RateLimit-Remaining header, or -1 if it was absent.
+     */
+    public synchronized void onSuccess(int rateLimitRemaining) {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        if (rateLimitRemaining == 0) {
+            open(-1);
+            return;
+        }
+        halfOpen = false;
+        consecutiveOpenings = 0;
+    }
+
+    /**
+     * Called when a request has failed with a retryable status or without any response.
+     *
+     * @param statusCode   The HTTP status code, or 0 if no response was received.
+     * @param retryAfterMs The delay requested by the server, or -1 if none was given.
+     */
+    public synchronized void onFailure(int statusCode, long retryAfterMs) {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (statusCode == 429 || halfOpen || consecutiveFailures >= failureThreshold) {
+            open(retryAfterMs);
+        }
+    }
+
+    /**
+     * Returns how much longer the circuit rejects requests.
+     *
+     * @return The remaining open time in milliseconds, or 0 if the circuit lets requests through.
+     */
+    public synchronized long remainingOpenMs() {
+        return Math.max(0, openUntilMs - System.currentTimeMillis());
+    }
+
+    /**
+     * Opens the circuit for the requested delay, or for an open period that doubles with every
+     * consecutive opening.
+     *
+     * @param retryAfterMs The delay requested by the server, or -1 if none was given.
+     */
+    private void open(long retryAfterMs) {
+        long duration = retryAfterMs >= 0 ? retryAfterMs : Math.min(MAX_OPEN_MS, openMs << Math.min(consecutiveOpenings, 20));
+        consecutiveOpenings++;
+        consecutiveFailures = 0;
+        halfOpen = false;
+        openUntilMs = System.currentTimeMillis() + duration;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.nasaimagepicker;
+
+import java.io.IOException;
+
+/**
+ * CircuitOpenException is thrown by {@link ApodClient} instead of sending a request while its
+ * {@link CircuitBreaker} is open, that is while the APOD API is throttling the app or failing.
+ */
+public class CircuitOpenException extends IOException {
+
+    private final long retryAfterMs;
+
+    /**
+     * Constructs a new CircuitOpenException.
+     *
+     * @param retryAfterMs The time until the circuit lets a request through again.
+     */
+    public CircuitOpenException(long retryAfterMs) {
+        super("APOD API circuit open, retry in " + retryAfterMs + " ms");
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * Returns the time until the circuit lets a request through again.
+     *
+     * @return The time in milliseconds.
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
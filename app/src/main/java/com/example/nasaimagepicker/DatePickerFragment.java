@@ -16,29 +16,52 @@ import java.util.Calendar;
  */
 public class DatePickerFragment extends DialogFragment implements DatePickerDialog.OnDateSetListener {
 
+    /**
+     * The argument key for the optional dialog title.
+     */
+    private static final String ARG_TITLE = "title";
+
     /**
      * Listener for date selection events.
      */
     private OnDateSelectedListener listener;
 
+    /**
+     * Creates a new DatePickerFragment that shows the given title above the date picker.
+     *
+     * @param titleResId The string resource ID of the dialog title.
+     * @return A new instance of DatePickerFragment.
+     */
+    public static DatePickerFragment newInstance(int titleResId) {
+        DatePickerFragment fragment = new DatePickerFragment();
+        Bundle args = new Bundle();
+        args.putInt(ARG_TITLE, titleResId);
+        fragment.setArguments(args);
+        return fragment;
+    }
+
     /**
      * Called to instantiate the dialog when the fragment is created.
-     * Sets the current date as the default date and disables future dates.
+     * Sets today's APOD date as the default date and disables later dates, which have no entry yet.
      *
      * @param savedInstanceState If the dialog is being re-initialized after previously being shut down, this Bundle contains the data it most recently supplied in onSaveInstanceState(Bundle).
      * @return A new instance of DatePickerDialog with the current date set as default and future dates disabled.
      */
     @Override
     public Dialog onCreateDialog(Bundle savedInstanceState) {
-        final Calendar c = Calendar.getInstance();
+        final Calendar c = ApodDates.toLocalCalendar(ApodDates.today());
         int year = c.get(Calendar.YEAR);
         int month = c.get(Calendar.MONTH);
         int day = c.get(Calendar.DAY_OF_MONTH);
 
         DatePickerDialog datePickerDialog = new DatePickerDialog(getActivity(), this, year, month, day);
 
-        // Disable future dates
-        datePickerDialog.getDatePicker().setMaxDate(System.currentTimeMillis());
+        // Disable the dates after today's APOD date
+        datePickerDialog.getDatePicker().setMaxDate(c.getTimeInMillis());
+
+        if (getArguments() != null && getArguments().containsKey(ARG_TITLE)) {
+            datePickerDialog.setTitle(getArguments().getInt(ARG_TITLE));
+        }
 
         return datePickerDialog;
     }
@@ -55,7 +78,7 @@ public class DatePickerFragment extends DialogFragment implements DatePickerDial
     @Override
     public void onDateSet(DatePicker view, int year, int month, int day) {
         if (listener != null) {
-            listener.onDateSelected(year + "-" + (month + 1) + "-" + day);
+            listener.onDateSelected(ApodDates.format(year, month, day));
         }
     }
 
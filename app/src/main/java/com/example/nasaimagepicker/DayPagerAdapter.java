@@ -0,0 +1,139 @@
+package com.example.nasaimagepicker;
+
+import android.graphics.Bitmap;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * DayPagerAdapter shows one page per day, from the first APOD entry up to the given last day, in a
+ * ViewPager2. Pages are bound from a {@link DayWindow}, so a page shows its entry and picture as soon
+ * as the window has them and a loading state until then. Recycled pages let go of their picture, so
+ * only the pictures in the window are ever referenced.
+ */
+public class DayPagerAdapter extends RecyclerView.Adapter<DayPagerAdapter.ViewHolder> {
+
+    private final DayWindow dayWindow;
+    private final String lastDate;
+    private final int dayCount;
+
+    /**
+     * Constructs a new DayPagerAdapter.
+     *
+     * @param dayWindow The window that holds the entries and pictures of the days around the current page.
+     * @param lastDate  The last day that has a page, usually today.
+     */
+    public DayPagerAdapter(DayWindow dayWindow, String lastDate) {
+        this.dayWindow = dayWindow;
+        this.lastDate = ApodDates.normalize(lastDate);
+        this.dayCount = ApodDates.daysBetween(ApodDates.FIRST_DATE, this.lastDate) + 1;
+    }
+
+    /**
+     * Returns the day shown at the given position.
+     *
+     * @param position The adapter position.
+     * @return The normalized day.
+     */
+    public String dateAt(int position) {
+        return ApodDates.addDays(ApodDates.FIRST_DATE, position);
+    }
+
+    /**
+     * Returns the position of the page of the given day, clamped to the available pages.
+     *
+     * @param date The day.
+     * @return The adapter position.
+     */
+    public int positionOf(String date) {
+        int position = ApodDates.daysBetween(ApodDates.FIRST_DATE, ApodDates.normalize(date));
+        return Math.max(0, Math.min(dayCount - 1, position));
+    }
+
+    /**
+     * Returns the number of pages, one per day.
+     *
+     * @return The number of days.
+     */
+    @Override
+    public int getItemCount() {
+        return dayCount;
+    }
+
+    /**
+     * Inflates a new page view and caches its child views in a ViewHolder.
+     *
+     * @param parent   The ViewGroup into which the new view will be added.
+     * @param viewType The view type of the new view.
+     * @return A new ViewHolder for the page view.
+     */
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.day_page, parent, false);
+        return new ViewHolder(view);
+    }
+
+    /**
+     * Binds the day at the given position to a ViewHolder from whatever the window has loaded so far.
+     *
+     * @param holder   The ViewHolder to bind.
+     * @param position The position of the day.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        String date = dateAt(position);
+        ApodEntry entry = dayWindow.getEntry(date);
+        Bitmap picture = dayWindow.getPicture(date);
+        holder.dateTextView.setText(date);
+        if (entry == null) {
+            holder.titleTextView.setText(R.string.day_loading);
+        } else if (entry.getPreviewUrl() != null) {
+            holder.titleTextView.setText(entry.getTitle());
+        } else {
+            holder.titleTextView.setText(holder.itemView.getContext().getString(R.string.day_not_an_image, entry.getMediaType()));
+        }
+        if (picture != null) {
+            holder.imageView.setImageBitmap(picture);
+        } else {
+            holder.imageView.setImageResource(R.drawable.thumbnail_placeholder);
+        }
+    }
+
+    /**
+     * Releases the picture of a page that is being recycled.
+     *
+     * @param holder The ViewHolder being recycled.
+     */
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        holder.imageView.setImageDrawable(null);
+    }
+
+    /**
+     * ViewHolder caches the child views of a page so they are looked up only once per view.
+     */
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+
+        final TextView dateTextView;
+        final TextView titleTextView;
+        final ImageView imageView;
+
+        /**
+         * Constructs a new ViewHolder.
+         *
+         * @param itemView The page view.
+         */
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            dateTextView = itemView.findViewById(R.id.day_date_text);
+            titleTextView = itemView.findViewById(R.id.day_title_text);
+            imageView = itemView.findViewById(R.id.day_image_view);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.nasaimagepicker;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DayWindow keeps the entries and decoded pictures of the days around the day shown by the day pager.
+ * Moving the window to another day first fills it from the metadata store, then loads the days that
+ * are not stored yet with one range request and only falls back to loading single entries for the
+ * days the range did not return, then decodes the picture of every
+ * day in the window, which for a video is its thumbnail. Entries and pictures of days that leave the window are dropped and their
+ * pending loads cancelled, so the memory used by the pager stays the same however far the user swipes.
+ * All methods must be called on the main thread, and the loader delivers its results there too.
+ */
+public class DayWindow {
+
+    private static final String TAG = "DayWindow";
+
+    /**
+     * The default number of days kept before and after the current day.
+     */
+    static final int DEFAULT_RADIUS = 3;
+
+    private final int radius;
+    private final Loader loader;
+    private final Listener listener;
+
+    private String first;
+    private String last;
+    private final Map<String, ApodEntry> entries = new HashMap<>();
+    private final Map<String, Bitmap> pictures = new HashMap<>();
+    private final Map<String, Cancellable> pendingEntries = new HashMap<>();
+    private final List<String> pendingPictures = new ArrayList<>();
+    private Cancellable pendingStoreRead;
+
+    /**
+     * Constructs a new DayWindow.
+     *
+     * @param radius   The number of days kept before and after the current day.
+     * @param loader   The loader of entries and pictures.
+     * @param listener The listener notified when the entry or picture of a day becomes available.
+     */
+    public DayWindow(int radius, Loader loader, Listener listener) {
+        this.radius = radius;
+        this.loader = loader;
+        this.listener = listener;
+    }
+
+    /**
+     * Centers the window on the given day, dropping the days that leave it and loading those that enter it.
+     *
+     * @param date The day the user is looking at.
+     */
+    public void moveTo(String date) {
+        String center = ApodDates.normalize(date);
+        String newFirst = ApodDates.addDays(center, -radius);
+        String newLast = ApodDates.addDays(center, radius);
+        if (newFirst.equals(first)) {
+            return;
+        }
+        first = newFirst;
+        last = newLast;
+        evictOutsideWindow();
+
+        if (pendingStoreRead != null) {
+            pendingStoreRead.cancel();
+        }
+        pendingStoreRead = loader.loadStoredEntries(first, last, new ApodClient.RangeCallback() {
+            @Override
+            public void onSuccess(List<ApodEntry> stored) {
+                pendingStoreRead = null;
+                for (ApodEntry entry : stored) {
+                    onEntryLoaded(entry);
+                }
+                loadMissingEntries();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                pendingStoreRead = null;
+                loadMissingEntries();
+            }
+        });
+    }
+
+    /**
+     * Returns the entry of a day, if the day is in the window and its entry has been loaded.
+     *
+     * @param date The day.
+     * @return The entry, or null if it is not available.
+     */
+    public ApodEntry getEntry(String date) {
+        return entries.get(ApodDates.normalize(date));
+    }
+
+    /**
+     * Returns the decoded picture of a day, if the day is in the window and its picture has been loaded.
+     *
+     * @param date The day.
+     * @return The picture, or null if it is not available.
+     */
+    public Bitmap getPicture(String date) {
+        return pictures.get(ApodDates.normalize(date));
+    }
+
+    /**
+     * Returns the number of decoded pictures currently held by the window.
+     *
+     * @return The number of pictures.
+     */
+    public int getPictureCount() {
+        return pictures.size();
+    }
+
+    /**
+     * Drops all entries and pictures and cancels all pending loads, for example when the pager goes away.
+     */
+    public void clear() {
+        first = null;
+        last = null;
+        if (pendingStoreRead != null) {
+            pendingStoreRead.cancel();
+            pendingStoreRead = null;
+        }
+        evictOutsideWindow();
+    }
+
+    /**
+     * Starts loading the entries of the days in the window that the metadata store did not have, with one
+     * range request spanning the first and last of them. A single missing day is loaded on its own.
+     */
+    private void loadMissingEntries() {
+        List<String> missing = missingDays();
+        if (missing.isEmpty()) {
+            return;
+        }
+        if (missing.size() == 1) {
+            loadEntries(missing);
+            return;
+        }
+        String firstMissing = missing.get(0);
+        String lastMissing = missing.get(missing.size() - 1);
+        Cancellable[] load = new Cancellable[1];
+        load[0] = loader.loadEntries(firstMissing, lastMissing, new ApodClient.RangeCallback() {
+            @Override
+            public void onSuccess(List<ApodEntry> loaded) {
+                removePending(missing, load[0]);
+                for (ApodEntry entry : loaded) {
+                    onEntryLoaded(entry);
+                }
+                // The range may come back short, for example when the last days are not published yet
+                loadEntries(missingDays());
+            }
+
+            @Override
+            public void onError(Exception e) {
+                removePending(missing, load[0]);
+                Log.w(TAG, "Could not load the entries from " + firstMissing + " to " + lastMissing, e);
+                loadEntries(missingDays());
+            }
+        });
+        for (String day : missing) {
+            pendingEntries.put(day, load[0]);
+        }
+    }
+
+    /**
+     * Returns the days in the window that have no entry yet and no pending load, skipping days before the
+     * first picture of the day or after today.
+     *
+     * @return The missing days in ascending order.
+     */
+    private List<String> missingDays() {
+        List<String> missing = new ArrayList<>();
+        if (first == null) {
+            return missing;
+        }
+        String today = ApodDates.today();
+        for (String day = first; day.compareTo(last) <= 0; day = ApodDates.addDays(day, 1)) {
+            if (day.compareTo(ApodDates.FIRST_DATE) >= 0 && day.compareTo(today) <= 0
+                    && !entries.containsKey(day) && !pendingEntries.containsKey(day)) {
+                missing.add(day);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Starts loading the entries of the given days one by one.
+     *
+     * @param days The days to load.
+     */
+    private void loadEntries(List<String> days) {
+        for (String date : days) {
+            pendingEntries.put(date, loader.loadEntry(date, new ApodClient.Callback() {
+                @Override
+                public void onSuccess(ApodEntry entry) {
+                    pendingEntries.remove(date);
+                    onEntryLoaded(entry);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    pendingEntries.remove(date);
+                    Log.w(TAG, "Could not load the entry for " + date, e);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Forgets a finished range load of the given days, leaving loads started for them since untouched.
+     *
+     * @param days The days the range load was started for.
+     * @param load The handle of the range load.
+     */
+    private void removePending(List<String> days, Cancellable load) {
+        for (String day : days) {
+            pendingEntries.remove(day, load);
+        }
+    }
+
+    /**
+     * Stores a loaded entry if its day is still in the window and starts decoding its picture.
+     *
+     * @param entry The loaded entry.
+     */
+    private void onEntryLoaded(ApodEntry entry) {
+        String day = ApodDates.normalize(entry.getDate());
+        if (!inWindow(day) || entries.containsKey(day)) {
+            return;
+        }
+        entries.put(day, entry);
+        listener.onDayChanged(day);
+        String previewUrl = entry.getPreviewUrl();
+        if (previewUrl != null) {
+            pendingPictures.add(day);
+            loader.loadPicture(day, previewUrl, picture -> {
+                pendingPictures.remove(day);
+                if (inWindow(day)) {
+                    pictures.put(day, picture);
+                    listener.onDayChanged(day);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the entries and pictures of the days outside the window and cancels their pending loads.
+     */
+    private void evictOutsideWindow() {
+        entries.keySet().removeIf(day -> !inWindow(day));
+        pictures.keySet().removeIf(day -> !inWindow(day));
+        Iterator<Map.Entry<String, Cancellable>> pending = pendingEntries.entrySet().iterator();
+        List<Cancellable> dropped = new ArrayList<>();
+        while (pending.hasNext()) {
+            Map.Entry<String, Cancellable> load = pending.next();
+            if (!inWindow(load.getKey())) {
+                dropped.add(load.getValue());
+                pending.remove();
+            }
+        }
+        // A range load shared with days still in the window keeps running for them
+        for (Cancellable load : dropped) {
+            if (!pendingEntries.containsValue(load)) {
+                load.cancel();
+            }
+        }
+        Iterator<String> pendingDays = pendingPictures.iterator();
+        while (pendingDays.hasNext()) {
+            String day = pendingDays.next();
+            if (!inWindow(day)) {
+                loader.cancelPicture(day);
+                pendingDays.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns whether a day is inside the window.
+     *
+     * @param day The normalized day.
+     * @return true if the day is inside the window, false otherwise.
+     */
+    private boolean inWindow(String day) {
+        return first != null && day.compareTo(first) >= 0 && day.compareTo(last) <= 0;
+    }
+
+    /**
+     * Loader loads the entries and pictures of the window and delivers them on the main thread.
+     */
+    public interface Loader {
+        /**
+         * Loads the entries between two dates that are already in the metadata store.
+         *
+         * @param startDate The first date, inclusive.
+         * @param endDate   The last date, inclusive.
+         * @param callback  The callback that receives the stored entries.
+         * @return A handle that cancels the load.
+         */
+        Cancellable loadStoredEntries(String startDate, String endDate, ApodClient.RangeCallback callback);
+
+        /**
+         * Loads the entries between two dates that are not in the metadata store with one request.
+         *
+         * @param startDate The first date, inclusive.
+         * @param endDate   The last date, inclusive.
+         * @param callback  The callback that receives the entries the server returned, or the error.
+         * @return A handle that cancels the load.
+         */
+        Cancellable loadEntries(String startDate, String endDate, ApodClient.RangeCallback callback);
+
+        /**
+         * Loads a single entry that is not in the metadata store.
+         *
+         * @param date     The date of the entry.
+         * @param callback The callback that receives the entry or the error.
+         * @return A handle that cancels the load.
+         */
+        Cancellable loadEntry(String date, ApodClient.Callback callback);
+
+        /**
+         * Loads and decodes the picture of a day.
+         *
+         * @param date     The day.
+         * @param url      The URL of the picture.
+         * @param callback The callback that receives the decoded picture; not invoked if loading fails.
+         */
+        void loadPicture(String date, String url, PictureCallback callback);
+
+        /**
+         * Cancels the pending picture load of a day.
+         *
+         * @param date The day.
+         */
+        void cancelPicture(String date);
+    }
+
+    /**
+     * Callback that receives a decoded picture.
+     */
+    public interface PictureCallback {
+        /**
+         * Called when the picture has been decoded.
+         *
+         * @param picture The decoded picture.
+         */
+        void onPictureLoaded(Bitmap picture);
+    }
+
+    /**
+     * Listener notified when the entry or picture of a day in the window becomes available.
+     */
+    public interface Listener {
+        /**
+         * Called when the entry or picture of a day has been loaded.
+         *
+         * @param date The normalized day.
+         */
+        void onDayChanged(String date);
+    }
+}
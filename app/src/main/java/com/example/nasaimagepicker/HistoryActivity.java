@@ -1,33 +1,72 @@
 package com.example.nasaimagepicker;
 
 import android.os.Bundle;
-import android.widget.ListView;
+import android.view.Menu;
+import android.view.MenuItem;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
+import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * HistoryActivity displays a list of previously accessed images in the NASA Image Picker app.
- * Users can view details about when an image was accessed or delete history entries.
+ * Users can view details about when an image was accessed, search the history by the title and
+ * explanation of its images, combine repeated views of the same image, or select several history
+ * entries and delete them at once.
  */
 public class HistoryActivity extends BaseActivity {
 
     /**
-     * The ListView that displays the list of history items.
+     * The maximum number of search results shown.
      */
-    private ListView listView;
+    private static final int MAX_SEARCH_RESULTS = 100;
 
     /**
-     * The adapter that populates the ListView with history items.
+     * The RecyclerView that displays the list of history items.
+     */
+    private RecyclerView recyclerView;
+
+    /**
+     * The adapter that populates the RecyclerView with history items.
      */
     private ImageAdapter adapter;
 
+    /**
+     * The pager that loads history items page by page as the user scrolls.
+     */
+    private ImageItemPager pager;
+
+    /**
+     * Whether a page is currently being loaded.
+     */
+    private boolean loading;
+
+    /**
+     * The text of the current search, or null while the full history is shown.
+     */
+    private String searchQuery;
+
     /**
      * The helper class that interacts with the history database.
      */
     private HistoryDatabaseHelper historyDatabaseHelper;
 
+    /**
+     * The recorder that writes views to the history and holds the history settings.
+     */
+    private HistoryRecorder historyRecorder;
+
+    /**
+     * The multi-select and batch deletions of the list.
+     */
+    private BatchDeleteController batchDeleteController;
+
     /**
      * Called when the activity is starting. This is where most initialization should go.
      * Sets up the navigation, initializes the history database helper, and loads the history images.
@@ -41,53 +80,187 @@ public class HistoryActivity extends BaseActivity {
 
         setupNavigation();
 
-        historyDatabaseHelper = new HistoryDatabaseHelper(this);
-        listView = findViewById(R.id.list_view_history);
+        historyDatabaseHelper = HistoryDatabaseHelper.getInstance(this);
+        historyRecorder = HistoryRecorder.getInstance(this);
+        recyclerView = findViewById(R.id.recycler_view_history);
+
+        pager = new ImageItemPager(historyDatabaseHelper::getHistoryPage);
+        adapter = new ImageAdapter(this, this::showImageDescription, null);
+        batchDeleteController = new BatchDeleteController(this, adapter, new BatchDeleteController.Deleter() {
+            @Override
+            public int deleteSelected(List<Long> ids) {
+                return historyDatabaseHelper.deleteHistory(ids);
+            }
+
+            @Override
+            public int deleteAll() {
+                return historyDatabaseHelper.deleteAllHistory();
+            }
+
+            @Override
+            public int deleteOlderThan(String date) {
+                return historyDatabaseHelper.deleteHistoryOlderThan(date);
+            }
+
+            @Override
+            public String dateOf(ImageItem item) {
+                return item.getDateAccessed();
+            }
+        }, this::loadMoreIfNeeded);
+        recyclerView.setAdapter(adapter);
+        recyclerView.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                loadMoreIfNeeded();
+            }
+        });
 
         loadHistoryImages();
+    }
 
-        listView.setOnItemClickListener((parent, view, position, id) -> {
-            ImageItem imageItem = adapter.getItem(position);
-            showImageDescription(imageItem);
+    /**
+     * Loads the next page of history images on the disk executor and appends it to the RecyclerView.
+     * Only one page is loaded at a time.
+     */
+    private void loadHistoryImages() {
+        if (loading || searchQuery != null) {
+            return;
+        }
+        loading = true;
+        ImageItemPager currentPager = pager;
+        runOnDiskIO(currentPager::nextPage, page -> {
+            if (currentPager != pager) {
+                // The list has been replaced by a search in the meantime
+                return;
+            }
+            loading = false;
+            adapter.appendItems(page);
+        }, e -> {
+            if (currentPager == pager) {
+                // Let the next scroll try the page again
+                loading = false;
+            }
         });
+    }
 
-        listView.setOnItemLongClickListener((parent, view, position, id) -> {
-            ImageItem imageItem = adapter.getItem(position);
-            new AlertDialog.Builder(HistoryActivity.this)
-                    .setTitle(R.string.delete_image_title)
-                    .setMessage(R.string.delete_image_message)
-                    .setPositiveButton(android.R.string.yes, (dialog, which) -> {
-                        historyDatabaseHelper.deleteHistory(imageItem.getId());
-                        loadHistoryImages();
-                    })
-                    .setNegativeButton(android.R.string.no, null)
-                    .show();
+    /**
+     * Loads the next page if the user has scrolled close to the end of the list, or if deletions have
+     * left too few items to scroll.
+     */
+    private void loadMoreIfNeeded() {
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        if (pager.shouldLoadMore(layoutManager.findLastVisibleItemPosition(), adapter.getSubmittedItemCount())) {
+            loadHistoryImages();
+        }
+    }
+
+    /**
+     * Adds the search box to the toolbar, next to the help menu item, and the history settings and
+     * batch deletions to the menu.
+     *
+     * @param menu The options menu in which you place your items.
+     * @return true for the menu to be displayed.
+     */
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        super.onCreateOptionsMenu(menu);
+        addSearchMenu(menu, this::search);
+        getMenuInflater().inflate(R.menu.history_menu, menu);
+        menu.findItem(R.id.combine_views).setChecked(historyRecorder.isCombiningViews());
+        batchDeleteController.onCreateOptionsMenu(menu);
+        return true;
+    }
+
+    /**
+     * Handles the history settings and the batch deletions. Turning on the combining of repeated views also combines the
+     * existing records on the disk executor and reloads the list.
+     *
+     * @param item The menu item that was selected.
+     * @return true if the selection was handled.
+     */
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.combine_views) {
+            boolean combine = !item.isChecked();
+            item.setChecked(combine);
+            historyRecorder.setCombiningViews(combine);
+            if (combine) {
+                runOnDiskIO(historyDatabaseHelper::compactHistory, removed -> {
+                    if (removed > 0) {
+                        reload();
+                    }
+                });
+            }
             return true;
-        });
+        }
+        return batchDeleteController.onOptionsItemSelected(item) || super.onOptionsItemSelected(item);
     }
 
     /**
-     * Loads the history images from the database and populates the ListView.
+     * Replaces the list with the results of a search, or goes back to the paged list when the search
+     * is cleared.
+     *
+     * @param query The text typed by the user, or null to show the full list again.
      */
-    private void loadHistoryImages() {
-        List<ImageItem> imageItemList = historyDatabaseHelper.getAllHistory();
-        adapter = new ImageAdapter(this, imageItemList);
-        listView.setAdapter(adapter);
+    private void search(String query) {
+        if (Objects.equals(query, searchQuery)) {
+            return;
+        }
+        searchQuery = query;
+        reload();
     }
 
     /**
-     * Displays an AlertDialog showing the description and access date of the selected image.
+     * Reloads the list from the database: the results of the current search on the disk executor, or
+     * the paged list from its first page. Only the results of the latest query are shown.
+     */
+    private void reload() {
+        String query = searchQuery;
+        pager = new ImageItemPager(historyDatabaseHelper::getHistoryPage);
+        loading = false;
+        if (query == null) {
+            adapter.submitList(new ArrayList<>());
+            loadHistoryImages();
+            return;
+        }
+        runOnDiskIO(() -> historyDatabaseHelper.searchHistory(query, MAX_SEARCH_RESULTS), results -> {
+            if (query.equals(searchQuery)) {
+                adapter.submitList(results);
+            }
+        });
+    }
+
+    /**
+     * Displays an AlertDialog showing the description and access date of the selected image, how often
+     * it has been viewed if its views have been combined, and whether the image is also saved.
      *
      * @param imageItem The ImageItem containing the description and access date to be displayed.
      */
     private void showImageDescription(ImageItem imageItem) {
+        String message = imageItem.getDescription() + "\nAccessed on: " + imageItem.getDateAccessed();
+        if (imageItem.getViewCount() > 1) {
+            message += "\n" + getString(R.string.view_count, imageItem.getViewCount());
+        }
+        if (imageItem.isSaved()) {
+            message += "\n" + getString(R.string.saved_flag);
+        }
         new AlertDialog.Builder(this)
                 .setTitle(R.string.description)
-                .setMessage(imageItem.getDescription() + "\nAccessed on: " + imageItem.getDateAccessed())
+                .setMessage(message)
                 .setPositiveButton(android.R.string.ok, null)
                 .show();
     }
 
+    /**
+     * Called when the activity is being destroyed. Cancels all thumbnail loads started by this screen.
+     */
+    @Override
+    protected void onDestroy() {
+        ThumbnailLoader.getInstance(this).cancelTag(this);
+        super.onDestroy();
+    }
+
     /**
      * Provides the help message specific to this activity.
      *
@@ -3,163 +3,412 @@ package com.example.nasaimagepicker;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
+
+import androidx.annotation.VisibleForTesting;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
- * HistoryDatabaseHelper is a SQLiteOpenHelper subclass that manages the database
- * used for storing and retrieving the history of accessed images in the NASA Image Picker app.
+ * HistoryDatabaseHelper stores and retrieves the history of accessed images in the NASA Image Picker app.
+ * History records are rows of the history table in {@link ApodDatabase} that refer to an APOD entry,
+ * so the URL, date and description of an image are stored only once however often it is viewed.
  */
-public class HistoryDatabaseHelper extends SQLiteOpenHelper {
+public class HistoryDatabaseHelper {
+
+    private static HistoryDatabaseHelper instance;
 
     /**
-     * The name of the database.
+     * The shared database that holds the history table.
      */
-    private static final String DATABASE_NAME = "history.db";
+    private final ApodDatabase database;
 
     /**
-     * The version of the database.
+     * Returns the shared HistoryDatabaseHelper, creating it on first use.
+     *
+     * @param context The context to use for locating paths to the database.
+     * @return The shared HistoryDatabaseHelper instance.
      */
-    private static final int DATABASE_VERSION = 1;  // Only one version
+    public static synchronized HistoryDatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new HistoryDatabaseHelper(ApodDatabase.getInstance(context));
+        }
+        return instance;
+    }
 
     /**
-     * The name of the table that stores the history records.
+     * Discards the shared instance and closes the shared database so the next call to
+     * {@link #getInstance(Context)} opens a new one.
      */
-    private static final String TABLE_HISTORY = "history";
+    @VisibleForTesting
+    static synchronized void resetInstance() {
+        instance = null;
+        ApodDatabase.resetInstance();
+    }
 
     /**
-     * The name of the column that stores the unique ID for each history record.
+     * Constructs a new instance of HistoryDatabaseHelper.
+     *
+     * @param database The shared database.
      */
-    private static final String COLUMN_ID = "_id";
+    private HistoryDatabaseHelper(ApodDatabase database) {
+        this.database = database;
+    }
 
     /**
-     * The name of the column that stores the URL of the image.
+     * Inserts a new history record into the database.
+     *
+     * @param url           The URL of the image.
+     * @param date          The date the image was accessed.
+     * @param description   The description of the image.
+     * @param dateAccessed  The date and time the image was accessed.
+     * @return true if the insertion was successful, false otherwise.
      */
-    private static final String COLUMN_URL = "url";
+    public boolean insertHistory(String url, String date, String description, String dateAccessed) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(ApodDatabase.COLUMN_ENTRY_ID, ApodDatabase.ensureEntry(db, url, date, description));
+        contentValues.put(ApodDatabase.COLUMN_DATE_ACCESSED, ApodDates.normalizeTimestamp(dateAccessed));
+
+        long result = db.insert(ApodDatabase.TABLE_HISTORY, null, contentValues);
+        return result != -1;
+    }
 
     /**
-     * The name of the column that stores the date the image was accessed.
+     * Writes several views to the history in a single transaction. When repeated views are combined,
+     * the earlier records of the same entry are replaced by one new record that adds up their view
+     * counts, so the entry moves to the top of the history with its latest access time.
+     *
+     * @param views   The views to write, oldest first.
+     * @param combine Whether to combine each view with the earlier records of the same entry.
+     * @return The number of views written.
      */
-    private static final String COLUMN_DATE = "date";
+    public int insertHistory(List<PendingView> views, boolean combine) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        int written = 0;
+        db.beginTransaction();
+        try {
+            for (PendingView view : views) {
+                long entryId = ApodDatabase.ensureEntry(db, view.entry);
+                long viewCount = 1;
+                if (combine) {
+                    String[] entryArgs = {String.valueOf(entryId)};
+                    viewCount += DatabaseUtils.longForQuery(db, "SELECT TOTAL(" + ApodDatabase.COLUMN_VIEW_COUNT + ") FROM " +
+                            ApodDatabase.TABLE_HISTORY + " WHERE " + ApodDatabase.COLUMN_ENTRY_ID + " = ?", entryArgs);
+                    db.delete(ApodDatabase.TABLE_HISTORY, ApodDatabase.COLUMN_ENTRY_ID + " = ?", entryArgs);
+                }
+                ContentValues contentValues = new ContentValues();
+                contentValues.put(ApodDatabase.COLUMN_ENTRY_ID, entryId);
+                contentValues.put(ApodDatabase.COLUMN_DATE_ACCESSED, ApodDates.normalizeTimestamp(view.dateAccessed));
+                contentValues.put(ApodDatabase.COLUMN_VIEW_COUNT, viewCount);
+                if (db.insert(ApodDatabase.TABLE_HISTORY, null, contentValues) != -1) {
+                    written++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return written;
+    }
 
     /**
-     * The name of the column that stores the description of the image.
+     * Combines all records of the same entry into one, keeping the newest record with the total view
+     * count and the latest access time.
+     *
+     * @return The number of records removed.
      */
-    private static final String COLUMN_DESCRIPTION = "description";
+    public int compactHistory() {
+        SQLiteDatabase db = database.getWritableDatabase();
+        String sameEntry = " FROM " + ApodDatabase.TABLE_HISTORY + " o WHERE o." + ApodDatabase.COLUMN_ENTRY_ID +
+                " = " + ApodDatabase.TABLE_HISTORY + "." + ApodDatabase.COLUMN_ENTRY_ID;
+        String newestPerEntry = "SELECT MAX(" + ApodDatabase.COLUMN_ID + ") FROM " + ApodDatabase.TABLE_HISTORY +
+                " GROUP BY " + ApodDatabase.COLUMN_ENTRY_ID;
+        db.beginTransaction();
+        try {
+            db.execSQL("UPDATE " + ApodDatabase.TABLE_HISTORY +
+                    " SET " + ApodDatabase.COLUMN_VIEW_COUNT + " = (SELECT SUM(o." + ApodDatabase.COLUMN_VIEW_COUNT + ")" + sameEntry + ")" +
+                    ", " + ApodDatabase.COLUMN_DATE_ACCESSED + " = (SELECT MAX(o." + ApodDatabase.COLUMN_DATE_ACCESSED + ")" + sameEntry + ")" +
+                    " WHERE " + ApodDatabase.COLUMN_ID + " IN (" + newestPerEntry + " HAVING COUNT(*) > 1)");
+            int removed = db.delete(ApodDatabase.TABLE_HISTORY, ApodDatabase.COLUMN_ID + " NOT IN (" + newestPerEntry + ")", null);
+            db.setTransactionSuccessful();
+            return removed;
+        } finally {
+            db.endTransaction();
+        }
+    }
 
     /**
-     * The name of the column that stores the date and time when the image was accessed.
+     * Deletes the history records that fall outside the retention policy in a single statement: records
+     * accessed before the cutoff, and records beyond the newest maxRows. The entries they referred to
+     * stay in the metadata cache until it evicts them.
+     *
+     * @param maxRows          The maximum number of records to keep.
+     * @param oldestAccessTime The earliest access time to keep, in the format "yyyy-MM-dd HH:mm:ss".
+     * @return The number of records deleted.
      */
-    private static final String COLUMN_DATE_ACCESSED = "date_accessed";
+    public int deleteExpiredHistory(int maxRows, String oldestAccessTime) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        return db.delete(ApodDatabase.TABLE_HISTORY, ApodDatabase.COLUMN_DATE_ACCESSED + " < ? OR " +
+                ApodDatabase.COLUMN_ID + " IN (SELECT " + ApodDatabase.COLUMN_ID + " FROM " + ApodDatabase.TABLE_HISTORY +
+                " ORDER BY " + ApodDatabase.COLUMN_ID + " DESC LIMIT -1 OFFSET " + maxRows + ")", new String[]{oldestAccessTime});
+    }
 
     /**
-     * Constructs a new instance of HistoryDatabaseHelper.
+     * Deletes a history record from the database.
      *
-     * @param context The context to use for locating paths to the database.
+     * @param id The ID of the history record to delete.
+     * @return true if the deletion was successful, false otherwise.
      */
-    public HistoryDatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    public boolean deleteHistory(long id) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        int result = db.delete(ApodDatabase.TABLE_HISTORY, ApodDatabase.COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
+        return result > 0;
     }
 
     /**
-     * Called when the database is created for the first time. This is where the creation of tables and the initial population of the tables should happen.
+     * Deletes the given history records with a single statement.
      *
-     * @param db The database.
+     * @param ids The IDs of the history records to delete.
+     * @return The number of records deleted.
      */
-    @Override
-    public void onCreate(SQLiteDatabase db) {
-        String createTable = "CREATE TABLE " + TABLE_HISTORY + " (" +
-                COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                COLUMN_URL + " TEXT, " +
-                COLUMN_DATE + " TEXT, " +
-                COLUMN_DESCRIPTION + " TEXT, " +
-                COLUMN_DATE_ACCESSED + " TEXT)";
-        db.execSQL(createTable);
+    public int deleteHistory(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        SQLiteDatabase db = database.getWritableDatabase();
+        return db.delete(ApodDatabase.TABLE_HISTORY, ApodDatabase.COLUMN_ID + " IN " + ApodDatabase.idList(ids), null);
     }
 
     /**
-     * This method is not needed for a single-version database.
-     * If you plan to add versions later, you would implement upgrade logic here.
+     * Deletes all history records.
      *
-     * @param db         The database.
-     * @param oldVersion The old database version.
-     * @param newVersion The new database version.
+     * @return The number of records deleted.
      */
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // No upgrade logic is needed since we only have one version of the database schema.
+    public int deleteAllHistory() {
+        SQLiteDatabase db = database.getWritableDatabase();
+        return db.delete(ApodDatabase.TABLE_HISTORY, null, null);
     }
 
     /**
-     * Inserts a new history record into the database.
+     * Deletes the history records last accessed before the given date, with a range scan of the index
+     * on the access time.
      *
-     * @param url           The URL of the image.
-     * @param date          The date the image was accessed.
-     * @param description   The description of the image.
-     * @param dateAccessed  The date and time the image was accessed.
-     * @return true if the insertion was successful, false otherwise.
+     * @param date The earliest access date to keep.
+     * @return The number of records deleted.
      */
-    public boolean insertHistory(String url, String date, String description, String dateAccessed) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues contentValues = new ContentValues();
-        contentValues.put(COLUMN_URL, url);
-        contentValues.put(COLUMN_DATE, date);
-        contentValues.put(COLUMN_DESCRIPTION, description);
-        contentValues.put(COLUMN_DATE_ACCESSED, dateAccessed);
+    public int deleteHistoryOlderThan(String date) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        return db.delete(ApodDatabase.TABLE_HISTORY, ApodDatabase.COLUMN_DATE_ACCESSED + " < ?",
+                new String[]{ApodDates.normalize(date)});
+    }
 
-        long result = db.insert(TABLE_HISTORY, null, contentValues);
-        db.close();
-        return result != -1;
+    /**
+     * Retrieves all history records from the database, each flagged with whether its image is also
+     * saved. The flag comes from the same query through a join on the saved table.
+     *
+     * @return A list of ImageItem objects representing the history records.
+     */
+    public List<ImageItem> getAllHistory() {
+        return queryHistory(Long.MAX_VALUE, -1);
     }
 
     /**
-     * Deletes a history record from the database.
+     * Retrieves one page of history records, newest first. Pages are keyed on the record ID rather than
+     * an offset, so each page is a range scan of the primary key however deep the user has scrolled.
      *
-     * @param id The ID of the history record to delete.
-     * @return true if the deletion was successful, false otherwise.
+     * @param beforeId The ID of the last record of the previous page, or {@link Long#MAX_VALUE} for the first page.
+     * @param pageSize The maximum number of records to return.
+     * @return A list of at most pageSize ImageItem objects with IDs below beforeId.
      */
-    public boolean deleteHistory(long id) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        int result = db.delete(TABLE_HISTORY, COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
-        db.close();
-        return result > 0;
+    public List<ImageItem> getHistoryPage(long beforeId, int pageSize) {
+        return queryHistory(beforeId, pageSize);
+    }
+
+    /**
+     * Searches the history by the title and explanation of its entries. Records whose entry title
+     * matches come first, then the others, each newest first. The search runs on the full-text index,
+     * so its cost depends on the number of matches rather than on the size of the history.
+     *
+     * @param text  The text typed by the user; every word is matched as a prefix.
+     * @param limit The maximum number of records to return.
+     * @return A list of at most limit ImageItem objects, empty if the text has no words.
+     */
+    public List<ImageItem> searchHistory(String text, int limit) {
+        String[] searchArgs = ApodDatabase.searchArgs(text);
+        if (searchArgs == null) {
+            return new ArrayList<>();
+        }
+        SQLiteDatabase db = database.getReadableDatabase();
+        Cursor cursor = db.rawQuery(searchHistorySql(limit), searchArgs);
+        return readHistory(cursor);
     }
 
     /**
-     * Retrieves all history records from the database.
+     * Builds the query of {@link #searchHistory(String, int)}.
      *
+     * @param limit The maximum number of records to return.
+     * @return The query, taking the arguments returned by {@link ApodDatabase#searchArgs(String)}.
+     */
+    @VisibleForTesting
+    static String searchHistorySql(int limit) {
+        return "SELECT h." + ApodDatabase.COLUMN_ID + ", e." + ApodDatabase.COLUMN_URL +
+                ", e." + ApodDatabase.COLUMN_DATE + ", e." + ApodDatabase.COLUMN_EXPLANATION +
+                ", h." + ApodDatabase.COLUMN_DATE_ACCESSED + ", s." + ApodDatabase.COLUMN_ID + " IS NOT NULL" +
+                ", e." + ApodDatabase.COLUMN_MEDIA_TYPE + ", e." + ApodDatabase.COLUMN_THUMBNAIL_URL +
+                ", h." + ApodDatabase.COLUMN_VIEW_COUNT +
+                " FROM " + ApodDatabase.rankedSearchSubquery() + " m" +
+                " JOIN " + ApodDatabase.TABLE_APOD_ENTRY + " e ON e." + ApodDatabase.COLUMN_ID + " = m." + ApodDatabase.COLUMN_DOCID +
+                " JOIN " + ApodDatabase.TABLE_HISTORY + " h ON h." + ApodDatabase.COLUMN_ENTRY_ID + " = e." + ApodDatabase.COLUMN_ID +
+                " LEFT JOIN " + ApodDatabase.TABLE_SAVED + " s ON s." + ApodDatabase.COLUMN_ENTRY_ID + " = e." + ApodDatabase.COLUMN_ID +
+                " ORDER BY m." + ApodDatabase.COLUMN_RANK + ", h." + ApodDatabase.COLUMN_ID + " DESC LIMIT " + limit;
+    }
+
+    /**
+     * Retrieves the history records whose entry date or access time falls between two dates, sorted
+     * by the same column. Both columns hold ISO-8601 text and are indexed, so the filter and the sort
+     * are served by one range scan of the index without sorting the results afterwards.
+     *
+     * @param column      The column to filter and sort by.
+     * @param startDate   The first date of the range, inclusive.
+     * @param endDate     The last date of the range, inclusive.
+     * @param newestFirst Whether to return the newest records first instead of the oldest.
+     * @param limit       The maximum number of records to return, or -1 for no limit.
+     * @return A list of ImageItem objects representing the history records in the range.
+     */
+    public List<ImageItem> getHistoryBetween(DateColumn column, String startDate, String endDate, boolean newestFirst, int limit) {
+        SQLiteDatabase db = database.getReadableDatabase();
+        Cursor cursor = db.rawQuery(historyBetweenSql(column, newestFirst, limit),
+                ApodDatabase.dateRangeArgs(startDate, endDate));
+        return readHistory(cursor);
+    }
+
+    /**
+     * Builds the query of {@link #getHistoryBetween(DateColumn, String, String, boolean, int)}. The range
+     * is half-open on the day after the end date so that access times on the end date are included.
+     *
+     * @param column      The column to filter and sort by.
+     * @param newestFirst Whether to sort in descending order.
+     * @param limit       The maximum number of records to return, or -1 for no limit.
+     * @return The query, taking the bounds returned by {@link ApodDatabase#dateRangeArgs(String, String)}.
+     */
+    @VisibleForTesting
+    static String historyBetweenSql(DateColumn column, boolean newestFirst, int limit) {
+        String sortColumn = column == DateColumn.DATE
+                ? "e." + ApodDatabase.COLUMN_DATE
+                : "h." + ApodDatabase.COLUMN_DATE_ACCESSED;
+        String direction = newestFirst ? " DESC" : "";
+        return "SELECT h." + ApodDatabase.COLUMN_ID + ", e." + ApodDatabase.COLUMN_URL +
+                ", e." + ApodDatabase.COLUMN_DATE + ", e." + ApodDatabase.COLUMN_EXPLANATION +
+                ", h." + ApodDatabase.COLUMN_DATE_ACCESSED + ", s." + ApodDatabase.COLUMN_ID + " IS NOT NULL" +
+                ", e." + ApodDatabase.COLUMN_MEDIA_TYPE + ", e." + ApodDatabase.COLUMN_THUMBNAIL_URL +
+                ", h." + ApodDatabase.COLUMN_VIEW_COUNT +
+                " FROM " + ApodDatabase.TABLE_HISTORY + " h" +
+                " JOIN " + ApodDatabase.TABLE_APOD_ENTRY + " e ON e." + ApodDatabase.COLUMN_ID + " = h." + ApodDatabase.COLUMN_ENTRY_ID +
+                " LEFT JOIN " + ApodDatabase.TABLE_SAVED + " s ON s." + ApodDatabase.COLUMN_ENTRY_ID + " = e." + ApodDatabase.COLUMN_ID +
+                " WHERE " + sortColumn + " >= ? AND " + sortColumn + " < ?" +
+                " ORDER BY " + sortColumn + direction + " LIMIT " + limit;
+    }
+
+    /**
+     * Queries history records with IDs below the given ID, newest first.
+     *
+     * @param beforeId The exclusive upper bound of the record IDs.
+     * @param limit    The maximum number of records to return, or -1 for no limit.
      * @return A list of ImageItem objects representing the history records.
      */
-    public List<ImageItem> getAllHistory() {
+    private List<ImageItem> queryHistory(long beforeId, int limit) {
+        SQLiteDatabase db = database.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT h." + ApodDatabase.COLUMN_ID + ", e." + ApodDatabase.COLUMN_URL +
+                ", e." + ApodDatabase.COLUMN_DATE + ", e." + ApodDatabase.COLUMN_EXPLANATION +
+                ", h." + ApodDatabase.COLUMN_DATE_ACCESSED + ", s." + ApodDatabase.COLUMN_ID + " IS NOT NULL" +
+                ", e." + ApodDatabase.COLUMN_MEDIA_TYPE + ", e." + ApodDatabase.COLUMN_THUMBNAIL_URL +
+                ", h." + ApodDatabase.COLUMN_VIEW_COUNT +
+                " FROM " + ApodDatabase.TABLE_HISTORY + " h" +
+                " JOIN " + ApodDatabase.TABLE_APOD_ENTRY + " e ON e." + ApodDatabase.COLUMN_ID + " = h." + ApodDatabase.COLUMN_ENTRY_ID +
+                " LEFT JOIN " + ApodDatabase.TABLE_SAVED + " s ON s." + ApodDatabase.COLUMN_ENTRY_ID + " = e." + ApodDatabase.COLUMN_ID +
+                " WHERE h." + ApodDatabase.COLUMN_ID + " < ?" +
+                " ORDER BY h." + ApodDatabase.COLUMN_ID + " DESC LIMIT " + limit,
+                new String[]{String.valueOf(beforeId)});
+        return readHistory(cursor);
+    }
+
+    /**
+     * Reads the history records of a cursor over the columns selected by {@link #queryHistory(long, int)}
+     * and closes it.
+     *
+     * @param cursor The cursor.
+     * @return A list of ImageItem objects representing the history records.
+     */
+    private static List<ImageItem> readHistory(Cursor cursor) {
         List<ImageItem> historyItemList = new ArrayList<>();
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.query(TABLE_HISTORY, null, null, null, null, null, COLUMN_ID + " DESC");
-
-        if (cursor != null) {
-            int idIndex = cursor.getColumnIndex(COLUMN_ID);
-            int urlIndex = cursor.getColumnIndex(COLUMN_URL);
-            int dateIndex = cursor.getColumnIndex(COLUMN_DATE);
-            int descriptionIndex = cursor.getColumnIndex(COLUMN_DESCRIPTION);
-            int dateAccessedIndex = cursor.getColumnIndex(COLUMN_DATE_ACCESSED);
-
-            while (cursor.moveToNext()) {
-                if (idIndex != -1 && urlIndex != -1 && dateIndex != -1 && descriptionIndex != -1 && dateAccessedIndex != -1) {
-                    long id = cursor.getLong(idIndex);
-                    String url = cursor.getString(urlIndex);
-                    String date = cursor.getString(dateIndex);
-                    String description = cursor.getString(descriptionIndex);
-                    String dateAccessed = cursor.getString(dateAccessedIndex);
-
-                    ImageItem historyItem = new ImageItem(id, url, date, description, dateAccessed);
-                    historyItemList.add(historyItem);
-                }
-            }
-            cursor.close();
+        while (cursor.moveToNext()) {
+            long id = cursor.getLong(0);
+            String url = cursor.getString(1);
+            String date = cursor.getString(2);
+            String description = cursor.getString(3);
+            String dateAccessed = cursor.getString(4);
+            boolean saved = cursor.getInt(5) != 0;
+            String mediaType = cursor.getString(6);
+            String thumbnailUrl = cursor.getString(7);
+            int viewCount = cursor.getInt(8);
+
+            ImageItem historyItem = new ImageItem(id, url, date, description, dateAccessed, saved, null, mediaType,
+                    thumbnailUrl, viewCount);
+            historyItemList.add(historyItem);
         }
-        db.close();
+        cursor.close();
         return historyItemList;
     }
+
+    /**
+     * A view of an image that is waiting to be written to the history.
+     */
+    public static final class PendingView {
+
+        private final ApodEntry entry;
+        private final String dateAccessed;
+
+        /**
+         * Constructs a new PendingView.
+         *
+         * @param url          The URL of the image.
+         * @param date         The date of the image.
+         * @param description  The description of the image.
+         * @param dateAccessed The date and time the image was accessed.
+         */
+        public PendingView(String url, String date, String description, String dateAccessed) {
+            this(new ApodEntry(date, url, null, null, description, null), dateAccessed);
+        }
+
+        /**
+         * Constructs a new PendingView of an entry, which is stored with all its details if it is not
+         * stored yet.
+         *
+         * @param entry        The entry that was viewed.
+         * @param dateAccessed The date and time the image was accessed.
+         */
+        public PendingView(ApodEntry entry, String dateAccessed) {
+            this.entry = entry;
+            this.dateAccessed = dateAccessed;
+        }
+    }
+
+    /**
+     * The date columns history records can be filtered and sorted by.
+     */
+    public enum DateColumn {
+        /**
+         * The date of the APOD entry.
+         */
+        DATE,
+
+        /**
+         * The date and time the image was accessed.
+         */
+        DATE_ACCESSED
+    }
 }
@@ -0,0 +1,232 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HistoryRecorder buffers the views of images and writes them to the history in batches, so viewing
+ * images never costs a database transaction each. Buffered views are flushed a few seconds after the
+ * first one, when the buffer is full, or when the screen is left. Optionally, repeated views of the
+ * same image are combined into one record with a view count. {@link HistoryRetentionWorker} keeps the
+ * history within the retention policy defined here.
+ */
+public class HistoryRecorder {
+
+    private static final String TAG = "HistoryRecorder";
+
+    /**
+     * The delay after the first buffered view before the buffer is flushed.
+     */
+    static final long FLUSH_DELAY_MS = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * The number of buffered views that triggers a flush without waiting for the delay.
+     */
+    static final int MAX_BUFFERED_VIEWS = 20;
+
+    /**
+     * The maximum number of history records kept.
+     */
+    static final int MAX_HISTORY_ROWS = 1000;
+
+    /**
+     * The maximum age of history records kept.
+     */
+    static final long MAX_HISTORY_AGE_MS = TimeUnit.DAYS.toMillis(365);
+
+    /**
+     * The name of the preferences that hold the history settings.
+     */
+    static final String PREFS_NAME = "history_settings";
+
+    /**
+     * The preference key of whether repeated views of the same image are combined.
+     */
+    static final String KEY_COMBINE_VIEWS = "combine_repeated_views";
+
+    private static HistoryRecorder instance;
+
+    private final HistoryDatabaseHelper historyDatabaseHelper;
+    private final SharedPreferences preferences;
+    private final Executor diskIO;
+    private final Handler handler;
+    private final long flushDelayMs;
+    private final int maxRows;
+    private final long maxAgeMs;
+
+    /**
+     * The views that have not been written yet, oldest first. Guarded by this.
+     */
+    private List<HistoryDatabaseHelper.PendingView> buffer = new ArrayList<>();
+
+    private final Runnable flushTask = this::flush;
+
+    /**
+     * Returns the shared HistoryRecorder, creating it on first use.
+     *
+     * @param context The context used to locate the database and the preferences.
+     * @return The shared HistoryRecorder instance.
+     */
+    public static synchronized HistoryRecorder getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new HistoryRecorder(HistoryDatabaseHelper.getInstance(appContext),
+                    appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE),
+                    AppExecutors.getInstance().diskIO(), new Handler(Looper.getMainLooper()),
+                    FLUSH_DELAY_MS, MAX_HISTORY_ROWS, MAX_HISTORY_AGE_MS);
+        }
+        return instance;
+    }
+
+    /**
+     * Discards the shared instance and its pending timers so the next call to
+     * {@link #getInstance(Context)} creates a new one. Buffered views are dropped.
+     */
+    @VisibleForTesting
+    static synchronized void resetInstance() {
+        if (instance != null) {
+            instance.handler.removeCallbacks(instance.flushTask);
+            instance = null;
+        }
+    }
+
+    /**
+     * Constructs a new HistoryRecorder.
+     *
+     * @param historyDatabaseHelper The helper that writes the history.
+     * @param preferences           The preferences that hold the history settings.
+     * @param diskIO                The executor that runs the database writes, one at a time.
+     * @param handler               The handler of the main thread, used for the timers.
+     * @param flushDelayMs          The delay after the first buffered view before the buffer is flushed.
+     * @param maxRows               The maximum number of history records kept.
+     * @param maxAgeMs              The maximum age of history records kept.
+     */
+    public HistoryRecorder(HistoryDatabaseHelper historyDatabaseHelper, SharedPreferences preferences, Executor diskIO,
+                           Handler handler, long flushDelayMs, int maxRows, long maxAgeMs) {
+        this.historyDatabaseHelper = historyDatabaseHelper;
+        this.preferences = preferences;
+        this.diskIO = diskIO;
+        this.handler = handler;
+        this.flushDelayMs = flushDelayMs;
+        this.maxRows = maxRows;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Buffers the view of an image. Must be called on the main thread.
+     *
+     * @param url          The URL of the image.
+     * @param date         The date of the image.
+     * @param description  The description of the image.
+     * @param dateAccessed The date and time the image was accessed.
+     */
+    public void record(String url, String date, String description, String dateAccessed) {
+        record(new HistoryDatabaseHelper.PendingView(url, date, description, dateAccessed));
+    }
+
+    /**
+     * Records a view of an entry, like {@link #record(String, String, String, String)}. An entry that is
+     * not stored yet is stored with all its details, so its title and explanation can be searched.
+     * Must be called on the main thread.
+     *
+     * @param entry        The entry that was viewed.
+     * @param dateAccessed The date and time the image was accessed.
+     */
+    public void record(ApodEntry entry, String dateAccessed) {
+        record(new HistoryDatabaseHelper.PendingView(entry, dateAccessed));
+    }
+
+    /**
+     * Buffers a view and schedules or triggers the flush of the buffer.
+     *
+     * @param view The view to buffer.
+     */
+    private void record(HistoryDatabaseHelper.PendingView view) {
+        int buffered;
+        synchronized (this) {
+            buffer.add(view);
+            buffered = buffer.size();
+        }
+        if (buffered >= MAX_BUFFERED_VIEWS) {
+            flush();
+        } else if (buffered == 1) {
+            handler.postDelayed(flushTask, flushDelayMs);
+        }
+    }
+
+    /**
+     * Writes all buffered views to the history in one transaction on the disk executor. Because the
+     * disk executor runs tasks in order, anything that reads the history after a flush sees the views.
+     * Must be called on the main thread.
+     */
+    public void flush() {
+        handler.removeCallbacks(flushTask);
+        List<HistoryDatabaseHelper.PendingView> views;
+        synchronized (this) {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            views = buffer;
+            buffer = new ArrayList<>();
+        }
+        diskIO.execute(() -> {
+            int written = historyDatabaseHelper.insertHistory(views, isCombiningViews());
+            if (written < views.size()) {
+                Log.w(TAG, "Wrote " + written + " of " + views.size() + " history records");
+            }
+        });
+    }
+
+    /**
+     * Returns the number of views that have not been written yet.
+     *
+     * @return The number of buffered views.
+     */
+    public synchronized int getBufferedCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Returns whether repeated views of the same image are combined into one history record.
+     *
+     * @return true if repeated views are combined.
+     */
+    public boolean isCombiningViews() {
+        return preferences.getBoolean(KEY_COMBINE_VIEWS, false);
+    }
+
+    /**
+     * Sets whether repeated views of the same image are combined into one history record. Existing
+     * records are not changed; see {@link HistoryDatabaseHelper#compactHistory()}.
+     *
+     * @param combine true to combine repeated views.
+     */
+    public void setCombiningViews(boolean combine) {
+        preferences.edit().putBoolean(KEY_COMBINE_VIEWS, combine).apply();
+    }
+
+    /**
+     * Deletes the history records beyond the maximum number of records or older than the maximum age,
+     * on the calling thread. Called by {@link HistoryRetentionWorker}.
+     *
+     * @return The number of records deleted.
+     */
+    int enforceRetention() {
+        String oldestAccessTime = ApodDates.formatTimestamp(System.currentTimeMillis() - maxAgeMs);
+        int deleted = historyDatabaseHelper.deleteExpiredHistory(maxRows, oldestAccessTime);
+        if (deleted > 0) {
+            Log.i(TAG, "Deleted " + deleted + " expired history records");
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.database.SQLException;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HistoryRetentionWorker keeps the history within the retention policy of {@link HistoryRecorder}.
+ * It runs periodically through WorkManager, so the history is trimmed even if the app is never left
+ * running for long, and only while the battery is not low, since the work can always wait.
+ */
+public class HistoryRetentionWorker extends Worker {
+
+    private static final String TAG = "HistoryRetentionWorker";
+
+    /**
+     * The name under which the periodic retention work is enqueued, so that it is only scheduled once.
+     */
+    static final String UNIQUE_WORK_NAME = "history_retention";
+
+    /**
+     * The interval between runs.
+     */
+    static final long RETENTION_INTERVAL_HOURS = 6;
+
+    private final HistoryRecorder historyRecorder;
+
+    /**
+     * Constructs a new HistoryRetentionWorker with the shared HistoryRecorder. Called by WorkManager.
+     *
+     * @param context The application context.
+     * @param params  The parameters of this run.
+     */
+    public HistoryRetentionWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        this(context, params, HistoryRecorder.getInstance(context));
+    }
+
+    /**
+     * Constructs a new HistoryRetentionWorker.
+     *
+     * @param context         The application context.
+     * @param params          The parameters of this run.
+     * @param historyRecorder The recorder whose retention policy is enforced.
+     */
+    HistoryRetentionWorker(@NonNull Context context, @NonNull WorkerParameters params, HistoryRecorder historyRecorder) {
+        super(context, params);
+        this.historyRecorder = historyRecorder;
+    }
+
+    /**
+     * Schedules the periodic retention work unless it is already scheduled.
+     *
+     * @param context The context used to obtain the WorkManager.
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(HistoryRetentionWorker.class,
+                RETENTION_INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Deletes the history records outside the retention policy. Runs on a WorkManager background thread.
+     *
+     * @return success once the policy is enforced, or failure to wait for the next period if the
+     * database could not be written.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            historyRecorder.enforceRetention();
+            return Result.success();
+        } catch (SQLException e) {
+            Log.w(TAG, "Could not enforce the history retention policy", e);
+            return Result.failure();
+        }
+    }
+}
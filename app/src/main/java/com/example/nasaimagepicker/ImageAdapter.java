@@ -1,61 +1,408 @@
 package com.example.nasaimagepicker;
 
-import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.ImageView;
 import android.widget.TextView;
 
-import com.squareup.picasso.Picasso;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
- * ImageAdapter is a custom ArrayAdapter for displaying ImageItem objects in a ListView.
+ * ImageAdapter displays ImageItem objects in a RecyclerView.
  * It handles the binding of image data, including the URL, date, and image itself, to the views in the list item layout.
+ * Changes to the list are diffed on a background thread, so adding or removing one item only rebinds the affected rows.
+ * Thumbnail requests carry the tag of the owning screen; they are paused while the list is flung and
+ * cancelled when their row is recycled. Once a {@link SelectionListener} is set, a long press selects
+ * items and, while any item is selected, a tap toggles the selection instead of opening the item.
  */
-public class ImageAdapter extends ArrayAdapter<ImageItem> {
+public class ImageAdapter extends ListAdapter<ImageItem, ImageAdapter.ViewHolder> {
+
+    /**
+     * Identifies items by their database ID and compares their contents by value.
+     */
+    static final DiffUtil.ItemCallback<ImageItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<ImageItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ImageItem oldItem, @NonNull ImageItem newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ImageItem oldItem, @NonNull ImageItem newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
+    /**
+     * The payload of a change that only affects whether a row is selected, so the row is rebound
+     * without reloading its thumbnail.
+     */
+    private static final Object PAYLOAD_SELECTION = new Object();
+
+    private final Object requestTag;
+    private final OnItemClickListener onItemClickListener;
+    private final OnItemLongClickListener onItemLongClickListener;
+
+    /**
+     * The list most recently submitted, which may be newer than the list currently displayed while a
+     * diff is still being computed.
+     */
+    private List<ImageItem> items = Collections.emptyList();
+
+    /**
+     * The IDs of the selected items, in the order they were selected.
+     */
+    private final Set<Long> selectedIds = new LinkedHashSet<>();
+
+    private SelectionListener selectionListener;
+
+    /**
+     * Pauses thumbnail loading while the list is flung and resumes it once the list slows down.
+     */
+    private final RecyclerView.OnScrollListener flingListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+            ThumbnailLoader thumbnailLoader = ThumbnailLoader.getInstance(recyclerView.getContext());
+            if (newState == RecyclerView.SCROLL_STATE_SETTLING) {
+                thumbnailLoader.pauseTag(requestTag);
+            } else {
+                thumbnailLoader.resumeTag(requestTag);
+            }
+        }
+    };
 
     /**
      * Constructs a new ImageAdapter.
      *
-     * @param context    The current context. Used to inflate the layout file.
-     * @param imageItems A list of ImageItem objects to display in the ListView.
+     * @param requestTag              The tag of the owning screen, attached to every thumbnail request.
+     * @param onItemClickListener     The listener notified when an item is clicked, or null.
+     * @param onItemLongClickListener The listener notified when an item is long-pressed, or null.
      */
-    public ImageAdapter(Context context, List<ImageItem> imageItems) {
-        super(context, 0, imageItems);
+    public ImageAdapter(Object requestTag, OnItemClickListener onItemClickListener, OnItemLongClickListener onItemLongClickListener) {
+        super(DIFF_CALLBACK);
+        this.requestTag = requestTag;
+        this.onItemClickListener = onItemClickListener;
+        this.onItemLongClickListener = onItemLongClickListener;
+        setHasStableIds(true);
     }
 
     /**
-     * Provides a view for an AdapterView (ListView, GridView, etc.).
+     * Replaces the displayed items.
      *
-     * @param position    The position of the item within the adapter's data set of the item whose view we want.
-     * @param convertView The old view to reuse, if possible. Note: You should check that this view is non-null and of an appropriate type before using it.
-     * @param parent      The parent that this view will eventually be attached to.
-     * @return A View corresponding to the data at the specified position.
+     * @param list The new items.
      */
     @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        if (convertView == null) {
-            convertView = LayoutInflater.from(getContext()).inflate(R.layout.image_item, parent, false);
+    public void submitList(List<ImageItem> list) {
+        items = list != null ? list : Collections.<ImageItem>emptyList();
+        super.submitList(list);
+    }
+
+    /**
+     * Appends items to the end of the list.
+     *
+     * @param page The items to append.
+     */
+    public void appendItems(List<ImageItem> page) {
+        if (page.isEmpty()) {
+            return;
+        }
+        List<ImageItem> list = new ArrayList<>(items.size() + page.size());
+        list.addAll(items);
+        list.addAll(page);
+        submitList(list);
+    }
+
+    /**
+     * Removes an item from the list.
+     *
+     * @param item The item to remove.
+     */
+    public void removeItem(ImageItem item) {
+        List<ImageItem> list = new ArrayList<>(items);
+        if (list.remove(item)) {
+            submitList(list);
+        }
+    }
+
+    /**
+     * Returns the number of items submitted so far, including any whose diff has not been applied yet.
+     *
+     * @return The number of submitted items.
+     */
+    public int getSubmittedItemCount() {
+        return items.size();
+    }
+
+    /**
+     * Removes every item that matches a filter from the list, and from the selection, in one update.
+     *
+     * @param filter The filter of the items to remove.
+     */
+    public void removeItems(Predicate<ImageItem> filter) {
+        List<ImageItem> list = new ArrayList<>(items.size());
+        boolean selectionChanged = false;
+        for (ImageItem item : items) {
+            if (filter.test(item)) {
+                selectionChanged |= selectedIds.remove(item.getId());
+            } else {
+                list.add(item);
+            }
+        }
+        if (list.size() != items.size()) {
+            submitList(list);
+        }
+        if (selectionChanged) {
+            notifySelectionChanged();
+        }
+    }
+
+    /**
+     * Enables the selection of items and sets the listener notified when the selection changes.
+     *
+     * @param selectionListener The listener, or null to disable selection.
+     */
+    public void setSelectionListener(SelectionListener selectionListener) {
+        this.selectionListener = selectionListener;
+    }
+
+    /**
+     * Selects an item if it is not selected, or deselects it otherwise.
+     *
+     * @param item The item to toggle.
+     */
+    public void toggleSelection(ImageItem item) {
+        if (!selectedIds.remove(item.getId())) {
+            selectedIds.add(item.getId());
+        }
+        int position = getCurrentList().indexOf(item);
+        if (position != -1) {
+            notifyItemChanged(position, PAYLOAD_SELECTION);
+        }
+        notifySelectionChanged();
+    }
+
+    /**
+     * Deselects all items.
+     */
+    public void clearSelection() {
+        if (selectedIds.isEmpty()) {
+            return;
+        }
+        selectedIds.clear();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        notifySelectionChanged();
+    }
+
+    /**
+     * Returns whether any item is selected.
+     *
+     * @return true if at least one item is selected.
+     */
+    public boolean hasSelection() {
+        return !selectedIds.isEmpty();
+    }
+
+    /**
+     * Returns the IDs of the selected items.
+     *
+     * @return A copy of the IDs of the selected items, in the order they were selected.
+     */
+    public List<Long> getSelectedIds() {
+        return new ArrayList<>(selectedIds);
+    }
+
+    /**
+     * Tells the selection listener, if any, how many items are selected now.
+     */
+    private void notifySelectionChanged() {
+        if (selectionListener != null) {
+            selectionListener.onSelectionChanged(selectedIds.size());
         }
+    }
+
+    /**
+     * Returns the database ID of the item at the given position, which stays the same while the item moves.
+     *
+     * @param position The adapter position of the item.
+     * @return The ID of the item.
+     */
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
+    }
 
+    /**
+     * Inflates a new list item view and caches its child views in a ViewHolder.
+     *
+     * @param parent   The ViewGroup into which the new view will be added.
+     * @param viewType The view type of the new view.
+     * @return A new ViewHolder for the list item view.
+     */
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.image_item, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                return;
+            }
+            if (selectionListener != null && hasSelection()) {
+                toggleSelection(getItem(position));
+            } else if (onItemClickListener != null) {
+                onItemClickListener.onItemClick(getItem(position));
+            }
+        });
+        view.setOnLongClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                return false;
+            }
+            if (selectionListener != null) {
+                toggleSelection(getItem(position));
+                return true;
+            }
+            if (onItemLongClickListener != null) {
+                onItemLongClickListener.onItemLongClick(getItem(position));
+                return true;
+            }
+            return false;
+        });
+        return holder;
+    }
+
+    /**
+     * Binds the item at the given position to a ViewHolder.
+     *
+     * @param holder   The ViewHolder to bind.
+     * @param position The position of the item within the adapter's data set.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         ImageItem imageItem = getItem(position);
+        holder.itemView.setActivated(selectedIds.contains(imageItem.getId()));
+        holder.dateTextView.setText(imageItem.getDate());
+        holder.urlTextView.setText(imageItem.getImageUrl());
 
-        ImageView imageView = convertView.findViewById(R.id.image_view);
-        TextView dateTextView = convertView.findViewById(R.id.date_text_view);
-        TextView urlTextView = convertView.findViewById(R.id.url_text_view);
+        // Load a thumbnail sized to the ImageView rather than the full-resolution image, and the
+        // still thumbnail rather than the player page of a video
+        ThumbnailLoader.getInstance(holder.itemView.getContext()).load(imageItem.getPreviewUrl(), holder.imageView, requestTag);
+    }
 
-        if (imageItem != null) {
-            dateTextView.setText(imageItem.getDate());
-            urlTextView.setText(imageItem.getImageUrl());
+    /**
+     * Binds the item at the given position to a ViewHolder, only updating the selection state of the
+     * row when that is all that changed.
+     *
+     * @param holder   The ViewHolder to bind.
+     * @param position The position of the item within the adapter's data set.
+     * @param payloads The payloads of the changes, empty for a full bind.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.stream().allMatch(payload -> payload == PAYLOAD_SELECTION)) {
+            holder.itemView.setActivated(selectedIds.contains(getItem(position).getId()));
+            return;
+        }
+        onBindViewHolder(holder, position);
+    }
 
-            // Load the image from the URL into the ImageView using Picasso
-            Picasso.get().load(imageItem.getImageUrl()).into(imageView);
+    /**
+     * Cancels the thumbnail request of a row that is being recycled, so no bandwidth or decode time is
+     * spent on an image that is no longer shown.
+     *
+     * @param holder The ViewHolder being recycled.
+     */
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        ThumbnailLoader.getInstance(holder.itemView.getContext()).cancelRequest(holder.imageView);
+    }
+
+    /**
+     * Starts pausing thumbnail loading during flings of the RecyclerView.
+     *
+     * @param recyclerView The RecyclerView the adapter is attached to.
+     */
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(flingListener);
+    }
+
+    /**
+     * Stops listening to flings of the RecyclerView.
+     *
+     * @param recyclerView The RecyclerView the adapter is detached from.
+     */
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        recyclerView.removeOnScrollListener(flingListener);
+    }
+
+    /**
+     * ViewHolder caches the child views of a list item so they are looked up only once per view.
+     */
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+
+        final ImageView imageView;
+        final TextView dateTextView;
+        final TextView urlTextView;
+
+        /**
+         * Constructs a new ViewHolder.
+         *
+         * @param itemView The list item view.
+         */
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            imageView = itemView.findViewById(R.id.image_view);
+            dateTextView = itemView.findViewById(R.id.date_text_view);
+            urlTextView = itemView.findViewById(R.id.url_text_view);
         }
+    }
+
+    /**
+     * Listener notified when an item is clicked.
+     */
+    public interface OnItemClickListener {
+        /**
+         * Called when an item is clicked.
+         *
+         * @param imageItem The clicked item.
+         */
+        void onItemClick(ImageItem imageItem);
+    }
+
+    /**
+     * Listener notified when an item is long-pressed.
+     */
+    public interface OnItemLongClickListener {
+        /**
+         * Called when an item is long-pressed.
+         *
+         * @param imageItem The long-pressed item.
+         */
+        void onItemLongClick(ImageItem imageItem);
+    }
 
-        return convertView;
+    /**
+     * Listener notified when the selection changes.
+     */
+    public interface SelectionListener {
+        /**
+         * Called when an item is selected or deselected.
+         *
+         * @param selectedCount The number of items selected now.
+         */
+        void onSelectionChanged(int selectedCount);
     }
 }
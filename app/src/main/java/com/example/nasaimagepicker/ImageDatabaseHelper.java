@@ -3,97 +3,134 @@ package com.example.nasaimagepicker;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
- * ImageDatabaseHelper is a SQLiteOpenHelper subclass that manages the database
- * used for storing and retrieving saved images in the NASA Image Picker app.
- * This database ensures that each image's URL is unique.
+ * ImageDatabaseHelper stores and retrieves saved images in the NASA Image Picker app.
+ * Saved images are rows of the saved table in {@link ApodDatabase} that refer to an APOD entry,
+ * so each entry (and therefore each image URL) can only be saved once.
  */
-public class ImageDatabaseHelper extends SQLiteOpenHelper {
+public class ImageDatabaseHelper {
+
+    private static final String TAG = "ImageDatabaseHelper";
 
-    private static final String DATABASE_NAME = "saved_images.db";
-    private static final int DATABASE_VERSION = 1;
+    private static ImageDatabaseHelper instance;
 
-    private static final String TABLE_IMAGES = "images";
-    private static final String COLUMN_ID = "_id";
-    private static final String COLUMN_URL = "url";
-    private static final String COLUMN_DATE = "date";
-    private static final String COLUMN_DESCRIPTION = "description";
+    private final ApodDatabase database;
 
     /**
-     * Constructs a new instance of ImageDatabaseHelper.
+     * Returns the shared ImageDatabaseHelper, creating it on first use.
      *
      * @param context The context to use for locating paths to the database.
+     * @return The shared ImageDatabaseHelper instance.
      */
-    public ImageDatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    public static synchronized ImageDatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new ImageDatabaseHelper(ApodDatabase.getInstance(context));
+        }
+        return instance;
     }
 
     /**
-     * Called when the database is created for the first time.
-     * This method creates the images table with a unique constraint on the URL column.
-     *
-     * @param db The database.
+     * Discards the shared instance and closes the shared database so the next call to
+     * {@link #getInstance(Context)} opens a new one.
      */
-    @Override
-    public void onCreate(SQLiteDatabase db) {
-        String createTable = "CREATE TABLE " + TABLE_IMAGES + " (" +
-                COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                COLUMN_URL + " TEXT UNIQUE, " +  // Ensuring URL is unique
-                COLUMN_DATE + " TEXT, " +
-                COLUMN_DESCRIPTION + " TEXT)";
-        db.execSQL(createTable);
+    @VisibleForTesting
+    static synchronized void resetInstance() {
+        instance = null;
+        ApodDatabase.resetInstance();
     }
 
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-
+    /**
+     * Constructs a new instance of ImageDatabaseHelper.
+     *
+     * @param database The shared database.
+     */
+    private ImageDatabaseHelper(ApodDatabase database) {
+        this.database = database;
     }
 
     /**
-     * Inserts a new image record into the database.
+     * Saves an image in a single transaction. The entry is created if needed and the saved row is
+     * inserted with ON CONFLICT IGNORE, so the unique constraint on the entry decides atomically
+     * whether the image was already saved.
      *
      * @param url         The URL of the image.
      * @param date        The date the image was saved.
      * @param description The description of the image.
-     * @return true if the insertion was successful, false otherwise.
+     * @return Whether the image was newly saved, was already saved, or could not be saved.
      */
-    public boolean insertImage(String url, String date, String description) {
-        if (imageExists(url)) {
-            return false; // Image already exists in the database
-        }
+    public SaveResult insertImage(String url, String date, String description) {
+        return insertImage(new ApodEntry(date, url, null, null, description, null));
+    }
 
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues contentValues = new ContentValues();
-        contentValues.put(COLUMN_URL, url);
-        contentValues.put(COLUMN_DATE, date);
-        contentValues.put(COLUMN_DESCRIPTION, description);
+    /**
+     * Saves the image of an entry in a single transaction, like {@link #insertImage(String, String, String)}.
+     * An entry that is not stored yet is created with all its details, so its title and explanation
+     * can be searched.
+     *
+     * @param entry The entry whose image should be saved.
+     * @return Whether the image was newly saved, was already saved, or could not be saved.
+     */
+    public SaveResult insertImage(ApodEntry entry) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SaveResult result = insertImage(db, entry);
+            db.setTransactionSuccessful();
+            return result;
+        } catch (SQLException e) {
+            Log.e(TAG, "Failed to save image " + entry.getUrl(), e);
+            return SaveResult.ERROR;
+        } finally {
+            db.endTransaction();
+        }
+    }
 
-        long result = db.insert(TABLE_IMAGES, null, contentValues);
-        db.close();
-        return result != -1;
+    /**
+     * Saves several images in one batched transaction.
+     *
+     * @param entries The entries whose images should be saved.
+     * @return The number of images that were newly saved; images that were already saved are skipped.
+     */
+    public int insertImages(List<ApodEntry> entries) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        int saved = 0;
+        db.beginTransaction();
+        try {
+            for (ApodEntry entry : entries) {
+                if (insertImage(db, entry) == SaveResult.NEW) {
+                    saved++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return saved;
     }
 
     /**
-     * Checks if an image with the given URL already exists in the database.
+     * Inserts a saved row for an entry, creating the entry if needed.
      *
-     * @param url The URL of the image to check.
-     * @return true if the image exists, false otherwise.
+     * @param db    The database, inside a transaction.
+     * @param entry The entry whose image is saved.
+     * @return NEW if the row was inserted, ALREADY_SAVED if the entry was already saved.
      */
-    private boolean imageExists(String url) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.query(TABLE_IMAGES, new String[]{COLUMN_ID},
-                COLUMN_URL + "=?", new String[]{url}, null, null, null);
+    private static SaveResult insertImage(SQLiteDatabase db, ApodEntry entry) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(ApodDatabase.COLUMN_ENTRY_ID, ApodDatabase.ensureEntry(db, entry));
 
-        boolean exists = (cursor.getCount() > 0);
-        cursor.close();
-        db.close();
-        return exists;
+        long result = db.insertWithOnConflict(ApodDatabase.TABLE_SAVED, null, contentValues, SQLiteDatabase.CONFLICT_IGNORE);
+        return result != -1 ? SaveResult.NEW : SaveResult.ALREADY_SAVED;
     }
 
     /**
@@ -103,42 +140,261 @@ public class ImageDatabaseHelper extends SQLiteOpenHelper {
      * @return true if the deletion was successful, false otherwise.
      */
     public boolean deleteImage(long id) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        int result = db.delete(TABLE_IMAGES, COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
-        db.close();
+        SQLiteDatabase db = database.getWritableDatabase();
+        int result = db.delete(ApodDatabase.TABLE_SAVED, ApodDatabase.COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
         return result > 0;
     }
 
+    /**
+     * Deletes the given saved images with a single statement.
+     *
+     * @param ids The IDs of the saved image records to delete.
+     * @return The paths of the downloaded files of the deleted images, one per deleted image and null
+     * for images that were not downloaded.
+     */
+    public List<String> deleteImages(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return deleteImagesWhere(ApodDatabase.COLUMN_ID + " IN " + ApodDatabase.idList(ids), null);
+    }
+
+    /**
+     * Deletes all saved images.
+     *
+     * @return The paths of the downloaded files of the deleted images, one per deleted image and null
+     * for images that were not downloaded.
+     */
+    public List<String> deleteAllImages() {
+        return deleteImagesWhere(null, null);
+    }
+
+    /**
+     * Deletes the saved images of entries dated before the given date, with a range scan of the index
+     * on the entry date.
+     *
+     * @param date The earliest entry date to keep.
+     * @return The paths of the downloaded files of the deleted images, one per deleted image and null
+     * for images that were not downloaded.
+     */
+    public List<String> deleteImagesOlderThan(String date) {
+        return deleteImagesWhere(ApodDatabase.COLUMN_ENTRY_ID + " IN (SELECT " + ApodDatabase.COLUMN_ID +
+                " FROM " + ApodDatabase.TABLE_APOD_ENTRY + " WHERE " + ApodDatabase.COLUMN_DATE + " < ?)",
+                new String[]{ApodDates.normalize(date)});
+    }
+
+    /**
+     * Reads the local paths of the saved images that match a condition and deletes them with one
+     * DELETE statement, in a single transaction.
+     *
+     * @param whereClause The condition on the saved table, or null for all rows.
+     * @param whereArgs   The arguments of the condition, or null.
+     * @return The local paths of the deleted images, one per deleted image.
+     */
+    private List<String> deleteImagesWhere(String whereClause, String[] whereArgs) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        List<String> localPaths = new ArrayList<>();
+        db.beginTransaction();
+        try {
+            Cursor cursor = db.query(ApodDatabase.TABLE_SAVED, new String[]{ApodDatabase.COLUMN_LOCAL_PATH},
+                    whereClause, whereArgs, null, null, null);
+            try {
+                while (cursor.moveToNext()) {
+                    localPaths.add(cursor.getString(0));
+                }
+            } finally {
+                cursor.close();
+            }
+            db.delete(ApodDatabase.TABLE_SAVED, whereClause, whereArgs);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return localPaths;
+    }
+
+    /**
+     * Records the path of the downloaded file of a saved image.
+     *
+     * @param url       The URL of the saved image.
+     * @param localPath The path of the downloaded file.
+     * @return true if a saved image was updated, false if the image is no longer saved.
+     */
+    public boolean setLocalPath(String url, String localPath) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(ApodDatabase.COLUMN_LOCAL_PATH, localPath);
+        int result = db.update(ApodDatabase.TABLE_SAVED, contentValues,
+                ApodDatabase.COLUMN_ENTRY_ID + " = (SELECT " + ApodDatabase.COLUMN_ID + " FROM " + ApodDatabase.TABLE_APOD_ENTRY +
+                        " WHERE " + ApodDatabase.COLUMN_URL + " = ?)", new String[]{url});
+        return result > 0;
+    }
+
+    /**
+     * Retrieves the entries of saved images whose files have not been downloaded yet.
+     *
+     * @return A list of entries, oldest saved first.
+     */
+    public List<ApodEntry> getEntriesWithoutLocalFile() {
+        List<ApodEntry> entries = new ArrayList<>();
+        SQLiteDatabase db = database.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT e.* FROM " + ApodDatabase.TABLE_SAVED + " s JOIN " + ApodDatabase.TABLE_APOD_ENTRY + " e" +
+                " ON e." + ApodDatabase.COLUMN_ID + " = s." + ApodDatabase.COLUMN_ENTRY_ID +
+                " WHERE s." + ApodDatabase.COLUMN_LOCAL_PATH + " IS NULL" +
+                " ORDER BY s." + ApodDatabase.COLUMN_ID, null);
+        while (cursor.moveToNext()) {
+            entries.add(ApodCacheDatabaseHelper.readEntry(cursor));
+        }
+        cursor.close();
+        return entries;
+    }
+
     /**
      * Retrieves all saved image records from the database.
      *
      * @return A list of ImageItem objects representing the saved images.
      */
     public List<ImageItem> getAllImages() {
+        return queryImages(Long.MAX_VALUE, -1);
+    }
+
+    /**
+     * Retrieves one page of saved image records, most recently saved first. Pages are keyed on the
+     * record ID rather than an offset, so each page is a range scan of the primary key.
+     *
+     * @param beforeId The ID of the last record of the previous page, or {@link Long#MAX_VALUE} for the first page.
+     * @param pageSize The maximum number of records to return.
+     * @return A list of at most pageSize ImageItem objects with IDs below beforeId.
+     */
+    public List<ImageItem> getImagesPage(long beforeId, int pageSize) {
+        return queryImages(beforeId, pageSize);
+    }
+
+    /**
+     * Searches the saved images by the title and explanation of their entries. Entries whose title
+     * matches come first, then the others, each most recently saved first. The search runs on the
+     * full-text index, so its cost depends on the number of matches rather than on the number of rows.
+     *
+     * @param text  The text typed by the user; every word is matched as a prefix.
+     * @param limit The maximum number of records to return.
+     * @return A list of at most limit ImageItem objects, empty if the text has no words.
+     */
+    public List<ImageItem> searchImages(String text, int limit) {
+        String[] searchArgs = ApodDatabase.searchArgs(text);
+        if (searchArgs == null) {
+            return new ArrayList<>();
+        }
+        SQLiteDatabase db = database.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT s." + ApodDatabase.COLUMN_ID + ", e." + ApodDatabase.COLUMN_URL +
+                ", e." + ApodDatabase.COLUMN_DATE + ", e." + ApodDatabase.COLUMN_EXPLANATION +
+                ", s." + ApodDatabase.COLUMN_LOCAL_PATH +
+                ", e." + ApodDatabase.COLUMN_MEDIA_TYPE + ", e." + ApodDatabase.COLUMN_THUMBNAIL_URL +
+                " FROM " + ApodDatabase.rankedSearchSubquery() + " m" +
+                " JOIN " + ApodDatabase.TABLE_APOD_ENTRY + " e ON e." + ApodDatabase.COLUMN_ID + " = m." + ApodDatabase.COLUMN_DOCID +
+                " JOIN " + ApodDatabase.TABLE_SAVED + " s ON s." + ApodDatabase.COLUMN_ENTRY_ID + " = e." + ApodDatabase.COLUMN_ID +
+                " ORDER BY m." + ApodDatabase.COLUMN_RANK + ", s." + ApodDatabase.COLUMN_ID + " DESC LIMIT " + limit,
+                searchArgs);
+        return readImages(cursor);
+    }
+
+    /**
+     * Retrieves the saved images whose entry date falls between two dates, sorted by that date. The
+     * filter and the sort are served by one range scan of the index on the entry date.
+     *
+     * @param startDate   The first date of the range, inclusive.
+     * @param endDate     The last date of the range, inclusive.
+     * @param newestFirst Whether to return the newest images first instead of the oldest.
+     * @param limit       The maximum number of records to return, or -1 for no limit.
+     * @return A list of ImageItem objects representing the saved images in the range.
+     */
+    public List<ImageItem> getImagesBetween(String startDate, String endDate, boolean newestFirst, int limit) {
+        SQLiteDatabase db = database.getReadableDatabase();
+        Cursor cursor = db.rawQuery(imagesBetweenSql(newestFirst, limit), ApodDatabase.dateRangeArgs(startDate, endDate));
+        return readImages(cursor);
+    }
+
+    /**
+     * Builds the query of {@link #getImagesBetween(String, String, boolean, int)}.
+     *
+     * @param newestFirst Whether to sort in descending order.
+     * @param limit       The maximum number of records to return, or -1 for no limit.
+     * @return The query, taking the bounds returned by {@link ApodDatabase#dateRangeArgs(String, String)}.
+     */
+    @VisibleForTesting
+    static String imagesBetweenSql(boolean newestFirst, int limit) {
+        return "SELECT s." + ApodDatabase.COLUMN_ID + ", e." + ApodDatabase.COLUMN_URL +
+                ", e." + ApodDatabase.COLUMN_DATE + ", e." + ApodDatabase.COLUMN_EXPLANATION +
+                ", s." + ApodDatabase.COLUMN_LOCAL_PATH +
+                ", e." + ApodDatabase.COLUMN_MEDIA_TYPE + ", e." + ApodDatabase.COLUMN_THUMBNAIL_URL +
+                " FROM " + ApodDatabase.TABLE_SAVED + " s JOIN " + ApodDatabase.TABLE_APOD_ENTRY + " e" +
+                " ON e." + ApodDatabase.COLUMN_ID + " = s." + ApodDatabase.COLUMN_ENTRY_ID +
+                " WHERE e." + ApodDatabase.COLUMN_DATE + " >= ? AND e." + ApodDatabase.COLUMN_DATE + " < ?" +
+                " ORDER BY e." + ApodDatabase.COLUMN_DATE + (newestFirst ? " DESC" : "") + " LIMIT " + limit;
+    }
+
+    /**
+     * Queries saved image records with IDs below the given ID, most recently saved first.
+     *
+     * @param beforeId The exclusive upper bound of the record IDs.
+     * @param limit    The maximum number of records to return, or -1 for no limit.
+     * @return A list of ImageItem objects representing the saved images.
+     */
+    private List<ImageItem> queryImages(long beforeId, int limit) {
+        SQLiteDatabase db = database.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT s." + ApodDatabase.COLUMN_ID + ", e." + ApodDatabase.COLUMN_URL +
+                ", e." + ApodDatabase.COLUMN_DATE + ", e." + ApodDatabase.COLUMN_EXPLANATION +
+                ", s." + ApodDatabase.COLUMN_LOCAL_PATH +
+                ", e." + ApodDatabase.COLUMN_MEDIA_TYPE + ", e." + ApodDatabase.COLUMN_THUMBNAIL_URL +
+                " FROM " + ApodDatabase.TABLE_SAVED + " s JOIN " + ApodDatabase.TABLE_APOD_ENTRY + " e" +
+                " ON e." + ApodDatabase.COLUMN_ID + " = s." + ApodDatabase.COLUMN_ENTRY_ID +
+                " WHERE s." + ApodDatabase.COLUMN_ID + " < ?" +
+                " ORDER BY s." + ApodDatabase.COLUMN_ID + " DESC LIMIT " + limit,
+                new String[]{String.valueOf(beforeId)});
+        return readImages(cursor);
+    }
+
+    /**
+     * Reads the saved image records of a cursor over the columns selected by {@link #queryImages(long, int)}
+     * and closes it.
+     *
+     * @param cursor The cursor.
+     * @return A list of ImageItem objects representing the saved images.
+     */
+    private static List<ImageItem> readImages(Cursor cursor) {
         List<ImageItem> imageItemList = new ArrayList<>();
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.query(TABLE_IMAGES, null, null, null, null, null, COLUMN_ID + " DESC");
-
-        if (cursor != null) {
-            int idIndex = cursor.getColumnIndex(COLUMN_ID);
-            int urlIndex = cursor.getColumnIndex(COLUMN_URL);
-            int dateIndex = cursor.getColumnIndex(COLUMN_DATE);
-            int descriptionIndex = cursor.getColumnIndex(COLUMN_DESCRIPTION);
-
-            while (cursor.moveToNext()) {
-                if (idIndex != -1 && urlIndex != -1 && dateIndex != -1 && descriptionIndex != -1) {
-                    long id = cursor.getLong(idIndex);
-                    String url = cursor.getString(urlIndex);
-                    String date = cursor.getString(dateIndex);
-                    String description = cursor.getString(descriptionIndex);
-
-                    ImageItem imageItem = new ImageItem(id, url, date, description, null);
-                    imageItemList.add(imageItem);
-                }
-            }
-            cursor.close();
+        while (cursor.moveToNext()) {
+            long id = cursor.getLong(0);
+            String url = cursor.getString(1);
+            String date = cursor.getString(2);
+            String description = cursor.getString(3);
+            String localPath = cursor.getString(4);
+            String mediaType = cursor.getString(5);
+            String thumbnailUrl = cursor.getString(6);
+
+            ImageItem imageItem = new ImageItem(id, url, date, description, null, true, localPath, mediaType, thumbnailUrl, 0);
+            imageItemList.add(imageItem);
         }
-        db.close();
+        cursor.close();
         return imageItemList;
     }
+
+    /**
+     * The outcome of saving an image.
+     */
+    public enum SaveResult {
+        /**
+         * The image was newly saved.
+         */
+        NEW,
+
+        /**
+         * The image was already saved.
+         */
+        ALREADY_SAVED,
+
+        /**
+         * The image could not be saved.
+         */
+        ERROR
+    }
 }
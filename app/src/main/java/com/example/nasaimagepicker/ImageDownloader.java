@@ -0,0 +1,146 @@
+package com.example.nasaimagepicker;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * ImageDownloader streams an image from a URL into a file. The body is copied channel to channel
+ * with NIO instead of through a Java byte array, partial downloads are kept next to the target file
+ * and resumed with an HTTP Range request on the next attempt, and the result is checked against the
+ * Content-Length announced by the server before it replaces the target file. A partial download is
+ * only kept when the server confirms it is still a prefix of the same file.
+ */
+public class ImageDownloader {
+
+    /**
+     * The suffix of the file that holds a partial download.
+     */
+    static final String PARTIAL_SUFFIX = ".part";
+
+    /**
+     * The number of bytes copied per call to {@link FileChannel#transferFrom}.
+     */
+    private static final long TRANSFER_CHUNK_BYTES = 256 * 1024;
+
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    /**
+     * Constructs a new ImageDownloader.
+     *
+     * @param connectTimeoutMs The connect timeout in milliseconds.
+     * @param readTimeoutMs    The read timeout in milliseconds.
+     */
+    public ImageDownloader(int connectTimeoutMs, int readTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    /**
+     * Downloads a URL into a file, resuming a partial download left by an earlier attempt.
+     * The target file only appears once the download is complete.
+     *
+     * @param url    The URL to download.
+     * @param target The file to write.
+     * @return The number of bytes of the complete file.
+     * @throws IOException If the request fails or the body is shorter or longer than announced; the
+     *                     bytes received so far are kept so the next attempt can resume.
+     */
+    public long download(String url, File target) throws IOException {
+        File partial = new File(target.getPath() + PARTIAL_SUFFIX);
+        long offset = partial.length();
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(connectTimeoutMs);
+        connection.setReadTimeout(readTimeoutMs);
+        if (offset > 0) {
+            connection.setRequestProperty("Range", "bytes=" + offset + "-");
+        }
+
+        try {
+            int status = connection.getResponseCode();
+            if (status == 416 && offset > 0) {
+                if (totalLength(connection.getHeaderField("Content-Range")) == offset) {
+                    // The partial file already holds the whole image
+                    return finish(partial, target);
+                }
+                // The remote file changed or shrank, so the partial file cannot be trusted
+                connection.disconnect();
+                if (!partial.delete()) {
+                    throw new IOException("Could not delete " + partial);
+                }
+                return download(url, target);
+            }
+            if (status == HttpURLConnection.HTTP_OK) {
+                // The server ignored the range, so start over
+                offset = 0;
+            } else if (status != HttpURLConnection.HTTP_PARTIAL) {
+                throw new ApodHttpException(status, "Image download of " + url + " failed with HTTP " + status);
+            }
+
+            long contentLength = connection.getContentLengthLong();
+            long expected = contentLength >= 0 ? offset + contentLength : -1;
+
+            try (InputStream inputStream = connection.getInputStream();
+                 ReadableByteChannel in = Channels.newChannel(inputStream);
+                 FileOutputStream outputStream = new FileOutputStream(partial, offset > 0);
+                 FileChannel out = outputStream.getChannel()) {
+                long position = offset;
+                long transferred;
+                while ((transferred = out.transferFrom(in, position, TRANSFER_CHUNK_BYTES)) > 0) {
+                    position += transferred;
+                }
+                out.force(false);
+            }
+
+            long length = partial.length();
+            if (expected >= 0 && length != expected) {
+                throw new IOException("Image download of " + url + " ended at " + length + " of " + expected + " bytes");
+            }
+            return finish(partial, target);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Returns the total length of the file from the Content-Range header of a 416 response, in the
+     * form "bytes *&#47;1234".
+     *
+     * @param contentRange The value of the Content-Range header, or null.
+     * @return The total length in bytes, or -1 if the header is absent or has no known total.
+     */
+    static long totalLength(String contentRange) {
+        if (contentRange == null) {
+            return -1;
+        }
+        int slash = contentRange.lastIndexOf('/');
+        try {
+            return slash < 0 ? -1 : Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Moves a complete partial download to its target file.
+     *
+     * @param partial The complete partial download.
+     * @param target  The target file.
+     * @return The length of the target file.
+     * @throws IOException If the file cannot be renamed.
+     */
+    private static long finish(File partial, File target) throws IOException {
+        if (!partial.renameTo(target)) {
+            throw new IOException("Could not move " + partial + " to " + target);
+        }
+        return target.length();
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.nasaimagepicker;
 
+import java.util.Objects;
+
 /**
  * ImageItem represents an image item stored in the database for the NASA Image Picker app.
  * It contains information about the image such as its ID, URL, the date it was saved,
- * a description, and optionally, the date it was accessed.
+ * a description, and optionally, the date it was accessed and the media type of its APOD entry.
  */
 public class ImageItem {
 
@@ -12,6 +14,11 @@ public class ImageItem {
     private String date;
     private String description;
     private String dateAccessed;
+    private boolean saved;
+    private String localPath;
+    private String mediaType;
+    private String thumbnailUrl;
+    private int viewCount;
 
     /**
      * Constructs a new ImageItem with all fields, including the date accessed.
@@ -30,6 +37,31 @@ public class ImageItem {
         this.dateAccessed = dateAccessed;
     }
 
+    /**
+     * Constructs a new ImageItem with all fields. Database rows are read with this constructor; the
+     * shorter ones leave the fields that only some lists use at their defaults.
+     *
+     * @param id           The unique ID of the image.
+     * @param imageUrl     The URL of the image.
+     * @param date         The date the image was saved.
+     * @param description  A description of the image.
+     * @param dateAccessed The date the image was last accessed, or null if not applicable.
+     * @param saved        Whether the image is in the saved images.
+     * @param localPath    The path of the downloaded image file, or null if it has not been downloaded.
+     * @param mediaType    The media type of the entry, or null if unknown.
+     * @param thumbnailUrl The URL of the thumbnail of a video entry, or null if there is none.
+     * @param viewCount    The number of views the history record stands for, or 0 if not applicable.
+     */
+    public ImageItem(long id, String imageUrl, String date, String description, String dateAccessed, boolean saved,
+                     String localPath, String mediaType, String thumbnailUrl, int viewCount) {
+        this(id, imageUrl, date, description, dateAccessed);
+        this.saved = saved;
+        this.localPath = localPath;
+        this.mediaType = mediaType;
+        this.thumbnailUrl = thumbnailUrl;
+        this.viewCount = viewCount;
+    }
+
     /**
      * Constructs a new ImageItem without the date accessed.
      *
@@ -89,4 +121,97 @@ public class ImageItem {
     public String getDateAccessed() {
         return dateAccessed;
     }
+
+    /**
+     * Returns whether the image is in the saved images.
+     *
+     * @return true if the image is saved, false otherwise.
+     */
+    public boolean isSaved() {
+        return saved;
+    }
+
+    /**
+     * Returns the path of the downloaded image file, or null if it has not been downloaded.
+     *
+     * @return The path of the downloaded image file, or null.
+     */
+    public String getLocalPath() {
+        return localPath;
+    }
+
+    /**
+     * Returns the media type of the APOD entry, for example "image" or "video".
+     *
+     * @return The media type, or null if unknown.
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Returns the URL of the thumbnail of a video entry.
+     *
+     * @return The thumbnail URL, or null if there is none.
+     */
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    /**
+     * Returns the number of views a history record stands for. A record stands for several views
+     * once repeated views of the same image are combined.
+     *
+     * @return The view count, or 0 if the item is not a history record.
+     */
+    public int getViewCount() {
+        return viewCount;
+    }
+
+    /**
+     * Returns the URL of the still image shown for this item in lists: the image itself, or the
+     * thumbnail if the entry is a video.
+     *
+     * @return The URL of the still image, or null if the entry has none.
+     */
+    public String getPreviewUrl() {
+        return ApodEntry.previewUrl(mediaType, imageUrl, thumbnailUrl);
+    }
+
+    /**
+     * Compares this item with another object by value.
+     *
+     * @param o The object to compare with.
+     * @return true if the object is an ImageItem with the same fields, false otherwise.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImageItem)) {
+            return false;
+        }
+        ImageItem other = (ImageItem) o;
+        return id == other.id
+                && saved == other.saved
+                && viewCount == other.viewCount
+                && Objects.equals(imageUrl, other.imageUrl)
+                && Objects.equals(date, other.date)
+                && Objects.equals(description, other.description)
+                && Objects.equals(dateAccessed, other.dateAccessed)
+                && Objects.equals(localPath, other.localPath)
+                && Objects.equals(mediaType, other.mediaType)
+                && Objects.equals(thumbnailUrl, other.thumbnailUrl);
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}.
+     *
+     * @return The hash code of this item.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, imageUrl, date, description, dateAccessed, saved, localPath, mediaType, thumbnailUrl, viewCount);
+    }
 }
@@ -0,0 +1,115 @@
+package com.example.nasaimagepicker;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ImageItemPager loads a list of image items one page at a time with keyset pagination on the
+ * record ID, newest first. Only the pages the user has scrolled to are ever read from the database,
+ * and because each page starts below the last ID already shown, deleting rows never shifts or
+ * duplicates the rows of later pages.
+ * <p>
+ * Pages are meant to be loaded one at a time on the disk executor, while {@link #hasMore()} and
+ * {@link #shouldLoadMore(int, int)} may be called from the main thread.
+ */
+public class ImageItemPager {
+
+    /**
+     * The default number of items loaded per page.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * How many items before the end of the loaded list the next page is requested.
+     */
+    static final int PREFETCH_DISTANCE = 10;
+
+    private final PageSource source;
+    private final int pageSize;
+
+    private long lastId = Long.MAX_VALUE;
+    private volatile boolean exhausted;
+
+    /**
+     * Constructs a new ImageItemPager with the default page size.
+     *
+     * @param source The source the pages are read from.
+     */
+    public ImageItemPager(PageSource source) {
+        this(source, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Constructs a new ImageItemPager.
+     *
+     * @param source   The source the pages are read from.
+     * @param pageSize The number of items loaded per page.
+     */
+    public ImageItemPager(PageSource source, int pageSize) {
+        this.source = source;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Loads the next page. Once a page shorter than the page size has been returned, the pager is
+     * exhausted and returns empty pages.
+     *
+     * @return The items of the next page, possibly empty.
+     */
+    public List<ImageItem> nextPage() {
+        if (exhausted) {
+            return Collections.emptyList();
+        }
+        List<ImageItem> page = source.loadPage(lastId, pageSize);
+        if (!page.isEmpty()) {
+            lastId = page.get(page.size() - 1).getId();
+        }
+        if (page.size() < pageSize) {
+            exhausted = true;
+        }
+        return page;
+    }
+
+    /**
+     * Returns whether there may be more items to load.
+     *
+     * @return true if the last page has not been reached yet, false otherwise.
+     */
+    public boolean hasMore() {
+        return !exhausted;
+    }
+
+    /**
+     * Returns whether the next page should be loaded because the user has scrolled close to the end
+     * of the items loaded so far.
+     *
+     * @param lastVisiblePosition The adapter position of the last visible item.
+     * @param itemCount           The number of items loaded so far.
+     * @return true if the next page should be loaded, false otherwise.
+     */
+    public boolean shouldLoadMore(int lastVisiblePosition, int itemCount) {
+        return !exhausted && lastVisiblePosition >= itemCount - PREFETCH_DISTANCE;
+    }
+
+    /**
+     * Starts again from the first page.
+     */
+    public void reset() {
+        lastId = Long.MAX_VALUE;
+        exhausted = false;
+    }
+
+    /**
+     * A source of pages of image items ordered by descending ID.
+     */
+    public interface PageSource {
+        /**
+         * Loads the items with IDs below the given ID, newest first.
+         *
+         * @param beforeId The exclusive upper bound of the item IDs.
+         * @param pageSize The maximum number of items to return.
+         * @return At most pageSize items.
+         */
+        List<ImageItem> loadPage(long beforeId, int pageSize);
+    }
+}
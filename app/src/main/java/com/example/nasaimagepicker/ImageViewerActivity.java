@@ -0,0 +1,239 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.Target;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ImageViewerActivity shows an APOD image inside the app. A low-resolution preview appears at once
+ * from the thumbnail pipeline, read from the offline copy of a saved image when there is one, while the full image, preferably the HD one, is downloaded to disk or
+ * taken from the offline copy of a saved image, and then decoded tile by tile by {@link TiledImageView}
+ * as the user pans and zooms. Images that cannot be decoded, such as videos, are handed to the browser.
+ */
+public class ImageViewerActivity extends AppCompatActivity {
+
+    private static final String TAG = "ImageViewerActivity";
+
+    private static final String EXTRA_URL = "url";
+    private static final String EXTRA_HD_URL = "hd_url";
+    private static final String EXTRA_LOCAL_PATH = "local_path";
+
+    /**
+     * The name of the directory, inside the app's cache directory, that holds downloaded full images.
+     */
+    static final String CACHE_DIR = "viewer";
+
+    /**
+     * The number of downloaded full images kept in the cache directory.
+     */
+    static final int MAX_CACHED_IMAGES = 5;
+
+    private TiledImageView imageView;
+    private ProgressBar progressBar;
+
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
+    private Future<?> pendingLoad;
+
+    /**
+     * Receives the preview; kept in a field because Picasso only holds targets weakly.
+     */
+    private final Target previewTarget = new Target() {
+        @Override
+        public void onBitmapLoaded(Bitmap bitmap, Picasso.LoadedFrom from) {
+            imageView.setPreview(bitmap);
+        }
+
+        @Override
+        public void onBitmapFailed(Exception e, Drawable errorDrawable) {
+            Log.w(TAG, "Could not load preview", e);
+        }
+
+        @Override
+        public void onPrepareLoad(Drawable placeHolderDrawable) {
+        }
+    };
+
+    /**
+     * Creates an intent that opens the viewer.
+     *
+     * @param context   The context used to create the intent.
+     * @param url       The URL of the image, also used for the preview.
+     * @param hdUrl     The URL of the HD image, or null to show the standard image.
+     * @param localPath The path of a downloaded copy of the image, or null.
+     * @return The intent.
+     */
+    public static Intent newIntent(Context context, String url, String hdUrl, String localPath) {
+        return new Intent(context, ImageViewerActivity.class)
+                .putExtra(EXTRA_URL, url)
+                .putExtra(EXTRA_HD_URL, hdUrl)
+                .putExtra(EXTRA_LOCAL_PATH, localPath);
+    }
+
+    /**
+     * Called when the activity is starting. Requests the preview and starts loading the full image.
+     *
+     * @param savedInstanceState If the activity is being re-initialized after previously being shut down, this Bundle contains the data it most recently supplied in onSaveInstanceState(Bundle).
+     */
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_image_viewer);
+
+        imageView = findViewById(R.id.tiled_image_view);
+        progressBar = findViewById(R.id.progress_bar);
+
+        String url = getIntent().getStringExtra(EXTRA_URL);
+        String hdUrl = getIntent().getStringExtra(EXTRA_HD_URL);
+        String localPath = getIntent().getStringExtra(EXTRA_LOCAL_PATH);
+
+        if (localPath == null && !ThumbnailLoader.getInstance(this).isDecodable(hdUrl != null ? hdUrl : url)) {
+            // A video or another page that cannot be decoded is opened in the browser straight away
+            startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(url)));
+            finish();
+            return;
+        }
+
+        int previewSize = Math.max(getResources().getDisplayMetrics().widthPixels, getResources().getDisplayMetrics().heightPixels) / 2;
+        File localFile = localPath != null ? new File(localPath) : null;
+        if (localFile != null && localFile.exists()) {
+            // A saved image shows its preview from the offline copy, so it appears without network access
+            ThumbnailLoader.getInstance(this).loadPreview(localFile, previewSize, previewTarget, this);
+        } else {
+            ThumbnailLoader.getInstance(this).loadPreview(url, previewSize, previewTarget, this);
+        }
+
+        progressBar.setVisibility(View.VISIBLE);
+        pendingLoad = loadExecutor.submit(() -> {
+            BitmapRegionDecoder decoder = null;
+            try {
+                File file = resolveFile(url, hdUrl, localPath);
+                decoder = newDecoder(file);
+            } catch (IOException e) {
+                Log.e(TAG, "Could not load " + (hdUrl != null ? hdUrl : url), e);
+            }
+            BitmapRegionDecoder result = decoder;
+            runOnUiThread(() -> showDecoder(result, url));
+        });
+    }
+
+    /**
+     * Returns a file with the full image: the downloaded copy of a saved image if there is one and no
+     * HD image is wanted, and otherwise a download into the viewer cache, resumed if a previous
+     * attempt was interrupted. Runs on the load executor.
+     *
+     * @param url       The URL of the image.
+     * @param hdUrl     The URL of the HD image, or null.
+     * @param localPath The path of a downloaded copy of the image, or null.
+     * @return The file with the full image.
+     * @throws IOException If the image cannot be downloaded.
+     */
+    private File resolveFile(String url, String hdUrl, String localPath) throws IOException {
+        if (localPath != null && hdUrl == null && new File(localPath).exists()) {
+            return new File(localPath);
+        }
+        String downloadUrl = hdUrl != null ? hdUrl : url;
+        File directory = new File(getCacheDir(), CACHE_DIR);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        File file = new File(directory, OfflineImageStore.fileNameFor(downloadUrl));
+        if (!file.exists()) {
+            new ImageDownloader(ApodClient.DEFAULT_CONNECT_TIMEOUT_MS, ApodClient.DEFAULT_READ_TIMEOUT_MS).download(downloadUrl, file);
+        }
+        if (!file.setLastModified(System.currentTimeMillis())) {
+            Log.w(TAG, "Could not touch " + file);
+        }
+        trimCache(directory);
+        return file;
+    }
+
+    /**
+     * Deletes all but the {@link #MAX_CACHED_IMAGES} most recently viewed images from the viewer cache.
+     *
+     * @param directory The viewer cache directory.
+     */
+    private static void trimCache(File directory) {
+        File[] files = directory.listFiles();
+        if (files == null || files.length <= MAX_CACHED_IMAGES) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        for (int i = MAX_CACHED_IMAGES; i < files.length; i++) {
+            if (!files[i].delete()) {
+                Log.w(TAG, "Could not delete " + files[i]);
+            }
+        }
+    }
+
+    /**
+     * Opens a region decoder for an image file.
+     *
+     * @param file The image file.
+     * @return The region decoder.
+     * @throws IOException If the file is not a decodable image.
+     */
+    @SuppressWarnings("deprecation")
+    private static BitmapRegionDecoder newDecoder(File file) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            return BitmapRegionDecoder.newInstance(file.getPath());
+        }
+        return BitmapRegionDecoder.newInstance(file.getPath(), false);
+    }
+
+    /**
+     * Hands the decoder to the view, or falls back to the browser if the image could not be loaded.
+     *
+     * @param decoder The region decoder of the full image, or null if loading failed.
+     * @param url     The URL of the image.
+     */
+    private void showDecoder(BitmapRegionDecoder decoder, String url) {
+        if (isDestroyed()) {
+            if (decoder != null) {
+                decoder.recycle();
+            }
+            return;
+        }
+        progressBar.setVisibility(View.GONE);
+        if (decoder != null) {
+            imageView.setDecoder(decoder);
+        } else {
+            Toast.makeText(this, R.string.error_loading_image, Toast.LENGTH_SHORT).show();
+            startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(url)));
+            finish();
+        }
+    }
+
+    /**
+     * Called when the activity is being destroyed. Cancels the preview and the full image load.
+     */
+    @Override
+    protected void onDestroy() {
+        ThumbnailLoader.getInstance(this).cancelTag(this);
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+        }
+        loadExecutor.shutdown();
+        super.onDestroy();
+    }
+}
@@ -1,40 +1,32 @@
 package com.example.nasaimagepicker;
 
-import android.content.Intent;
 import android.content.SharedPreferences;
-import android.net.Uri;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import com.google.android.material.snackbar.Snackbar;
+import androidx.viewpager2.widget.ViewPager2;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.google.android.material.snackbar.Snackbar;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Locale;
+import java.util.List;
 
 /**
  * MainActivity handles the main functionality of the NASA Image Picker app.
  * It allows users to select a date, fetch an image from NASA's APOD API for that date,
  * view the image, and save it to the database. The app also tracks history whenever
- * the user views an image.
+ * the user views an image. Once a date is picked, the user can swipe through the neighbouring
+ * days in a pager backed by a sliding {@link DayWindow} of preloaded entries and pictures.
  */
 public class MainActivity extends BaseActivity {
 
-    private static final String NASA_API_KEY = "DgPLcIlnmN0Cwrzcg3e9NraFaYLIDI68Ysc6Zh3d";
+    private static final String TAG = "MainActivity";
     private static final String SHARED_PREFS = "sharedPrefs";
     private static final String LAST_DATE_KEY = "lastDate";
 
@@ -43,12 +35,42 @@ public class MainActivity extends BaseActivity {
     private Button viewImageButton;
     private Button saveImageButton;
     private ProgressBar progressBar;
+    private ViewPager2 dayPager;
+    private DayPagerAdapter dayPagerAdapter;
+    private DayWindow dayWindow;
 
+    private ApodEntry currentEntry;
     private String imageUrl;
+    private String hdImageUrl;
     private String selectedDate;
 
     private ImageDatabaseHelper imageDatabaseHelper;
-    private HistoryDatabaseHelper historyDatabaseHelper;
+    private HistoryRecorder historyRecorder;
+
+    /**
+     * The pending load of a single entry, cancelled when another date is picked or the activity is destroyed.
+     */
+    private Cancellable pendingLoad;
+
+    /**
+     * The pending load of a date range, cancelled when another range is picked or the activity is destroyed.
+     */
+    private Cancellable pendingRangeLoad;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The progress of single-date loads. Range loads have their own policy, so that finishing one kind
+     * of load never discards the pending result of the other.
+     */
+    private final ProgressDisplayPolicy progressDisplayPolicy = new ProgressDisplayPolicy(mainHandler,
+            ProgressDisplayPolicy.DEFAULT_SHOW_DELAY_MS, ProgressDisplayPolicy.DEFAULT_MIN_SHOW_MS);
+
+    /**
+     * The progress of date-range loads.
+     */
+    private final ProgressDisplayPolicy rangeProgressDisplayPolicy = new ProgressDisplayPolicy(mainHandler,
+            ProgressDisplayPolicy.DEFAULT_SHOW_DELAY_MS, ProgressDisplayPolicy.DEFAULT_MIN_SHOW_MS);
 
     /**
      * Called when the activity is starting. This is where most initialization should go.
@@ -67,21 +89,25 @@ public class MainActivity extends BaseActivity {
         viewImageButton = findViewById(R.id.button_view_image);
         saveImageButton = findViewById(R.id.button_save_image);
         progressBar = findViewById(R.id.progress_bar);
+        dayPager = findViewById(R.id.day_pager);
 
-        imageDatabaseHelper = new ImageDatabaseHelper(this);
-        historyDatabaseHelper = new HistoryDatabaseHelper(this);
+        imageDatabaseHelper = ImageDatabaseHelper.getInstance(this);
+        historyRecorder = HistoryRecorder.getInstance(this);
 
         viewImageButton.setVisibility(View.GONE);
         saveImageButton.setVisibility(View.GONE);
+        setupDayPager();
 
         SharedPreferences sharedPreferences = getSharedPreferences(SHARED_PREFS, MODE_PRIVATE);
         selectedDate = sharedPreferences.getString(LAST_DATE_KEY, null);
         if (selectedDate != null) {
             selectedDateText.setText(selectedDate);
             fetchImageData(selectedDate);
+            showDay(selectedDate);
         }
 
         findViewById(R.id.button_pick_date).setOnClickListener(v -> showDatePicker());
+        findViewById(R.id.button_load_range).setOnClickListener(v -> showRangePicker());
         viewImageButton.setOnClickListener(v -> viewImage());
         saveImageButton.setOnClickListener(v -> saveImage());
     }
@@ -95,114 +121,267 @@ public class MainActivity extends BaseActivity {
             selectedDate = date;
             selectedDateText.setText(selectedDate);
             fetchImageData(selectedDate);
+            showDay(selectedDate);
         });
         datePickerFragment.show(getSupportFragmentManager(), "datePicker");
     }
 
     /**
-     * Initiates the process of fetching image data from NASA's APOD API for the selected date.
+     * Sets up the day pager, whose pages are filled from a window of the days around the current page.
+     * Pictures are decoded no larger than the width of the screen.
+     */
+    private void setupDayPager() {
+        int pictureSizePx = getResources().getDisplayMetrics().widthPixels;
+        dayWindow = new DayWindow(DayWindow.DEFAULT_RADIUS, new ApodDayLoader(this, pictureSizePx, this),
+                date -> dayPagerAdapter.notifyItemChanged(dayPagerAdapter.positionOf(date)));
+        dayPagerAdapter = new DayPagerAdapter(dayWindow, ApodDates.today());
+        dayPager.setAdapter(dayPagerAdapter);
+        dayPager.registerOnPageChangeCallback(new ViewPager2.OnPageChangeCallback() {
+            @Override
+            public void onPageSelected(int position) {
+                onDaySelected(dayPagerAdapter.dateAt(position));
+            }
+        });
+    }
+
+    /**
+     * Shows the day pager at the given day, jumping there without scrolling through the days in between.
+     *
+     * @param date The day to show.
+     */
+    private void showDay(String date) {
+        dayPager.setVisibility(View.VISIBLE);
+        dayPager.setCurrentItem(dayPagerAdapter.positionOf(date), false);
+        dayWindow.moveTo(date);
+    }
+
+    /**
+     * Called when the user swipes to another day. Moves the window of preloaded days and makes the day
+     * the selected date, which is loaded through {@link #fetchImageData(String)} and normally served
+     * from the cache right away.
+     *
+     * @param date The day swiped to.
+     */
+    private void onDaySelected(String date) {
+        if (selectedDate == null) {
+            return;
+        }
+        dayWindow.moveTo(date);
+        if (!date.equals(ApodDates.normalize(selectedDate))) {
+            selectedDate = date;
+            selectedDateText.setText(selectedDate);
+            fetchImageData(selectedDate);
+        }
+    }
+
+    /**
+     * Displays two date picker dialogs for the user to select the start and end of a date range,
+     * then loads the whole range.
+     */
+    private void showRangePicker() {
+        DatePickerFragment startPicker = DatePickerFragment.newInstance(R.string.pick_start_date);
+        startPicker.setOnDateSelectedListener(startDate -> {
+            DatePickerFragment endPicker = DatePickerFragment.newInstance(R.string.pick_end_date);
+            endPicker.setOnDateSelectedListener(endDate -> fetchImageRange(startDate, endDate));
+            endPicker.show(getSupportFragmentManager(), "endDatePicker");
+        });
+        startPicker.show(getSupportFragmentManager(), "startDatePicker");
+    }
+
+    /**
+     * Loads all entries between two dates into the metadata store with as few requests as possible,
+     * so that every date in the range can later be shown without network access.
+     *
+     * @param startDate The first date of the range.
+     * @param endDate   The last date of the range.
+     */
+    private void fetchImageRange(String startDate, String endDate) {
+        String from = ApodDates.normalize(startDate);
+        String to = ApodDates.normalize(endDate);
+        if (from.compareTo(to) > 0) {
+            String swap = from;
+            from = to;
+            to = swap;
+        }
+
+        if (pendingRangeLoad != null) {
+            pendingRangeLoad.cancel();
+        }
+        rangeProgressDisplayPolicy.start(() -> progressBar.setVisibility(View.VISIBLE));
+        pendingRangeLoad = ApodRepository.getInstance(this).loadRange(from, to, new ApodClient.RangeCallback() {
+            @Override
+            public void onSuccess(List<ApodEntry> entries) {
+                rangeProgressDisplayPolicy.finish(() -> {
+                    hideProgressUnlessShownBy(progressDisplayPolicy);
+                    Toast.makeText(MainActivity.this, getString(R.string.range_loaded, entries.size()), Toast.LENGTH_SHORT).show();
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Failed to load APOD range", e);
+                rangeProgressDisplayPolicy.finish(() -> {
+                    hideProgressUnlessShownBy(progressDisplayPolicy);
+                    Snackbar.make(findViewById(R.id.drawer_layout), R.string.error_loading_range, Snackbar.LENGTH_LONG).show();
+                });
+            }
+        });
+    }
+
+    /**
+     * Initiates the process of fetching image data for the selected date. Past dates are served from
+     * the metadata cache without network access; otherwise the data is fetched from NASA's APOD API.
+     * Shows a progress bar while fetching and handles the response once done, then prefetches the
+     * adjacent days so that stepping to one of them is served from the cache.
      *
      * @param date The selected date for which to fetch the image.
      */
     private void fetchImageData(String date) {
-        new FetchImageTask().execute(date);
+        viewImageButton.setVisibility(View.GONE);
+        saveImageButton.setVisibility(View.GONE);
+        if (pendingLoad != null) {
+            pendingLoad.cancel();
+        }
+        // The user jumped to another date, so the days around the previous one are no longer needed
+        ApodPrefetcher.getInstance(this).cancel();
+        progressDisplayPolicy.start(() -> progressBar.setVisibility(View.VISIBLE));
+
+        pendingLoad = ApodRepository.getInstance(this).load(date, new ApodClient.Callback() {
+            @Override
+            public void onSuccess(ApodEntry entry) {
+                progressDisplayPolicy.finish(() -> showResult(date, entry, 0));
+                ApodPrefetcher.getInstance(MainActivity.this).prefetchAround(entry.getDate());
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Failed to fetch APOD entry for " + date, e);
+                progressDisplayPolicy.finish(() -> showResult(date, null, errorMessageFor(e)));
+            }
+        });
     }
 
     /**
-     * AsyncTask that fetches image data from NASA's APOD API in the background.
-     * It shows a progress bar while fetching and handles the response once done.
+     * Updates the UI with the fetched entry, or shows an error if the fetch failed. A result for a date
+     * other than the one currently selected is stale and dropped, so the latest selection always wins.
+     *
+     * @param date         The date that was requested.
+     * @param entry        The fetched entry, or null if the fetch failed.
+     * @param errorMessage The resource ID of the message shown if the fetch failed.
      */
-    private class FetchImageTask extends AsyncTask<String, Void, String> {
-        @Override
-        protected void onPreExecute() {
-            progressBar.setVisibility(View.VISIBLE);
-            viewImageButton.setVisibility(View.GONE);
-            saveImageButton.setVisibility(View.GONE);
+    private void showResult(String date, ApodEntry entry, int errorMessage) {
+        if (selectedDate == null || !ApodDates.normalize(date).equals(ApodDates.normalize(selectedDate))) {
+            Log.d(TAG, "Dropping stale result for " + date);
+            return;
+        }
+        hideProgressUnlessShownBy(rangeProgressDisplayPolicy);
+        if (entry != null) {
+            currentEntry = entry;
+            imageUrl = entry.getUrl();
+            hdImageUrl = entry.getHdUrl();
+            imageUrlText.setText(imageUrl);
+            viewImageButton.setVisibility(View.VISIBLE);
+            saveImageButton.setVisibility(View.VISIBLE);
+        } else {
+            Snackbar.make(findViewById(R.id.drawer_layout), errorMessage, Snackbar.LENGTH_LONG).show();
         }
+    }
 
-        @Override
-        protected String doInBackground(String... params) {
-            String date = params[0];
-            try {
-                URL url = new URL("https://api.nasa.gov/planetary/apod?api_key=" + NASA_API_KEY + "&date=" + date);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("GET");
-                BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                return response.toString();
-            } catch (Exception e) {
-                return null;
-            }
+    /**
+     * Hides the progress bar shared by single-date and range loads, unless the other kind of load is
+     * still showing it.
+     *
+     * @param other The policy of the other kind of load.
+     */
+    private void hideProgressUnlessShownBy(ProgressDisplayPolicy other) {
+        if (!other.isProgressShown()) {
+            progressBar.setVisibility(View.GONE);
         }
+    }
 
-        @Override
-        protected void onPostExecute(String jsonResponse) {
-            // Show progress bar for 3 seconds before updating the UI
-            new Thread(() -> {
-                try {
-                    Thread.sleep(3000); // Sleep for 3 seconds
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-
-                new Handler(Looper.getMainLooper()).post(() -> {
-                    progressBar.setVisibility(View.GONE);
-                    if (jsonResponse != null) {
-                        try {
-                            JSONObject jsonObject = new JSONObject(jsonResponse);
-                            imageUrl = jsonObject.getString("url");
-                            imageUrlText.setText(imageUrl);
-                            viewImageButton.setVisibility(View.VISIBLE);
-                            saveImageButton.setVisibility(View.VISIBLE);
-                        } catch (JSONException e) {
-                            Snackbar.make(findViewById(R.id.drawer_layout), R.string.error_loading_image, Snackbar.LENGTH_LONG).show();
-                        }
-                    } else {
-                        Snackbar.make(findViewById(R.id.drawer_layout), R.string.error_loading_image, Snackbar.LENGTH_LONG).show();
-                    }
-                });
-            }).start();
+    /**
+     * Returns the message that explains a failed fetch, telling throttling by the API apart from other errors.
+     *
+     * @param e The error of the fetch.
+     * @return The resource ID of the message.
+     */
+    private static int errorMessageFor(Exception e) {
+        boolean throttled = e instanceof CircuitOpenException
+                || (e instanceof ApodHttpException && ((ApodHttpException) e).getStatusCode() == 429);
+        return throttled ? R.string.error_api_throttled : R.string.error_loading_image;
+    }
+
+    /**
+     * Called when the activity is being destroyed. Cancels pending loads and discards any pending
+     * progress or result callbacks, so nothing touches the views of a destroyed activity. Prefetching
+     * is kept across configuration changes and only cancelled when the user leaves the screen.
+     */
+    @Override
+    protected void onDestroy() {
+        if (pendingLoad != null) {
+            pendingLoad.cancel();
+        }
+        if (pendingRangeLoad != null) {
+            pendingRangeLoad.cancel();
+        }
+        if (isFinishing()) {
+            ApodPrefetcher.getInstance(this).cancel();
         }
+        dayWindow.clear();
+        ThumbnailLoader.getInstance(this).cancelTag(this);
+        progressDisplayPolicy.cancel();
+        rangeProgressDisplayPolicy.cancel();
+        super.onDestroy();
     }
 
     /**
-     * Opens the image in the default browser and saves the event in the history database.
+     * Called when the activity is no longer in the foreground. Writes the buffered history, so the
+     * history screen and a process that is killed in the background both see every view.
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        historyRecorder.flush();
+    }
+
+    /**
+     * Opens the image in the in-app viewer and records the view in the history. Views are buffered and
+     * written in batches by {@link HistoryRecorder}.
      */
     private void viewImage() {
+        String url = imageUrl;
         // Get the current date and time for "date accessed"
-        String dateAccessed = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(Calendar.getInstance().getTime());
+        String dateAccessed = ApodDates.formatTimestamp(System.currentTimeMillis());
 
-        // Save history when the user views the image (multiple entries allowed)
-        boolean isInserted = historyDatabaseHelper.insertHistory(imageUrl, selectedDate, "History Entry", dateAccessed);
-        if (isInserted) {
-            Toast.makeText(this, R.string.history_saved, Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(this, R.string.error_saving_history, Toast.LENGTH_SHORT).show();
-        }
+        // Record every view with the entry on screen; repeated views are combined only if the user asked for it
+        historyRecorder.record(currentEntry, dateAccessed);
+        Toast.makeText(this, R.string.history_saved, Toast.LENGTH_SHORT).show();
 
-        Intent intent = new Intent(Intent.ACTION_VIEW, Uri.parse(imageUrl));
-        startActivity(intent);
+        startActivity(ImageViewerActivity.newIntent(this, url, hdImageUrl, null));
     }
 
     /**
-     * Saves the image to the database, ensuring it is not saved more than once.
+     * Saves the image to the database on the disk executor, ensuring it is not saved more than once,
+     * and schedules the download of the image so that it can later be opened without network access.
+     * Videos are saved but not downloaded.
      */
     private void saveImage() {
-        boolean isInserted = imageDatabaseHelper.insertImage(imageUrl, selectedDate, "Sample Description");
-        if (isInserted) {
-            Toast.makeText(this, R.string.image_saved, Toast.LENGTH_SHORT).show();
-            SharedPreferences sharedPreferences = getSharedPreferences(SHARED_PREFS, MODE_PRIVATE);
-            SharedPreferences.Editor editor = sharedPreferences.edit();
-            editor.putString(LAST_DATE_KEY, selectedDate);
-            editor.apply();
-        } else {
-            Toast.makeText(this, R.string.image_already_saved, Toast.LENGTH_SHORT).show();
-        }
+        ApodEntry entry = currentEntry;
+        String date = selectedDate;
+        runOnDiskIO(() -> imageDatabaseHelper.insertImage(entry), result -> {
+            if (result == ImageDatabaseHelper.SaveResult.NEW) {
+                OfflineImageStore.getInstance(this).scheduleDownload(entry);
+                Toast.makeText(this, R.string.image_saved, Toast.LENGTH_SHORT).show();
+                SharedPreferences sharedPreferences = getSharedPreferences(SHARED_PREFS, MODE_PRIVATE);
+                SharedPreferences.Editor editor = sharedPreferences.edit();
+                editor.putString(LAST_DATE_KEY, date);
+                editor.apply();
+            } else if (result == ImageDatabaseHelper.SaveResult.ALREADY_SAVED) {
+                Toast.makeText(this, R.string.image_already_saved, Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, R.string.error_saving_image, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     /**
@@ -2,12 +2,11 @@ package com.example.nasaimagepicker;
 
 import android.os.Bundle;
 import android.widget.EditText;
-import android.widget.ListView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
-
-import java.util.List;
+import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.RecyclerView;
 
 /**
  * MockCommentActivity allows users to select an image from a list of saved images
@@ -16,7 +15,7 @@ import java.util.List;
  */
 public class MockCommentActivity extends BaseActivity {
 
-    private ListView listView;
+    private RecyclerView recyclerView;
     private ImageAdapter adapter;
     private ImageDatabaseHelper databaseHelper;
 
@@ -33,28 +32,27 @@ public class MockCommentActivity extends BaseActivity {
 
         setupNavigation();
 
-        listView = findViewById(R.id.list_view_saved_images);
-        databaseHelper = new ImageDatabaseHelper(this);
+        recyclerView = findViewById(R.id.recycler_view_saved_images);
+        databaseHelper = ImageDatabaseHelper.getInstance(this);
 
-        loadSavedImages();
+        adapter = new ImageAdapter(this, imageItem -> showCommentDialog(), null);
+        recyclerView.setAdapter(adapter);
+        recyclerView.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
 
-        listView.setOnItemClickListener((parent, view, position, id) -> {
-            ImageItem imageItem = adapter.getItem(position);
-            showCommentDialog();
-        });
+        loadSavedImages();
     }
 
     /**
-     * Loads the saved images from the database and populates the ListView.
+     * Loads the saved images from the database on the disk executor and populates the RecyclerView.
      * If no images are found, a Toast message is displayed.
      */
     private void loadSavedImages() {
-        List<ImageItem> imageItemList = databaseHelper.getAllImages();
-        if (imageItemList.isEmpty()) {
-            Toast.makeText(this, R.string.no_image_saved, Toast.LENGTH_SHORT).show();
-        }
-        adapter = new ImageAdapter(this, imageItemList);
-        listView.setAdapter(adapter);
+        runOnDiskIO(databaseHelper::getAllImages, imageItemList -> {
+            if (imageItemList.isEmpty()) {
+                Toast.makeText(this, R.string.no_image_saved, Toast.LENGTH_SHORT).show();
+            }
+            adapter.submitList(imageItemList);
+        });
     }
 
     /**
@@ -83,6 +81,15 @@ public class MockCommentActivity extends BaseActivity {
                 .show();
     }
 
+    /**
+     * Called when the activity is being destroyed. Cancels all thumbnail loads started by this screen.
+     */
+    @Override
+    protected void onDestroy() {
+        ThumbnailLoader.getInstance(this).cancelTag(this);
+        super.onDestroy();
+    }
+
     /**
      * Provides the help message specific to this activity.
      *
@@ -0,0 +1,72 @@
+package com.example.nasaimagepicker;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+import android.os.StrictMode;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Configuration;
+
+/**
+ * NasaImagePickerApplication is the application class of the NASA Image Picker app.
+ * It schedules the periodic {@link HistoryRetentionWorker}, which keeps the history within its retention
+ * policy, and the periodic {@link ApodSyncWorker}. WorkManager is initialized on demand with the configuration provided
+ * here rather than by a content provider at every process start. In debuggable builds it enables
+ * StrictMode, so any disk or network access that slips back onto the main thread, or any leaked
+ * database cursor, is reported in the log.
+ */
+public class NasaImagePickerApplication extends Application implements Configuration.Provider {
+
+    /**
+     * Called when the application is starting, before any activity has been created.
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (isDebuggable()) {
+            enableStrictMode();
+        }
+        HistoryRetentionWorker.schedule(this);
+        ApodSyncWorker.schedule(this);
+    }
+
+    /**
+     * Returns the configuration WorkManager is initialized with when it is first used.
+     *
+     * @return The WorkManager configuration.
+     */
+    @NonNull
+    @Override
+    public Configuration getWorkManagerConfiguration() {
+        return new Configuration.Builder()
+                .setMinimumLoggingLevel(isDebuggable() ? Log.DEBUG : Log.INFO)
+                .build();
+    }
+
+    /**
+     * Returns whether this is a debuggable build.
+     *
+     * @return true if the application is debuggable, false otherwise.
+     */
+    private boolean isDebuggable() {
+        return (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    /**
+     * Enables StrictMode thread and VM policies that log violations.
+     */
+    private void enableStrictMode() {
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectNetwork()
+                .penaltyLog()
+                .build());
+        StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                .detectLeakedSqlLiteObjects()
+                .detectLeakedClosableObjects()
+                .penaltyLog()
+                .build());
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * OfflineImageStore keeps a copy of every saved image in app storage so that saved images open
+ * instantly and without network access. Entries of other media types, such as videos, have no image
+ * to keep and are skipped. Downloads run one at a time on a background thread, are
+ * retried with the partial file resumed, and their local path is recorded in the saved table once
+ * the file is complete. Saved images whose download never finished are picked up again by
+ * {@link #resumePendingDownloads()}.
+ */
+public class OfflineImageStore {
+
+    private static final String TAG = "OfflineImageStore";
+
+    /**
+     * The name of the directory, inside the app's files directory, that holds the downloaded images.
+     */
+    static final String DIRECTORY = "saved_images";
+
+    /**
+     * The name of the shared preferences file that holds the offline settings.
+     */
+    static final String PREFS_NAME = "offline_settings";
+
+    /**
+     * The preference key of whether the HD image is downloaded instead of the standard one when the
+     * entry has one. HD images can be tens of megabytes, so the standard image is downloaded by default.
+     */
+    static final String KEY_DOWNLOAD_HD_IMAGES = "download_hd_images";
+
+    /**
+     * The number of attempts made for each download before giving up until the next resume.
+     */
+    static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * The delay before the first retry; it doubles with every further attempt.
+     */
+    static final long RETRY_DELAY_MS = 2000;
+
+    private static OfflineImageStore instance;
+
+    private final ImageDatabaseHelper imageDatabaseHelper;
+    private final ImageDownloader downloader;
+    private final File directory;
+    private final ExecutorService executor;
+    private final SharedPreferences preferences;
+
+    /**
+     * The URLs of the images that are queued or being downloaded, so each is downloaded only once.
+     */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Returns the shared OfflineImageStore, creating it on first use.
+     *
+     * @param context The context used to locate the files directory and the database.
+     * @return The shared OfflineImageStore instance.
+     */
+    public static synchronized OfflineImageStore getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new OfflineImageStore(ImageDatabaseHelper.getInstance(context),
+                    new ImageDownloader(ApodClient.DEFAULT_CONNECT_TIMEOUT_MS, ApodClient.DEFAULT_READ_TIMEOUT_MS),
+                    new File(appContext.getFilesDir(), DIRECTORY),
+                    Executors.newSingleThreadExecutor(),
+                    appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+        }
+        return instance;
+    }
+
+    /**
+     * Constructs a new OfflineImageStore.
+     *
+     * @param imageDatabaseHelper The helper used to record the local paths of saved images.
+     * @param downloader          The downloader that streams images to disk.
+     * @param directory           The directory that holds the downloaded images.
+     * @param executor            The executor that runs the downloads.
+     * @param preferences         The preferences that hold the offline settings.
+     */
+    public OfflineImageStore(ImageDatabaseHelper imageDatabaseHelper, ImageDownloader downloader, File directory,
+                             ExecutorService executor, SharedPreferences preferences) {
+        this.imageDatabaseHelper = imageDatabaseHelper;
+        this.downloader = downloader;
+        this.directory = directory;
+        this.executor = executor;
+        this.preferences = preferences;
+    }
+
+    /**
+     * Returns whether the HD image is downloaded instead of the standard one when the entry has one.
+     *
+     * @return true if HD images are downloaded, false otherwise.
+     */
+    public boolean isDownloadingHdImages() {
+        return preferences.getBoolean(KEY_DOWNLOAD_HD_IMAGES, false);
+    }
+
+    /**
+     * Sets whether the HD image is downloaded instead of the standard one when the entry has one.
+     * Images that are already downloaded are kept as they are.
+     *
+     * @param downloadHd true to download HD images, false to download the standard images.
+     */
+    public void setDownloadingHdImages(boolean downloadHd) {
+        preferences.edit().putBoolean(KEY_DOWNLOAD_HD_IMAGES, downloadHd).apply();
+    }
+
+    /**
+     * Schedules the download of a saved entry. Entries that are not images are skipped.
+     *
+     * @param entry The saved entry; its URL identifies it in the database.
+     */
+    public void scheduleDownload(ApodEntry entry) {
+        String downloadUrl = downloadUrlFor(entry, isDownloadingHdImages());
+        if (downloadUrl == null) {
+            Log.d(TAG, "Not downloading " + entry.getMediaType() + " " + entry.getUrl());
+            return;
+        }
+        String url = entry.getUrl();
+        if (!pending.add(url)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                download(url, downloadUrl);
+            } finally {
+                pending.remove(url);
+            }
+        });
+    }
+
+    /**
+     * Returns the URL to download for a saved entry. Entries saved before the media type was recorded
+     * have none and are treated as images.
+     *
+     * @param entry      The saved entry.
+     * @param downloadHd Whether the HD image is wanted when the entry has one.
+     * @return The URL of the image to download, or null if the entry is not an image.
+     */
+    static String downloadUrlFor(ApodEntry entry, boolean downloadHd) {
+        String mediaType = entry.getMediaType();
+        if (mediaType != null && !ApodEntry.MEDIA_TYPE_IMAGE.equals(mediaType)) {
+            return null;
+        }
+        return downloadHd && entry.getHdUrl() != null ? entry.getHdUrl() : entry.getUrl();
+    }
+
+    /**
+     * Schedules the download of every saved image that has no local file yet.
+     */
+    public void resumePendingDownloads() {
+        executor.execute(() -> {
+            for (ApodEntry entry : imageDatabaseHelper.getEntriesWithoutLocalFile()) {
+                scheduleDownload(entry);
+            }
+        });
+    }
+
+    /**
+     * Deletes the downloaded file of a saved image, if there is one.
+     *
+     * @param localPath The path of the downloaded file, or null.
+     */
+    public static void deleteLocalFile(String localPath) {
+        if (localPath != null) {
+            File file = new File(localPath);
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Could not delete " + localPath);
+            }
+        }
+    }
+
+    /**
+     * Downloads an image on the calling thread, retrying with exponential backoff and resuming the
+     * partial file, and records its path once it is complete.
+     *
+     * @param url         The URL of the saved image.
+     * @param downloadUrl The URL to download.
+     */
+    private void download(String url, String downloadUrl) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.e(TAG, "Could not create " + directory);
+            return;
+        }
+        File target = fileFor(downloadUrl);
+        long delayMs = RETRY_DELAY_MS;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                long length = target.exists() ? target.length() : downloader.download(downloadUrl, target);
+                if (imageDatabaseHelper.setLocalPath(url, target.getPath())) {
+                    Log.d(TAG, "Stored " + length + " bytes of " + downloadUrl);
+                } else {
+                    // The image was unsaved while it was downloading
+                    deleteLocalFile(target.getPath());
+                }
+                return;
+            } catch (IOException e) {
+                Log.w(TAG, "Download attempt " + attempt + " of " + downloadUrl + " failed", e);
+            }
+            if (attempt < MAX_ATTEMPTS) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                delayMs *= 2;
+            }
+        }
+    }
+
+    /**
+     * Returns the file that holds the image downloaded from a URL.
+     *
+     * @param downloadUrl The URL of the image.
+     * @return The file for the image.
+     */
+    File fileFor(String downloadUrl) {
+        return new File(directory, fileNameFor(downloadUrl));
+    }
+
+    /**
+     * Returns the name of the file for an image downloaded from a URL. The name is derived from a hash
+     * of the URL and keeps its extension.
+     *
+     * @param downloadUrl The URL of the image.
+     * @return The file name for the image.
+     */
+    static String fileNameFor(String downloadUrl) {
+        String extension = "";
+        int dot = downloadUrl.lastIndexOf('.');
+        if (dot > downloadUrl.lastIndexOf('/')) {
+            extension = downloadUrl.substring(dot);
+        }
+        return sha1(downloadUrl) + extension;
+    }
+
+    /**
+     * Returns the hexadecimal SHA-1 hash of a string.
+     *
+     * @param value The string to hash.
+     * @return The hash as 40 hexadecimal digits.
+     */
+    private static String sha1(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.nasaimagepicker;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * ProgressDisplayPolicy decides when a progress indicator is shown and when a result is rendered.
+ * The indicator only appears if the work takes longer than a short show delay, and once visible
+ * it stays up for a minimum time so that it does not flicker. A result that arrives before the
+ * indicator appears, or after its minimum display time has passed, is rendered immediately.
+ * All callbacks are scheduled on the given Handler. One policy tracks one kind of work at a time;
+ * independent kinds of work that may overlap each need their own policy.
+ */
+public class ProgressDisplayPolicy {
+
+    /**
+     * The default time, in milliseconds, to wait before showing the progress indicator.
+     */
+    public static final long DEFAULT_SHOW_DELAY_MS = 150;
+
+    /**
+     * The default minimum time, in milliseconds, that a visible progress indicator stays up.
+     */
+    public static final long DEFAULT_MIN_SHOW_MS = 300;
+
+    private final Handler handler;
+    private final long showDelayMs;
+    private final long minShowMs;
+
+    private Runnable pendingShow;
+    private Runnable pendingFinish;
+    private long shownAtMs = -1;
+
+    /**
+     * Constructs a new ProgressDisplayPolicy.
+     *
+     * @param handler     The Handler on which the indicator and the result are scheduled.
+     * @param showDelayMs The time, in milliseconds, to wait before showing the indicator.
+     * @param minShowMs   The minimum time, in milliseconds, that a visible indicator stays up.
+     */
+    public ProgressDisplayPolicy(Handler handler, long showDelayMs, long minShowMs) {
+        this.handler = handler;
+        this.showDelayMs = showDelayMs;
+        this.minShowMs = minShowMs;
+    }
+
+    /**
+     * Starts a new piece of work. Any pending indicator or result from a previous call is discarded.
+     *
+     * @param showProgress The action that makes the progress indicator visible.
+     */
+    public void start(Runnable showProgress) {
+        cancel();
+        pendingShow = () -> {
+            pendingShow = null;
+            shownAtMs = SystemClock.uptimeMillis();
+            showProgress.run();
+        };
+        handler.postDelayed(pendingShow, showDelayMs);
+    }
+
+    /**
+     * Finishes the current piece of work. The result is rendered immediately unless the indicator is
+     * visible and has not yet reached its minimum display time, in which case it is rendered as soon
+     * as that time has passed.
+     *
+     * @param render The action that hides the progress indicator and renders the result.
+     */
+    public void finish(Runnable render) {
+        if (pendingShow != null) {
+            handler.removeCallbacks(pendingShow);
+            pendingShow = null;
+        }
+        if (pendingFinish != null) {
+            handler.removeCallbacks(pendingFinish);
+            pendingFinish = null;
+        }
+
+        long remainingMs = shownAtMs < 0 ? 0 : shownAtMs + minShowMs - SystemClock.uptimeMillis();
+        shownAtMs = -1;
+        if (remainingMs <= 0) {
+            render.run();
+        } else {
+            pendingFinish = () -> {
+                pendingFinish = null;
+                render.run();
+            };
+            handler.postDelayed(pendingFinish, remainingMs);
+        }
+    }
+
+    /**
+     * Returns whether this policy has made the progress indicator visible and not yet rendered the
+     * result, so that an indicator shared with other work is not hidden while this work still needs it.
+     *
+     * @return true if the indicator is shown on behalf of this policy, false otherwise.
+     */
+    public boolean isProgressShown() {
+        return shownAtMs >= 0 || pendingFinish != null;
+    }
+
+    /**
+     * Discards any pending indicator or result without running them.
+     */
+    public void cancel() {
+        if (pendingShow != null) {
+            handler.removeCallbacks(pendingShow);
+            pendingShow = null;
+        }
+        if (pendingFinish != null) {
+            handler.removeCallbacks(pendingFinish);
+            pendingFinish = null;
+        }
+        shownAtMs = -1;
+    }
+}
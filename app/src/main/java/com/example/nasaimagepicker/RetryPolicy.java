@@ -0,0 +1,117 @@
+package com.example.nasaimagepicker;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RetryPolicy decides whether and when {@link ApodClient} retries a failed GET request. Delays grow
+ * exponentially with the attempt number and are jittered so that clients that failed together do not
+ * retry together, and a Retry-After delay sent by the server is always respected. Requests whose
+ * Retry-After is longer than the app is willing to wait are not retried at all.
+ */
+public class RetryPolicy {
+
+    /**
+     * The default maximum number of attempts, including the first one.
+     */
+    static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /**
+     * The default delay before the first retry, before jitter is applied.
+     */
+    static final long DEFAULT_BASE_DELAY_MS = 500;
+
+    /**
+     * The default upper bound of the delay between two attempts, before jitter is applied.
+     */
+    static final long DEFAULT_MAX_DELAY_MS = 8000;
+
+    /**
+     * The default longest Retry-After delay that is waited for before retrying.
+     */
+    static final long DEFAULT_MAX_RETRY_AFTER_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long maxRetryAfterMs;
+
+    /**
+     * Constructs a RetryPolicy with the default limits.
+     */
+    public RetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_MS, DEFAULT_MAX_DELAY_MS, DEFAULT_MAX_RETRY_AFTER_MS);
+    }
+
+    /**
+     * Constructs a new RetryPolicy.
+     *
+     * @param maxAttempts     The maximum number of attempts, including the first one.
+     * @param baseDelayMs     The delay before the first retry, before jitter is applied.
+     * @param maxDelayMs      The upper bound of the delay between two attempts, before jitter is applied.
+     * @param maxRetryAfterMs The longest Retry-After delay that is waited for before retrying.
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs, long maxRetryAfterMs) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxRetryAfterMs = maxRetryAfterMs;
+    }
+
+    /**
+     * Returns whether a request that failed on the given attempt may be tried again.
+     *
+     * @param attempt      The number of the attempt that failed, starting at 1.
+     * @param retryAfterMs The delay requested by the server, or -1 if none was given.
+     * @return true if the request may be retried, false otherwise.
+     */
+    public boolean canRetry(int attempt, long retryAfterMs) {
+        return attempt < maxAttempts && retryAfterMs <= maxRetryAfterMs;
+    }
+
+    /**
+     * Returns the delay before the attempt after the given one. The delay is drawn at random between
+     * half and all of the exponential backoff, and is never shorter than the requested Retry-After.
+     *
+     * @param attempt      The number of the attempt that failed, starting at 1.
+     * @param retryAfterMs The delay requested by the server, or -1 if none was given.
+     * @return The delay in milliseconds.
+     */
+    public long delayMs(int attempt, long retryAfterMs) {
+        long backoff = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 30));
+        long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        return Math.max(jittered, retryAfterMs);
+    }
+
+    /**
+     * Parses the value of a Retry-After header, which is either a number of seconds or an HTTP date.
+     *
+     * @param value The header value, or null if the header is absent.
+     * @param nowMs The current time, used to turn an HTTP date into a delay.
+     * @return The delay in milliseconds, or -1 if the header is absent or cannot be parsed.
+     */
+    static long parseRetryAfter(String value, long nowMs) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+        String trimmed = value.trim();
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(trimmed)));
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, so it should be an HTTP date
+        }
+        SimpleDateFormat httpDate = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        httpDate.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            Date date = httpDate.parse(trimmed);
+            return Math.max(0, date.getTime() - nowMs);
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+}
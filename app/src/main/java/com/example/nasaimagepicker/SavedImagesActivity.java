@@ -1,23 +1,37 @@
 package com.example.nasaimagepicker;
 
-import android.content.Intent;
-import android.net.Uri;
 import android.os.Bundle;
-import android.widget.ListView;
+import android.view.Menu;
+import android.view.MenuItem;
 
-import androidx.appcompat.app.AlertDialog;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * SavedImagesActivity displays a list of saved images stored in the local database.
- * Users can view images in their browser or delete them from the database.
+ * Users can view images, from their downloaded copy when there is one, search them by title and
+ * explanation, or select several of them and delete them at once.
  */
 public class SavedImagesActivity extends BaseActivity {
 
-    private ListView listView;
+    /**
+     * The maximum number of search results shown.
+     */
+    private static final int MAX_SEARCH_RESULTS = 100;
+
+    private RecyclerView recyclerView;
     private ImageAdapter adapter;
+    private ImageItemPager pager;
+    private boolean loading;
+    private String searchQuery;
     private ImageDatabaseHelper imageDatabaseHelper;
+    private BatchDeleteController batchDeleteController;
 
     /**
      * Called when the activity is starting. This is where most initialization should go.
@@ -32,48 +46,170 @@ public class SavedImagesActivity extends BaseActivity {
 
         setupNavigation();
 
-        imageDatabaseHelper = new ImageDatabaseHelper(this);
-        listView = findViewById(R.id.list_view_saved_images);
+        imageDatabaseHelper = ImageDatabaseHelper.getInstance(this);
+        recyclerView = findViewById(R.id.recycler_view_saved_images);
+
+        pager = new ImageItemPager(imageDatabaseHelper::getImagesPage);
+        adapter = new ImageAdapter(this, this::openImage, null);
+        batchDeleteController = new BatchDeleteController(this, adapter, new BatchDeleteController.Deleter() {
+            @Override
+            public int deleteSelected(List<Long> ids) {
+                return deleteLocalFiles(imageDatabaseHelper.deleteImages(ids));
+            }
+
+            @Override
+            public int deleteAll() {
+                return deleteLocalFiles(imageDatabaseHelper.deleteAllImages());
+            }
+
+            @Override
+            public int deleteOlderThan(String date) {
+                return deleteLocalFiles(imageDatabaseHelper.deleteImagesOlderThan(date));
+            }
+
+            @Override
+            public String dateOf(ImageItem item) {
+                return item.getDate();
+            }
+        }, this::loadMoreIfNeeded);
+        recyclerView.setAdapter(adapter);
+        recyclerView.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                loadMoreIfNeeded();
+            }
+        });
 
         loadSavedImages();
+        OfflineImageStore.getInstance(this).resumePendingDownloads();
+    }
 
-        listView.setOnItemClickListener((parent, view, position, id) -> {
-            ImageItem imageItem = adapter.getItem(position);
-            openImageInBrowser(imageItem.getImageUrl());
+    /**
+     * Loads the next page of saved images on the disk executor and appends it to the RecyclerView.
+     * Only one page is loaded at a time.
+     */
+    private void loadSavedImages() {
+        if (loading || searchQuery != null) {
+            return;
+        }
+        loading = true;
+        ImageItemPager currentPager = pager;
+        runOnDiskIO(currentPager::nextPage, page -> {
+            if (currentPager != pager) {
+                // The list has been replaced by a search in the meantime
+                return;
+            }
+            loading = false;
+            adapter.appendItems(page);
+        }, e -> {
+            if (currentPager == pager) {
+                // Let the next scroll try the page again
+                loading = false;
+            }
         });
+    }
+
+    /**
+     * Loads the next page if the user has scrolled close to the end of the list, or if deletions have
+     * left too few items to scroll.
+     */
+    private void loadMoreIfNeeded() {
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        if (pager.shouldLoadMore(layoutManager.findLastVisibleItemPosition(), adapter.getSubmittedItemCount())) {
+            loadSavedImages();
+        }
+    }
 
-        listView.setOnItemLongClickListener((parent, view, position, id) -> {
-            ImageItem imageItem = adapter.getItem(position);
-            new AlertDialog.Builder(SavedImagesActivity.this)
-                    .setTitle(R.string.delete_image_title)
-                    .setMessage(R.string.delete_image_message)
-                    .setPositiveButton(android.R.string.yes, (dialog, which) -> {
-                        imageDatabaseHelper.deleteImage(imageItem.getId());
-                        loadSavedImages();
-                    })
-                    .setNegativeButton(android.R.string.no, null)
-                    .show();
+    /**
+     * Adds the search box to the toolbar, next to the help menu item, and the offline settings and the
+     * batch deletions to the menu.
+     *
+     * @param menu The options menu in which you place your items.
+     * @return true for the menu to be displayed.
+     */
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        super.onCreateOptionsMenu(menu);
+        addSearchMenu(menu, this::search);
+        getMenuInflater().inflate(R.menu.saved_images_menu, menu);
+        menu.findItem(R.id.download_hd_images).setChecked(OfflineImageStore.getInstance(this).isDownloadingHdImages());
+        batchDeleteController.onCreateOptionsMenu(menu);
+        return true;
+    }
+
+    /**
+     * Handles the offline settings and the batch deletions of the menu. The HD setting applies to the
+     * images downloaded from then on.
+     *
+     * @param item The menu item that was selected.
+     * @return true if the selection was handled.
+     */
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.download_hd_images) {
+            boolean downloadHd = !item.isChecked();
+            item.setChecked(downloadHd);
+            OfflineImageStore.getInstance(this).setDownloadingHdImages(downloadHd);
             return true;
+        }
+        return batchDeleteController.onOptionsItemSelected(item) || super.onOptionsItemSelected(item);
+    }
+
+    /**
+     * Replaces the list with the results of a search on the disk executor, or goes back to the paged
+     * list when the search is cleared. Only the results of the latest query are shown.
+     *
+     * @param query The text typed by the user, or null to show the full list again.
+     */
+    private void search(String query) {
+        if (Objects.equals(query, searchQuery)) {
+            return;
+        }
+        searchQuery = query;
+        pager = new ImageItemPager(imageDatabaseHelper::getImagesPage);
+        loading = false;
+        if (query == null) {
+            adapter.submitList(new ArrayList<>());
+            loadSavedImages();
+            return;
+        }
+        runOnDiskIO(() -> imageDatabaseHelper.searchImages(query, MAX_SEARCH_RESULTS), results -> {
+            if (query.equals(searchQuery)) {
+                adapter.submitList(results);
+            }
         });
     }
 
     /**
-     * Loads the saved images from the database and populates the ListView.
+     * Deletes the downloaded files of deleted saved images. Runs on the disk executor.
+     *
+     * @param localPaths The local paths returned by a deletion, one per deleted image.
+     * @return The number of deleted images.
      */
-    private void loadSavedImages() {
-        List<ImageItem> imageItemList = imageDatabaseHelper.getAllImages();
-        adapter = new ImageAdapter(this, imageItemList);
-        listView.setAdapter(adapter);
+    private static int deleteLocalFiles(List<String> localPaths) {
+        for (String localPath : localPaths) {
+            OfflineImageStore.deleteLocalFile(localPath);
+        }
+        return localPaths.size();
     }
 
     /**
-     * Opens the selected image in the default browser.
+     * Opens the selected image in the in-app viewer, from its downloaded file if it has one.
      *
-     * @param url The URL of the image to be opened.
+     * @param imageItem The saved image to open.
      */
-    private void openImageInBrowser(String url) {
-        Intent intent = new Intent(Intent.ACTION_VIEW, Uri.parse(url));
-        startActivity(intent);
+    private void openImage(ImageItem imageItem) {
+        startActivity(ImageViewerActivity.newIntent(this, imageItem.getImageUrl(), null, imageItem.getLocalPath()));
+    }
+
+    /**
+     * Called when the activity is being destroyed. Cancels all thumbnail loads started by this screen.
+     */
+    @Override
+    protected void onDestroy() {
+        ThumbnailLoader.getInstance(this).cancelTag(this);
+        super.onDestroy();
     }
 
     /**
@@ -0,0 +1,451 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.util.Log;
+import android.widget.ImageView;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.squareup.picasso.LruCache;
+import com.squareup.picasso.MemoryPolicy;
+import com.squareup.picasso.OkHttp3Downloader;
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.RequestCreator;
+import com.squareup.picasso.StatsSnapshot;
+import com.squareup.picasso.Target;
+
+import okhttp3.Cache;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ThumbnailLoader loads the small images shown in the image lists. It uses its own Picasso instance
+ * with a bounded memory cache and a disk cache kept apart from full-size images, and always decodes
+ * to the size of the target view, so a long list of multi-megapixel APOD images stays within a fixed
+ * bitmap budget however far the user scrolls. URLs that are known not to be images, such as the
+ * embedded players of video entries, are never requested: they are recognized by their host or
+ * extension, or remembered once a download of them turned out not to be an image by its content type.
+ * Hits are counted for both the memory cache and the disk cache.
+ */
+public class ThumbnailLoader {
+
+    private static final String TAG = "ThumbnailLoader";
+
+    /**
+     * The name of the directory, inside the app's cache directory, that holds downloaded thumbnails.
+     */
+    static final String DISK_CACHE_DIR = "thumbnails";
+
+    /**
+     * The maximum size of the thumbnail disk cache.
+     */
+    static final long DISK_CACHE_BYTES = 50L * 1024 * 1024;
+
+    /**
+     * The fraction of the maximum heap used for the thumbnail memory cache.
+     */
+    static final int MEMORY_CACHE_HEAP_DIVISOR = 16;
+
+    /**
+     * The maximum number of URLs remembered as not decodable.
+     */
+    static final int MAX_NON_DECODABLE_URLS = 256;
+
+    /**
+     * The hosts that serve video players rather than images.
+     */
+    private static final String[] VIDEO_HOSTS = {"youtube.com", "youtube-nocookie.com", "youtu.be", "vimeo.com"};
+
+    /**
+     * The extensions of files that BitmapFactory cannot decode.
+     */
+    private static final String[] NON_IMAGE_EXTENSIONS = {".html", ".htm", ".mp4", ".m4v", ".mov", ".webm", ".swf"};
+
+    private static ThumbnailLoader instance;
+
+    private final Picasso picasso;
+    private final LruCache memoryCache;
+    private final Cache diskCache;
+    private final OkHttpClient httpClient;
+
+    /**
+     * The URLs whose download could not be decoded, least recently looked up first.
+     */
+    private final Set<String> nonDecodableUrls = Collections.synchronizedSet(Collections.newSetFromMap(
+            new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_NON_DECODABLE_URLS;
+                }
+            }));
+
+    /**
+     * Returns the shared ThumbnailLoader, creating it on first use.
+     *
+     * @param context The context used to locate the cache directory.
+     * @return The shared ThumbnailLoader instance.
+     */
+    public static synchronized ThumbnailLoader getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            int memoryCacheBytes = (int) (Runtime.getRuntime().maxMemory() / MEMORY_CACHE_HEAP_DIVISOR);
+            instance = new ThumbnailLoader(appContext, new LruCache(memoryCacheBytes),
+                    new File(appContext.getCacheDir(), DISK_CACHE_DIR), DISK_CACHE_BYTES);
+        }
+        return instance;
+    }
+
+    /**
+     * Constructs a new ThumbnailLoader.
+     *
+     * @param context        The application context.
+     * @param memoryCache    The memory cache for decoded thumbnails.
+     * @param diskCacheDir   The directory of the HTTP disk cache for thumbnails.
+     * @param diskCacheBytes The maximum size of the disk cache.
+     */
+    ThumbnailLoader(Context context, LruCache memoryCache, File diskCacheDir, long diskCacheBytes) {
+        this.memoryCache = memoryCache;
+        this.diskCache = new Cache(diskCacheDir, diskCacheBytes);
+        this.httpClient = new OkHttpClient.Builder()
+                .cache(diskCache)
+                .addInterceptor(this::rememberNonImageResponse)
+                .build();
+        this.picasso = new Picasso.Builder(context)
+                .memoryCache(memoryCache)
+                .downloader(new OkHttp3Downloader(httpClient))
+                .build();
+    }
+
+    /**
+     * Remembers the URL of a successful download whose content type says it is not an image, such as
+     * an HTML page behind an image-looking URL, so that it is never requested as a bitmap again.
+     *
+     * @param chain The chain of the thumbnail request.
+     * @return The response, unchanged.
+     * @throws IOException If the request fails.
+     */
+    private Response rememberNonImageResponse(Interceptor.Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+        if (response.isSuccessful() && isNonImageContentType(response.header("Content-Type"))) {
+            String url = chain.request().url().toString();
+            Log.d(TAG, "Not an image, will not be requested again: " + url);
+            markNonDecodable(url);
+        }
+        return response;
+    }
+
+    /**
+     * Returns whether a content type names something other than an image. A missing content type and
+     * the generic binary type are given the benefit of the doubt, because some servers send images with them.
+     *
+     * @param contentType The value of the Content-Type header, or null.
+     * @return true if the body is known not to be an image, false otherwise.
+     */
+    static boolean isNonImageContentType(String contentType) {
+        if (contentType == null || contentType.trim().isEmpty()) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT).trim();
+        return !type.startsWith("image/") && !type.startsWith("application/octet-stream");
+    }
+
+    /**
+     * Loads a thumbnail into an image view. The image is decoded down to the measured size of the
+     * view and cropped to fill it, and a placeholder is shown until it is ready. Any earlier request
+     * for the same view is cancelled. A URL that is missing or not decodable only shows the placeholder.
+     *
+     * @param url       The URL of the image, or null if there is none.
+     * @param imageView The view that shows the thumbnail.
+     * @param tag       The tag of the screen making the request, used to pause or cancel its requests together.
+     */
+    public void load(String url, ImageView imageView, Object tag) {
+        if (!isDecodable(url)) {
+            picasso.cancelRequest(imageView);
+            imageView.setImageResource(R.drawable.thumbnail_placeholder);
+            return;
+        }
+        picasso.load(url)
+                .placeholder(R.drawable.thumbnail_placeholder)
+                .error(R.drawable.error_placeholder)
+                .config(Bitmap.Config.RGB_565)
+                .fit()
+                .centerCrop()
+                .tag(tag)
+                .into(imageView);
+    }
+
+    /**
+     * Loads a preview of an image into a target, scaled down to fit within the given size.
+     *
+     * @param url       The URL of the image.
+     * @param maxSizePx The maximum width and height of the preview.
+     * @param target    The target that receives the preview bitmap; the caller must keep a reference to it.
+     *                  It fails immediately if the URL is not decodable.
+     * @param tag       The tag of the screen making the request.
+     */
+    public void loadPreview(String url, int maxSizePx, Target target, Object tag) {
+        if (!isDecodable(url)) {
+            target.onBitmapFailed(new IOException("Not an image: " + url), null);
+            return;
+        }
+        loadPreview(picasso.load(url), maxSizePx, target, tag);
+    }
+
+    /**
+     * Loads a preview of a downloaded image into a target, like {@link #loadPreview(String, int, Target, Object)}
+     * but from the file, so that it appears without network access.
+     *
+     * @param file      The downloaded image.
+     * @param maxSizePx The maximum width and height of the preview.
+     * @param target    The target that receives the preview bitmap; the caller must keep a reference to it.
+     * @param tag       The tag of the screen making the request.
+     */
+    public void loadPreview(File file, int maxSizePx, Target target, Object tag) {
+        loadPreview(picasso.load(file), maxSizePx, target, tag);
+    }
+
+    /**
+     * Scales a preview request down to fit within the given size and starts it.
+     *
+     * @param request   The request for the image.
+     * @param maxSizePx The maximum width and height of the preview.
+     * @param target    The target that receives the preview bitmap.
+     * @param tag       The tag of the screen making the request.
+     */
+    private static void loadPreview(RequestCreator request, int maxSizePx, Target target, Object tag) {
+        request.config(Bitmap.Config.RGB_565)
+                .resize(maxSizePx, maxSizePx)
+                .centerInside()
+                .onlyScaleDown()
+                .tag(tag)
+                .into(target);
+    }
+
+    /**
+     * Downloads an image into the disk cache at low priority without displaying it, so that a later
+     * thumbnail or preview of it needs no network access. The decoded bitmap is not kept in memory.
+     * URLs that are not decodable are skipped.
+     *
+     * @param url    The URL of the image.
+     * @param sizePx The size the image is decoded to while it is fetched.
+     * @param tag    The tag of the requester, used to cancel its prefetches together.
+     */
+    public void prefetch(String url, int sizePx, Object tag) {
+        if (!isDecodable(url)) {
+            return;
+        }
+        picasso.load(url)
+                .config(Bitmap.Config.RGB_565)
+                .resize(sizePx, sizePx)
+                .centerCrop()
+                .onlyScaleDown()
+                .memoryPolicy(MemoryPolicy.NO_STORE)
+                .priority(Picasso.Priority.LOW)
+                .tag(tag)
+                .fetch();
+    }
+
+    /**
+     * Downloads an image into the disk cache on the calling thread, like {@link #prefetch(String, int, Object)}
+     * but returning only once the image has been downloaded and decoded. Must not be called on the main
+     * thread. URLs that are not decodable are skipped.
+     *
+     * @param url    The URL of the image.
+     * @param sizePx The size the image is decoded to while it is fetched.
+     * @return true if the image was downloaded, false if it was skipped.
+     * @throws IOException If the image cannot be downloaded or decoded.
+     */
+    public boolean prefetchNow(String url, int sizePx) throws IOException {
+        if (!isDecodable(url)) {
+            return false;
+        }
+        picasso.load(url)
+                .config(Bitmap.Config.RGB_565)
+                .resize(sizePx, sizePx)
+                .centerCrop()
+                .onlyScaleDown()
+                .memoryPolicy(MemoryPolicy.NO_STORE)
+                .get();
+        return true;
+    }
+
+    /**
+     * Returns whether a URL may be an image that can be decoded: it is not a video player or another
+     * known non-image file, and no earlier download of it failed to decode.
+     *
+     * @param url The URL, or null.
+     * @return true if the URL is worth downloading as a bitmap, false otherwise.
+     */
+    public boolean isDecodable(String url) {
+        return looksDecodable(url) && !nonDecodableUrls.contains(url);
+    }
+
+    /**
+     * Remembers that a URL is not an image, so that it is never downloaded as a bitmap again.
+     *
+     * @param url The URL that could not be decoded.
+     */
+    public void markNonDecodable(String url) {
+        nonDecodableUrls.add(url);
+    }
+
+    /**
+     * Returns whether a URL may point at a decodable image, judging by its host and extension only.
+     *
+     * @param url The URL, or null.
+     * @return false if the URL is missing or known not to be an image, true otherwise.
+     */
+    static boolean looksDecodable(String url) {
+        if (url == null || url.isEmpty()) {
+            return false;
+        }
+        Uri uri = Uri.parse(url);
+        String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : "";
+        for (String videoHost : VIDEO_HOSTS) {
+            if (host.equals(videoHost) || host.endsWith("." + videoHost)) {
+                return false;
+            }
+        }
+        String path = uri.getPath() != null ? uri.getPath().toLowerCase(Locale.ROOT) : "";
+        for (String extension : NON_IMAGE_EXTENSIONS) {
+            if (path.endsWith(extension)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cancels the pending request for an image view, for example when its row is recycled.
+     *
+     * @param imageView The view whose request should be cancelled.
+     */
+    public void cancelRequest(ImageView imageView) {
+        picasso.cancelRequest(imageView);
+    }
+
+    /**
+     * Cancels the pending request for a target, for example when its image is no longer needed.
+     *
+     * @param target The target whose request should be cancelled.
+     */
+    public void cancelRequest(Target target) {
+        picasso.cancelRequest(target);
+    }
+
+    /**
+     * Pauses all requests with the given tag, for example while the list is flung.
+     *
+     * @param tag The tag of the requests to pause.
+     */
+    public void pauseTag(Object tag) {
+        picasso.pauseTag(tag);
+    }
+
+    /**
+     * Resumes the requests with the given tag that were paused.
+     *
+     * @param tag The tag of the requests to resume.
+     */
+    public void resumeTag(Object tag) {
+        picasso.resumeTag(tag);
+    }
+
+    /**
+     * Cancels all requests with the given tag, for example when their screen is destroyed.
+     *
+     * @param tag The tag of the requests to cancel.
+     */
+    public void cancelTag(Object tag) {
+        picasso.cancelTag(tag);
+    }
+
+    /**
+     * Returns the number of bytes currently held by the thumbnail memory cache.
+     *
+     * @return The size of the memory cache in bytes.
+     */
+    public int getCacheSize() {
+        return memoryCache.size();
+    }
+
+    /**
+     * Returns the maximum number of bytes the thumbnail memory cache may hold.
+     *
+     * @return The maximum size of the memory cache in bytes.
+     */
+    public int getMaxCacheSize() {
+        return memoryCache.maxSize();
+    }
+
+    /**
+     * Returns the fraction of thumbnail requests served from the memory cache.
+     *
+     * @return The memory cache hit rate between 0 and 1, or 0 if no thumbnail has been requested yet.
+     */
+    public double getHitRate() {
+        StatsSnapshot stats = getStats();
+        long requests = stats.cacheHits + stats.cacheMisses;
+        return requests == 0 ? 0 : (double) stats.cacheHits / requests;
+    }
+
+    /**
+     * Returns the number of thumbnail downloads that were served by the disk cache without network access.
+     *
+     * @return The number of disk cache hits.
+     */
+    public int getDiskCacheHitCount() {
+        return diskCache.hitCount();
+    }
+
+    /**
+     * Returns the number of thumbnail downloads that went through the disk cache, whether or not they
+     * were served from it.
+     *
+     * @return The number of disk cache requests.
+     */
+    public int getDiskCacheRequestCount() {
+        return diskCache.requestCount();
+    }
+
+    /**
+     * Returns the fraction of thumbnail downloads served from the disk cache.
+     *
+     * @return The disk cache hit rate between 0 and 1, or 0 if nothing has been downloaded yet.
+     */
+    public double getDiskCacheHitRate() {
+        int requests = diskCache.requestCount();
+        return requests == 0 ? 0 : (double) diskCache.hitCount() / requests;
+    }
+
+    /**
+     * Returns the HTTP client that downloads thumbnails through the disk cache.
+     *
+     * @return The HTTP client.
+     */
+    @VisibleForTesting
+    OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the thumbnail Picasso instance, including cache hits,
+     * misses and the total size of decoded bitmaps.
+     *
+     * @return The current statistics.
+     */
+    public StatsSnapshot getStats() {
+        return picasso.getSnapshot();
+    }
+}
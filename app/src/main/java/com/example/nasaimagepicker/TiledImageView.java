@@ -0,0 +1,414 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AttributeSet;
+import android.util.LruCache;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TiledImageView shows a very large image that can be panned and zoomed without ever decoding it
+ * whole. A low-resolution preview is drawn first and stretched over the image; on top of it, only
+ * the tiles that are visible are decoded with a {@link BitmapRegionDecoder}, at the coarsest sample
+ * size that still matches the current zoom. Decoded tiles are kept in a cache bounded in bytes, so
+ * memory stays flat however large the image is.
+ */
+public class TiledImageView extends View {
+
+    /**
+     * The size of a tile, in pixels of the decoded tile bitmap.
+     */
+    static final int TILE_SIZE = 512;
+
+    /**
+     * The fraction of the maximum heap used for the tile cache.
+     */
+    static final int TILE_CACHE_HEAP_DIVISOR = 8;
+
+    /**
+     * The largest zoom, in screen pixels per image pixel.
+     */
+    private static final float MAX_SCALE = 2f;
+
+    private final Matrix matrix = new Matrix();
+    private final Matrix inverse = new Matrix();
+    private final float[] matrixValues = new float[9];
+    private final RectF rect = new RectF();
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Set<Tile> pendingTiles = new HashSet<>();
+    private final LruCache<Tile, Bitmap> tileCache =
+            new LruCache<Tile, Bitmap>((int) (Runtime.getRuntime().maxMemory() / TILE_CACHE_HEAP_DIVISOR)) {
+                @Override
+                protected int sizeOf(Tile tile, Bitmap bitmap) {
+                    return bitmap.getByteCount();
+                }
+            };
+    private final ScaleGestureDetector scaleDetector;
+    private final GestureDetector gestureDetector;
+
+    private Bitmap preview;
+    private BitmapRegionDecoder decoder;
+
+    /**
+     * The executor that decodes tiles while the view is attached to a window, or null while it is not.
+     */
+    private ExecutorService decodeExecutor;
+
+    /**
+     * The size of the image, also read by the decode thread.
+     */
+    private volatile int imageWidth;
+    private volatile int imageHeight;
+    private float minScale = 1f;
+
+    /**
+     * The sample size matching the current zoom. Tiles for any other sample size are no longer needed.
+     */
+    private volatile int currentSampleSize = 1;
+
+    /**
+     * Constructs a new TiledImageView.
+     *
+     * @param context The context the view is running in.
+     * @param attrs   The attributes of the XML tag that is inflating the view.
+     */
+    public TiledImageView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                zoomBy(detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+                return true;
+            }
+        });
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onScroll(MotionEvent e1, @NonNull MotionEvent e2, float distanceX, float distanceY) {
+                matrix.postTranslate(-distanceX, -distanceY);
+                constrain();
+                invalidate();
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                float target = getScale() > minScale * 1.01f ? minScale : Math.max(minScale, 1f);
+                zoomBy(target / getScale(), e.getX(), e.getY());
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Sets the low-resolution preview, which is shown stretched over the whole image until the tiles
+     * have been decoded. If the full image is not known yet, the preview defines the image bounds.
+     *
+     * @param preview The preview bitmap.
+     */
+    public void setPreview(Bitmap preview) {
+        this.preview = preview;
+        if (decoder == null) {
+            setImageSize(preview.getWidth(), preview.getHeight());
+        }
+        invalidate();
+    }
+
+    /**
+     * Sets the decoder of the full image. The view takes ownership of the decoder and recycles it when
+     * it is detached from its window.
+     *
+     * @param decoder The region decoder of the full image.
+     */
+    public void setDecoder(BitmapRegionDecoder decoder) {
+        this.decoder = decoder;
+        setImageSize(decoder.getWidth(), decoder.getHeight());
+        invalidate();
+    }
+
+    /**
+     * Changes the size of the displayed image and fits it into the view.
+     *
+     * @param width  The width of the image.
+     * @param height The height of the image.
+     */
+    private void setImageSize(int width, int height) {
+        imageWidth = width;
+        imageHeight = height;
+        fitToView();
+    }
+
+    /**
+     * Scales the image so that it fits the view and centers it.
+     */
+    private void fitToView() {
+        if (imageWidth == 0 || imageHeight == 0 || getWidth() == 0 || getHeight() == 0) {
+            return;
+        }
+        minScale = Math.min((float) getWidth() / imageWidth, (float) getHeight() / imageHeight);
+        matrix.setScale(minScale, minScale);
+        matrix.postTranslate((getWidth() - imageWidth * minScale) / 2f, (getHeight() - imageHeight * minScale) / 2f);
+    }
+
+    /**
+     * Zooms around a focus point, keeping the zoom between the fitted size and {@link #MAX_SCALE}.
+     *
+     * @param factor The zoom factor.
+     * @param focusX The x coordinate of the focus point in the view.
+     * @param focusY The y coordinate of the focus point in the view.
+     */
+    private void zoomBy(float factor, float focusX, float focusY) {
+        float scale = getScale();
+        float target = Math.max(minScale, Math.min(Math.max(minScale, MAX_SCALE), scale * factor));
+        matrix.postScale(target / scale, target / scale, focusX, focusY);
+        constrain();
+        invalidate();
+    }
+
+    /**
+     * Keeps the image centered along any axis where it is smaller than the view, and keeps its edges
+     * at or beyond the edges of the view along any axis where it is larger.
+     */
+    private void constrain() {
+        rect.set(0, 0, imageWidth, imageHeight);
+        matrix.mapRect(rect);
+        float dx = 0;
+        float dy = 0;
+        if (rect.width() <= getWidth()) {
+            dx = (getWidth() - rect.width()) / 2f - rect.left;
+        } else if (rect.left > 0) {
+            dx = -rect.left;
+        } else if (rect.right < getWidth()) {
+            dx = getWidth() - rect.right;
+        }
+        if (rect.height() <= getHeight()) {
+            dy = (getHeight() - rect.height()) / 2f - rect.top;
+        } else if (rect.top > 0) {
+            dy = -rect.top;
+        } else if (rect.bottom < getHeight()) {
+            dy = getHeight() - rect.bottom;
+        }
+        matrix.postTranslate(dx, dy);
+    }
+
+    /**
+     * Returns the current zoom, in screen pixels per image pixel.
+     *
+     * @return The current zoom.
+     */
+    private float getScale() {
+        matrix.getValues(matrixValues);
+        return matrixValues[Matrix.MSCALE_X];
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        fitToView();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = scaleDetector.onTouchEvent(event);
+        handled |= gestureDetector.onTouchEvent(event);
+        return handled || super.onTouchEvent(event);
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (imageWidth == 0 || imageHeight == 0) {
+            return;
+        }
+        canvas.save();
+        canvas.concat(matrix);
+        if (preview != null) {
+            rect.set(0, 0, imageWidth, imageHeight);
+            canvas.drawBitmap(preview, null, rect, paint);
+        }
+        if (decoder != null) {
+            drawTiles(canvas);
+        }
+        canvas.restore();
+    }
+
+    /**
+     * Draws the visible tiles that have been decoded and requests the ones that have not.
+     *
+     * @param canvas The canvas, already transformed to image coordinates.
+     */
+    private void drawTiles(Canvas canvas) {
+        int sampleSize = sampleSizeFor(getScale());
+        currentSampleSize = sampleSize;
+
+        matrix.invert(inverse);
+        rect.set(0, 0, getWidth(), getHeight());
+        inverse.mapRect(rect);
+        int extent = TILE_SIZE * sampleSize;
+        int firstColumn = Math.max(0, (int) (rect.left / extent));
+        int lastColumn = Math.min((imageWidth - 1) / extent, (int) (rect.right / extent));
+        int firstRow = Math.max(0, (int) (rect.top / extent));
+        int lastRow = Math.min((imageHeight - 1) / extent, (int) (rect.bottom / extent));
+
+        Rect region = new Rect();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Tile tile = new Tile(sampleSize, column, row);
+                Bitmap bitmap = tileCache.get(tile);
+                if (bitmap != null) {
+                    tile.region(imageWidth, imageHeight, region);
+                    canvas.drawBitmap(bitmap, null, region, paint);
+                } else {
+                    requestTile(tile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues the decoding of a tile, unless it is already queued. The tile is skipped when its turn
+     * comes if the zoom has changed to another sample size by then.
+     *
+     * @param tile The tile to decode.
+     */
+    private void requestTile(Tile tile) {
+        if (decodeExecutor == null || !pendingTiles.add(tile)) {
+            return;
+        }
+        BitmapRegionDecoder tileDecoder = decoder;
+        decodeExecutor.execute(() -> {
+            Bitmap bitmap = null;
+            if (tile.sampleSize == currentSampleSize) {
+                synchronized (tileDecoder) {
+                    if (!tileDecoder.isRecycled()) {
+                        Rect region = new Rect();
+                        tile.region(imageWidth, imageHeight, region);
+                        BitmapFactory.Options options = new BitmapFactory.Options();
+                        options.inSampleSize = tile.sampleSize;
+                        options.inPreferredConfig = Bitmap.Config.RGB_565;
+                        bitmap = tileDecoder.decodeRegion(region, options);
+                    }
+                }
+            }
+            Bitmap decoded = bitmap;
+            mainHandler.post(() -> {
+                pendingTiles.remove(tile);
+                if (decoded != null && decoder == tileDecoder) {
+                    tileCache.put(tile, decoded);
+                    invalidate();
+                }
+            });
+        });
+    }
+
+    /**
+     * Starts the thread that decodes tiles. A view that is attached again after it was detached gets a
+     * new one.
+     */
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (decodeExecutor == null) {
+            decodeExecutor = Executors.newSingleThreadExecutor();
+        }
+    }
+
+    /**
+     * Stops decoding, recycles the decoder and drops the decoded tiles.
+     */
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (decodeExecutor != null) {
+            decodeExecutor.shutdownNow();
+            decodeExecutor = null;
+        }
+        if (decoder != null) {
+            BitmapRegionDecoder detached = decoder;
+            decoder = null;
+            synchronized (detached) {
+                detached.recycle();
+            }
+        }
+        tileCache.evictAll();
+        pendingTiles.clear();
+    }
+
+    /**
+     * Returns the largest power of two sample size that still gives at least one decoded pixel per
+     * screen pixel at the given zoom.
+     *
+     * @param scale The zoom, in screen pixels per image pixel.
+     * @return The sample size.
+     */
+    static int sampleSizeFor(float scale) {
+        int sampleSize = 1;
+        while (sampleSize * 2 * scale <= 1f) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * A tile of the image at a given sample size.
+     */
+    static final class Tile {
+        final int sampleSize;
+        final int column;
+        final int row;
+
+        Tile(int sampleSize, int column, int row) {
+            this.sampleSize = sampleSize;
+            this.column = column;
+            this.row = row;
+        }
+
+        /**
+         * Computes the region of the image covered by this tile, clipped to the image bounds.
+         *
+         * @param imageWidth  The width of the image.
+         * @param imageHeight The height of the image.
+         * @param out         The rectangle that receives the region, in image pixels.
+         */
+        void region(int imageWidth, int imageHeight, Rect out) {
+            int extent = TILE_SIZE * sampleSize;
+            out.set(column * extent, row * extent,
+                    Math.min(imageWidth, (column + 1) * extent), Math.min(imageHeight, (row + 1) * extent));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Tile)) {
+                return false;
+            }
+            Tile other = (Tile) o;
+            return sampleSize == other.sampleSize && column == other.column && row == other.row;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sampleSize, column, row);
+        }
+    }
+}
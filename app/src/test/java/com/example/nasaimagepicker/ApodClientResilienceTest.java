@@ -0,0 +1,154 @@
+package com.example.nasaimagepicker;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the retries, rate limit handling and circuit breaker of {@link ApodClient} against a local
+ * mock HTTP server.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ApodClientResilienceTest {
+
+    private static final long OPEN_MS = 300;
+
+    private MockApodServer server;
+    private ApodClient client;
+    private final AtomicInteger responses = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockApodServer(0);
+        client = new ApodClient(server.url(), "TEST_KEY", 2000, 2000, Executors.newSingleThreadExecutor(), Runnable::run,
+                new RetryPolicy(3, 20, 100, 2000), new CircuitBreaker(3, OPEN_MS));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.close();
+        ApodCacheDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void transientServerErrors_areRetriedUntilSuccess() throws Exception {
+        server.setDispatcher(request -> responses.incrementAndGet() <= 2
+                ? MockApodServer.MockResponse.status(503)
+                : MockApodServer.MockResponse.json(MockApodServer.entryJson(request.query.get("date"))));
+
+        assertEquals("2024-03-07", client.fetchEntry("2024-03-07").getDate());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void clientErrors_areNotRetried() throws Exception {
+        server.setDispatcher(request -> MockApodServer.MockResponse.status(404));
+
+        try {
+            client.fetchEntry("2024-03-07");
+            fail("Expected ApodHttpException");
+        } catch (ApodHttpException e) {
+            assertEquals(404, e.getStatusCode());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void retryAfter_isWaitedForBeforeTheNextAttempt() throws Exception {
+        server.setDispatcher(request -> responses.incrementAndGet() == 1
+                ? MockApodServer.MockResponse.status(429).header("Retry-After", "1")
+                : MockApodServer.MockResponse.json(MockApodServer.entryJson(request.query.get("date"))));
+
+        long start = System.nanoTime();
+        client.fetchEntry("2024-03-07");
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(2, server.getRequestCount());
+        assertTrue("Waited only " + elapsedMs + " ms", elapsedMs >= 1000);
+    }
+
+    @Test
+    public void throttlingBeyondTheRetryLimit_opensTheCircuit_andFailsFastWithoutRequests() throws Exception {
+        server.setDispatcher(request -> MockApodServer.MockResponse.status(429).header("Retry-After", "3600"));
+
+        try {
+            client.fetchEntry("2024-03-07");
+            fail("Expected ApodHttpException");
+        } catch (ApodHttpException e) {
+            assertEquals(429, e.getStatusCode());
+            assertEquals(TimeUnit.HOURS.toMillis(1), e.getRetryAfterMs());
+        }
+        try {
+            client.fetchEntry("2024-03-08");
+            fail("Expected CircuitOpenException");
+        } catch (CircuitOpenException e) {
+            assertTrue(e.getRetryAfterMs() > TimeUnit.MINUTES.toMillis(59));
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void exhaustedRateLimit_opensTheCircuitUntilATrialRequestSucceeds() throws Exception {
+        server.setDispatcher(request -> MockApodServer.MockResponse.json(MockApodServer.entryJson(request.query.get("date")))
+                .header("X-RateLimit-Remaining", responses.incrementAndGet() == 1 ? "0" : "999"));
+
+        client.fetchEntry("2024-03-07");
+        try {
+            client.fetchEntry("2024-03-08");
+            fail("Expected CircuitOpenException");
+        } catch (CircuitOpenException expected) {
+            // The last request used up the key's allowance
+        }
+        Thread.sleep(OPEN_MS + 50);
+        client.fetchEntry("2024-03-09");
+        client.fetchEntry("2024-03-10");
+
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void repository_servesExpiredCachedEntryWhileThrottled() throws Exception {
+        String today = ApodDates.today();
+        ApodCacheDatabaseHelper cache = ApodCacheDatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+        cache.putEntry(new ApodEntry(today, "https://apod.nasa.gov/apod/image/today.jpg", null, "Today", "", "image"));
+        SQLiteDatabase db = ApodDatabase.getInstance(RuntimeEnvironment.getApplication()).getWritableDatabase();
+        db.execSQL("UPDATE " + ApodDatabase.TABLE_APOD_ENTRY + " SET " + ApodDatabase.COLUMN_FETCHED_AT + " = 0");
+        assertNull(cache.getEntry(today));
+        server.setDispatcher(request -> MockApodServer.MockResponse.status(429));
+
+        ApodRepository repository = new ApodRepository(client, cache, Runnable::run, Runnable::run);
+        AtomicReference<ApodEntry> result = new AtomicReference<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        repository.load(today, new ApodClient.Callback() {
+            @Override
+            public void onSuccess(ApodEntry entry) {
+                result.set(entry);
+                delivered.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                delivered.countDown();
+            }
+        });
+
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        assertNotNull(result.get());
+        assertEquals("Today", result.get().getTitle());
+        assertEquals(1, server.getRequestCount());
+    }
+}
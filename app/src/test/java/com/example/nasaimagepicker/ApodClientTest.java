@@ -0,0 +1,141 @@
+package com.example.nasaimagepicker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ApodClient} against a local mock HTTP server.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ApodClientTest {
+
+    private static final long HANDSHAKE_DELAY_MS = 40;
+    private static final int REQUESTS = 15;
+
+    private MockApodServer server;
+    private ApodClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockApodServer(HANDSHAKE_DELAY_MS);
+        client = new ApodClient(server.url(), "TEST_KEY", 2000, 2000,
+                Executors.newFixedThreadPool(2), Runnable::run);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void fetchEntry_decodesAllFieldsAndKeepsNewlines() throws Exception {
+        ApodEntry entry = client.fetchEntry("2024-03-07");
+
+        assertEquals("2024-03-07", entry.getDate());
+        assertEquals("https://apod.nasa.gov/apod/image/2024-03-07.jpg", entry.getUrl());
+        assertEquals("https://apod.nasa.gov/apod/image/hd_2024-03-07.jpg", entry.getHdUrl());
+        assertEquals("Title 2024-03-07", entry.getTitle());
+        assertEquals("Line one.\nLine two.", entry.getExplanation());
+        assertEquals("image", entry.getMediaType());
+    }
+
+    @Test
+    public void fetchEntry_videoEntry_requestsAndDecodesThumbnail() throws Exception {
+        server.setDispatcher(request -> "true".equals(request.query.get("thumbs"))
+                ? MockApodServer.MockResponse.json("{\"date\":\"2024-03-08\",\"media_type\":\"video\",\"title\":\"Eclipse\","
+                        + "\"url\":\"https://www.youtube.com/embed/abc?rel=0\","
+                        + "\"thumbnail_url\":\"https://img.youtube.com/vi/abc/0.jpg\"}")
+                : MockApodServer.MockResponse.status(400));
+
+        ApodEntry entry = client.fetchEntry("2024-03-08");
+
+        assertEquals("video", entry.getMediaType());
+        assertEquals("https://img.youtube.com/vi/abc/0.jpg", entry.getThumbnailUrl());
+        assertEquals("https://img.youtube.com/vi/abc/0.jpg", entry.getPreviewUrl());
+    }
+
+    @Test
+    public void fetchEntry_errorStatus_throwsApodHttpException_afterEveryAttempt() throws Exception {
+        server.setDispatcher(request -> MockApodServer.MockResponse.status(503));
+        // Retries without backoff, so the test does not sleep through the default delays
+        ApodClient noDelayClient = new ApodClient(server.url(), "TEST_KEY", 2000, 2000,
+                Executors.newSingleThreadExecutor(), Runnable::run, new RetryPolicy(3, 0, 0, 0), new CircuitBreaker());
+
+        try {
+            noDelayClient.fetchEntry("2024-03-07");
+            fail("Expected ApodHttpException");
+        } catch (ApodHttpException e) {
+            assertEquals(503, e.getStatusCode());
+        } finally {
+            noDelayClient.shutdown();
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void fetchRange_runtimeException_isDeliveredToOnError() throws Exception {
+        AtomicReference<Exception> error = new AtomicReference<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+
+        client.fetchRange(null, "2024-03-07", new ApodClient.RangeCallback() {
+            @Override
+            public void onSuccess(List<ApodEntry> entries) {
+                delivered.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                error.set(e);
+                delivered.countDown();
+            }
+        });
+
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        assertTrue(String.valueOf(error.get()), error.get() instanceof RuntimeException);
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void fetchEntry_reusesKeepAliveConnection_insteadOfOnePerRequest() throws Exception {
+        // Baseline: a new connection for every request, as the old per-call fetch did
+        for (int i = 0; i < REQUESTS; i++) {
+            fetchWithoutReuse(server.url() + "?api_key=TEST_KEY&date=2024-01-" + (10 + i));
+        }
+        int coldConnections = server.getConnectionCount();
+
+        for (int i = 0; i < REQUESTS; i++) {
+            client.fetchEntry("2024-02-" + (10 + i));
+        }
+        int warmConnections = server.getConnectionCount() - coldConnections;
+
+        assertEquals(REQUESTS, coldConnections);
+        assertEquals(1, warmConnections);
+    }
+
+    private static void fetchWithoutReuse(String url) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestProperty("Connection", "close");
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) != -1) {
+                // Discard the body
+            }
+        }
+        connection.disconnect();
+    }
+}
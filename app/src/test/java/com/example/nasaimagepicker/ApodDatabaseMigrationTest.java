@@ -0,0 +1,90 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the migration of the separate version 1 databases into {@link ApodDatabase}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ApodDatabaseMigrationTest {
+
+    @After
+    public void tearDown() {
+        ImageDatabaseHelper.resetInstance();
+        HistoryDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void upgradeFromVersion1_copiesSavedImagesAndHistoryIntoOneSchema() {
+        Context context = RuntimeEnvironment.getApplication();
+        context.getDatabasePath("saved_images.db").getParentFile().mkdirs();
+
+        SQLiteDatabase saved = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath("saved_images.db"), null);
+        saved.execSQL("CREATE TABLE images (_id INTEGER PRIMARY KEY AUTOINCREMENT, url TEXT UNIQUE, date TEXT, description TEXT)");
+        saved.execSQL("INSERT INTO images (_id, url, date, description) VALUES (7, 'https://apod.nasa.gov/a.jpg', '2024-3-7', 'Sample Description')");
+        saved.setVersion(1);
+        saved.close();
+
+        SQLiteDatabase history = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath("history.db"), null);
+        history.execSQL("CREATE TABLE history (_id INTEGER PRIMARY KEY AUTOINCREMENT, url TEXT, date TEXT, description TEXT, date_accessed TEXT)");
+        history.execSQL("INSERT INTO history (url, date, description, date_accessed) VALUES ('https://apod.nasa.gov/a.jpg', '2024-3-7', 'History Entry', '2024-03-08 10:00:00')");
+        history.execSQL("INSERT INTO history (url, date, description, date_accessed) VALUES ('https://apod.nasa.gov/b.jpg', '2024-3-8', 'History Entry', '2024-3-9 9:00:00')");
+        history.setVersion(1);
+        history.close();
+
+        List<ImageItem> images = ImageDatabaseHelper.getInstance(context).getAllImages();
+        assertEquals(1, images.size());
+        assertEquals(7, images.get(0).getId());
+        assertEquals("https://apod.nasa.gov/a.jpg", images.get(0).getImageUrl());
+
+        List<ImageItem> historyItems = HistoryDatabaseHelper.getInstance(context).getAllHistory();
+        assertEquals(2, historyItems.size());
+        assertEquals("https://apod.nasa.gov/b.jpg", historyItems.get(0).getImageUrl());
+        assertFalse(historyItems.get(0).isSaved());
+        assertEquals("2024-03-08", historyItems.get(0).getDate());
+        assertEquals("2024-03-09 09:00:00", historyItems.get(0).getDateAccessed());
+        assertTrue(historyItems.get(1).isSaved());
+
+        SQLiteDatabase db = ApodDatabase.getInstance(context).getReadableDatabase();
+        assertEquals(8, db.getVersion());
+        assertEquals(2, DatabaseUtils.queryNumEntries(db, ApodDatabase.TABLE_APOD_ENTRY));
+        assertFalse(context.getDatabasePath("history.db").exists());
+        assertNull(images.get(0).getLocalPath());
+        assertTrue(ImageDatabaseHelper.getInstance(context).setLocalPath("https://apod.nasa.gov/a.jpg", "/data/a.jpg"));
+        assertEquals("/data/a.jpg", ImageDatabaseHelper.getInstance(context).getAllImages().get(0).getLocalPath());
+    }
+
+    @Test
+    public void upgradeFromVersion6_normalizesDates_andUpgradesHistory() {
+        Context context = RuntimeEnvironment.getApplication();
+        SQLiteDatabase db = ApodDatabase.getInstance(context).getWritableDatabase();
+        db.execSQL("DROP TABLE history");
+        db.execSQL("CREATE TABLE history (_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                " entry_id INTEGER NOT NULL REFERENCES apod_entry(_id) ON DELETE CASCADE, date_accessed TEXT)");
+        db.execSQL("INSERT INTO apod_entry (_id, date, url) VALUES (1, '2024-3-7', 'https://apod.nasa.gov/a.jpg')");
+        db.execSQL("INSERT INTO history (entry_id, date_accessed) VALUES (1, '2024-3-9 9:05:00')");
+        db.execSQL("INSERT INTO history (entry_id, date_accessed) VALUES (1, 'not a date')");
+        db.setVersion(6);
+        ApodDatabase.resetInstance();
+
+        db = ApodDatabase.getInstance(context).getReadableDatabase();
+        assertEquals(8, db.getVersion());
+        assertEquals("2024-03-07", DatabaseUtils.stringForQuery(db, "SELECT date FROM apod_entry WHERE _id = 1", null));
+        assertEquals(1, DatabaseUtils.queryNumEntries(db, "history", "date_accessed = '2024-03-09 09:05:00'"));
+        assertEquals(1, DatabaseUtils.queryNumEntries(db, "history", "date_accessed = 'not a date'"));
+        assertEquals(1, DatabaseUtils.queryNumEntries(db, "sqlite_master", "name = 'idx_history_date_accessed'"));
+        assertEquals(2, DatabaseUtils.queryNumEntries(db, "history", "view_count = 1"));
+    }
+}
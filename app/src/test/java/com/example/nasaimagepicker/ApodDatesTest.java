@@ -0,0 +1,53 @@
+package com.example.nasaimagepicker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ApodDates}.
+ */
+public class ApodDatesTest {
+
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void setUp() {
+        defaultTimeZone = TimeZone.getDefault();
+        // A device well ahead of US Eastern time
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void today_followsUsEasternTime_whateverTheDeviceTimeZone() {
+        // 2024-03-08 10:00 in Tokyo is still 2024-03-07 20:00 in New York
+        long tokyoMorning = 1709859600000L;
+
+        assertEquals("2024-03-07", ApodDates.today(tokyoMorning));
+        // Midnight in New York, daylight saving time not yet started
+        assertEquals("2024-03-08", ApodDates.today(ApodDates.startOfDay("2024-03-08")));
+        assertEquals("2024-03-07", ApodDates.today(ApodDates.startOfDay("2024-03-08") - 1));
+    }
+
+    @Test
+    public void dateArithmetic_isUnaffectedByDaylightSavingTime() {
+        assertEquals("2024-03-11", ApodDates.addDays("2024-03-09", 2));
+        assertEquals(2, ApodDates.daysBetween("2024-03-09", "2024-03-11"));
+        assertEquals("2024-11-04", ApodDates.addDays("2024-11-02", 2));
+    }
+
+    @Test
+    public void toLocalCalendar_isMidnightInTheDeviceTimeZone() {
+        assertEquals(ApodDates.startOfDay("2024-03-08") - 14 * 3600000L,
+                ApodDates.toLocalCalendar("2024-03-08").getTimeInMillis());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.nasaimagepicker;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares decoding a year-long range response with {@link ApodJsonParser} straight from the stream
+ * against the previous approach of buffering the body into a String line by line and building an
+ * org.json tree. Both are warmed up first, then measured over several iterations for time and for
+ * the bytes allocated on the measuring thread; the measurements are reported in the assertion messages.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ApodJsonParserBenchmarkTest {
+
+    private static final int DAYS = 365;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 30;
+
+    /**
+     * The factor by which the streaming parse time may exceed the String and tree parse time before it counts as slower.
+     */
+    private static final double TIME_MARGIN = 1.5;
+
+    @Test
+    public void streamingParser_allocatesLessAndIsNotSlowerThanStringAndTree() throws Exception {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        byte[] payload = yearLongPayload();
+        assertEquals(DAYS, parseStreaming(payload).size());
+        assertEquals(DAYS, parseStringAndTree(payload).size());
+        assertEquals(parseStreaming(payload).get(100).getExplanation(), parseStringAndTree(payload).get(100).getExplanation());
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            parseStreaming(payload);
+            parseStringAndTree(payload);
+        }
+
+        long streamingBytes = allocationBean.getThreadAllocatedBytes(threadId);
+        long streamingStart = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            parseStreaming(payload);
+        }
+        long streamingNs = (System.nanoTime() - streamingStart) / MEASURED_ITERATIONS;
+        streamingBytes = (allocationBean.getThreadAllocatedBytes(threadId) - streamingBytes) / MEASURED_ITERATIONS;
+
+        long treeBytes = allocationBean.getThreadAllocatedBytes(threadId);
+        long treeStart = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            parseStringAndTree(payload);
+        }
+        long treeNs = (System.nanoTime() - treeStart) / MEASURED_ITERATIONS;
+        treeBytes = (allocationBean.getThreadAllocatedBytes(threadId) - treeBytes) / MEASURED_ITERATIONS;
+
+        String measurements = DAYS + " entries (" + payload.length / 1024 + " KiB): streaming " + streamingNs / 1000
+                + " us, " + streamingBytes / 1024 + " KiB allocated; String + org.json " + treeNs / 1000 + " us, "
+                + treeBytes / 1024 + " KiB allocated";
+        assertTrue("Streaming should allocate less; " + measurements, streamingBytes < treeBytes);
+        // The margin absorbs timer and scheduling noise on shared CI machines
+        assertTrue("Streaming should not be slower; " + measurements, streamingNs < treeNs * TIME_MARGIN);
+    }
+
+    /**
+     * Decodes the payload the way the app does now.
+     */
+    private static List<ApodEntry> parseStreaming(byte[] payload) throws Exception {
+        InputStream inputStream = new ByteArrayInputStream(payload);
+        return ApodJsonParser.parse(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reproduces the previous behaviour of reading the body into a String and parsing it into a JSON tree.
+     */
+    private static List<ApodEntry> parseStringAndTree(byte[] payload) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8));
+        StringBuilder body = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            body.append(line).append('\n');
+        }
+        JSONArray array = new JSONArray(body.toString());
+        List<ApodEntry> entries = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject object = array.getJSONObject(i);
+            entries.add(new ApodEntry(object.getString("date"), object.getString("url"), object.optString("hdurl", null),
+                    object.optString("title", null), object.optString("explanation", null), object.optString("media_type", null),
+                    object.optString("thumbnail_url", null), object.optString("copyright", null)));
+        }
+        return entries;
+    }
+
+    /**
+     * Builds a range response for a whole year with explanations of realistic length.
+     */
+    private static byte[] yearLongPayload() {
+        StringBuilder explanation = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            explanation.append("What is that glowing cloud near the galactic plane? Astronomers explain the sight.\\n");
+        }
+        StringBuilder json = new StringBuilder("[");
+        String date = "2023-01-01";
+        for (int i = 0; i < DAYS; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"copyright\":\"\\nSome Astrophotographer\\n\",\"date\":\"").append(date)
+                    .append("\",\"explanation\":\"").append(explanation)
+                    .append("\",\"hdurl\":\"https://apod.nasa.gov/apod/image/2301/hd_").append(date)
+                    .append(".jpg\",\"media_type\":\"image\",\"service_version\":\"v1\",\"title\":\"Title ").append(date)
+                    .append("\",\"url\":\"https://apod.nasa.gov/apod/image/2301/").append(date).append(".jpg\"}");
+            date = ApodDates.addDays(date, 1);
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
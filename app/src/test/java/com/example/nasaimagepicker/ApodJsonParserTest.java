@@ -0,0 +1,77 @@
+package com.example.nasaimagepicker;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the decoding of single-entry and range responses by {@link ApodJsonParser}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ApodJsonParserTest {
+
+    @Test
+    public void parse_singleObject_decodesAllFieldsAndTrimsCopyright() throws Exception {
+        List<ApodEntry> entries = ApodJsonParser.parse(new StringReader("{\"copyright\":\"\\nJane Doe\\n\","
+                + "\"date\":\"2024-03-07\",\"explanation\":\"Line one.\\nLine two.\",\"hdurl\":\"https://a/hd.jpg\","
+                + "\"media_type\":\"image\",\"service_version\":\"v1\",\"title\":\"Title\",\"url\":\"https://a/i.jpg\","
+                + "\"resource\":{\"image_set\":\"apod\"}}"));
+
+        assertEquals(1, entries.size());
+        ApodEntry entry = entries.get(0);
+        assertEquals("2024-03-07", entry.getDate());
+        assertEquals("https://a/i.jpg", entry.getUrl());
+        assertEquals("https://a/hd.jpg", entry.getHdUrl());
+        assertEquals("Title", entry.getTitle());
+        assertEquals("Line one.\nLine two.", entry.getExplanation());
+        assertEquals("image", entry.getMediaType());
+        assertEquals("Jane Doe", entry.getCopyright());
+    }
+
+    @Test
+    public void parse_array_decodesEveryEntryInOrder() throws Exception {
+        List<ApodEntry> entries = ApodJsonParser.parse(new StringReader("[" + MockApodServer.entryJson("2024-03-07")
+                + "," + MockApodServer.entryJson("2024-03-08") + "]"));
+
+        assertEquals(2, entries.size());
+        assertEquals("2024-03-07", entries.get(0).getDate());
+        assertEquals("2024-03-08", entries.get(1).getDate());
+        assertNull(entries.get(0).getCopyright());
+    }
+
+    @Test
+    public void parse_nullFields_areLeftUnset() throws Exception {
+        List<ApodEntry> entries = ApodJsonParser.parse(new StringReader(
+                "{\"date\":\"2024-03-07\",\"hdurl\":null,\"copyright\":null,\"url\":\"https://a/i.jpg\"}"));
+
+        assertNull(entries.get(0).getHdUrl());
+        assertNull(entries.get(0).getCopyright());
+    }
+
+    @Test(expected = IOException.class)
+    public void parse_singleEntryWithoutUrl_throws() throws Exception {
+        ApodJsonParser.parse(new StringReader("{\"date\":\"2024-03-07\",\"title\":\"Title\"}"));
+    }
+
+    @Test
+    public void parse_arrayWithEntryWithoutUrl_skipsOnlyThatEntry() throws Exception {
+        List<ApodEntry> entries = ApodJsonParser.parse(new StringReader("[" + MockApodServer.entryJson("2024-03-07")
+                + ",{\"date\":\"2024-03-08\",\"media_type\":\"other\",\"title\":\"Interactive\"},"
+                + MockApodServer.entryJson("2024-03-09") + "]"));
+
+        assertEquals(2, entries.size());
+        assertEquals("2024-03-07", entries.get(0).getDate());
+        assertEquals("2024-03-09", entries.get(1).getDate());
+    }
+
+    @Test(expected = IOException.class)
+    public void parse_truncatedResponse_throws() throws Exception {
+        ApodJsonParser.parse(new StringReader("[" + MockApodServer.entryJson("2024-03-07") + ",{\"date\":"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.nasaimagepicker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ApodPrefetcher} against a local mock HTTP server.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ApodPrefetcherTest {
+
+    private MockApodServer server;
+    private ApodClient client;
+    private ApodCacheDatabaseHelper cache;
+    private ExecutorService executor;
+    private final List<String> prefetchedUrls = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockApodServer(0);
+        server.setDispatcher(this::rangeResponse);
+        client = new ApodClient(server.url(), "TEST_KEY", 2000, 2000, Executors.newSingleThreadExecutor(), Runnable::run);
+        cache = ApodCacheDatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        client.shutdown();
+        server.close();
+        ApodCacheDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void prefetchAround_fetchesAdjacentDaysWithOneRangeRequest_andImagesNearestFirst() throws Exception {
+        ApodPrefetcher prefetcher = newPrefetcher(ApodPrefetcher.REQUEST_BUDGET);
+
+        prefetcher.prefetchAround("2024-3-10");
+        awaitIdle();
+
+        assertEquals(Collections.singletonList("2024-03-07..2024-03-13"), ranges);
+        assertEquals(7, cache.getEntriesBetween("2024-03-07", "2024-03-13").size());
+        assertEquals(Arrays.asList(imageUrl("2024-03-09"), imageUrl("2024-03-11"), imageUrl("2024-03-08"),
+                imageUrl("2024-03-12"), imageUrl("2024-03-07"), imageUrl("2024-03-13")), prefetchedUrls);
+    }
+
+    @Test
+    public void prefetchAround_onlyFetchesDaysMissingFromTheCache() throws Exception {
+        ApodPrefetcher prefetcher = newPrefetcher(ApodPrefetcher.REQUEST_BUDGET);
+
+        prefetcher.prefetchAround("2024-03-10");
+        awaitIdle();
+        prefetcher.prefetchAround("2024-03-11");
+        awaitIdle();
+
+        assertEquals(Arrays.asList("2024-03-07..2024-03-13", "2024-03-14..2024-03-14"), ranges);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void prefetchAround_stopsWhenTheRequestBudgetIsSpent() throws Exception {
+        ApodPrefetcher prefetcher = newPrefetcher(3);
+
+        prefetcher.prefetchAround("2024-03-10");
+        awaitIdle();
+
+        assertEquals(1, ranges.size());
+        assertEquals(Arrays.asList(imageUrl("2024-03-09"), imageUrl("2024-03-11")), prefetchedUrls);
+    }
+
+    @Test
+    public void prefetchAround_anotherDate_cancelsThePreviousPrefetch() throws Exception {
+        server.setDispatcher(request -> rangeResponse(request).delay(300));
+        ApodPrefetcher prefetcher = newPrefetcher(ApodPrefetcher.REQUEST_BUDGET);
+
+        Cancellable first = prefetcher.prefetchAround("2024-03-10");
+        Thread.sleep(100);
+        prefetcher.prefetchAround("2020-01-10");
+        awaitIdle();
+
+        assertTrue(first.isCancelled());
+        assertEquals(Arrays.asList("2024-03-07..2024-03-13", "2020-01-07..2020-01-13"), ranges);
+        assertEquals(6, prefetchedUrls.size());
+        for (String url : prefetchedUrls) {
+            assertTrue(url, url.contains("2020-01-"));
+        }
+    }
+
+    private MockApodServer.MockResponse rangeResponse(MockApodServer.Request request) {
+        String start = request.query.get("start_date");
+        String end = request.query.get("end_date");
+        ranges.add(start + ".." + end);
+        StringBuilder body = new StringBuilder("[");
+        for (String day = start; day.compareTo(end) <= 0; day = ApodDates.addDays(day, 1)) {
+            body.append(body.length() > 1 ? "," : "").append(MockApodServer.entryJson(day));
+        }
+        return MockApodServer.MockResponse.json(body.append("]").toString());
+    }
+
+    private ApodPrefetcher newPrefetcher(int requestBudget) {
+        ApodPrefetcher.ThumbnailPrefetcher thumbnails = new ApodPrefetcher.ThumbnailPrefetcher() {
+            @Override
+            public boolean isAllowed() {
+                return true;
+            }
+
+            @Override
+            public void prefetch(String url) {
+                prefetchedUrls.add(url);
+            }
+
+            @Override
+            public void cancel() {
+            }
+        };
+        return new ApodPrefetcher(client, cache, thumbnails, executor, 3, requestBudget, TimeUnit.HOURS.toMillis(1));
+    }
+
+    private void awaitIdle() throws Exception {
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static String imageUrl(String date) {
+        return "https://apod.nasa.gov/apod/image/" + date + ".jpg";
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.nasaimagepicker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ApodRepository} against a local mock HTTP server.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ApodRepositoryTest {
+
+    private static final long RESPONSE_DELAY_MS = 300;
+
+    private MockApodServer server;
+    private ApodClient client;
+    private ApodRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockApodServer(0);
+        server.setDispatcher(request -> MockApodServer.MockResponse.json(MockApodServer.entryJson(request.query.get("date")))
+                .delay(RESPONSE_DELAY_MS));
+        client = new ApodClient(server.url(), "TEST_KEY", 2000, 2000, Executors.newFixedThreadPool(2), Runnable::run);
+        repository = new ApodRepository(client, ApodCacheDatabaseHelper.getInstance(RuntimeEnvironment.getApplication()),
+                Runnable::run, Runnable::run);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.close();
+        ApodCacheDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void load_deliversFetchedEntry() throws Exception {
+        CountDownLatch delivered = new CountDownLatch(1);
+        repository.load("2024-03-07", new CountingCallback(new AtomicInteger(), delivered));
+
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancelledLoad_neverInvokesCallback() throws Exception {
+        AtomicInteger callbacks = new AtomicInteger();
+        Cancellable load = repository.load("2024-03-07", new CountingCallback(callbacks, new CountDownLatch(1)));
+        Thread.sleep(RESPONSE_DELAY_MS / 3);
+        load.cancel();
+
+        Thread.sleep(RESPONSE_DELAY_MS * 2);
+        assertTrue(load.isCancelled());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, callbacks.get());
+    }
+
+    @Test
+    public void concurrentLoadsOfSameDates_shareOneRequestPerDate() throws Exception {
+        int dates = 4;
+        int loads = 400;
+        CountDownLatch release = new CountDownLatch(1);
+        server.setDispatcher(request -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return MockApodServer.MockResponse.json(MockApodServer.entryJson(request.query.get("date")));
+        });
+        ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        ApodClient sharedClient = new ApodClient(server.url(), "TEST_KEY", 2000, 5000, Executors.newFixedThreadPool(dates), Runnable::run);
+        ApodRepository sharedRepository = new ApodRepository(sharedClient,
+                ApodCacheDatabaseHelper.getInstance(RuntimeEnvironment.getApplication()), diskExecutor, Runnable::run);
+        CountDownLatch delivered = new CountDownLatch(loads);
+        AtomicInteger wrongDates = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        for (int i = 0; i < loads; i++) {
+            String date = "2024-03-0" + (1 + i % dates);
+            callers.execute(() -> sharedRepository.load(date, new ApodClient.Callback() {
+                @Override
+                public void onSuccess(ApodEntry entry) {
+                    if (!date.equals(entry.getDate())) {
+                        wrongDates.incrementAndGet();
+                    }
+                    delivered.countDown();
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    errors.incrementAndGet();
+                    delivered.countDown();
+                }
+            }));
+        }
+        // Hold the responses until every load has missed the cache and joined a fetch
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+        diskExecutor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        release.countDown();
+
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+        assertEquals(0, errors.get());
+        assertEquals(0, wrongDates.get());
+        assertEquals(dates, server.getRequestCount());
+        sharedClient.shutdown();
+        diskExecutor.shutdown();
+    }
+
+    @Test
+    public void cancellingOneOfTwoLoads_keepsTheSharedRequestForTheOther() throws Exception {
+        AtomicInteger cancelledCallbacks = new AtomicInteger();
+        AtomicInteger otherCallbacks = new AtomicInteger();
+        CountDownLatch delivered = new CountDownLatch(1);
+
+        Cancellable first = repository.load("2024-03-07", new CountingCallback(cancelledCallbacks, new CountDownLatch(1)));
+        repository.load("2024-03-07", new CountingCallback(otherCallbacks, delivered));
+        first.cancel();
+
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, cancelledCallbacks.get());
+        assertEquals(1, otherCallbacks.get());
+    }
+
+    private static class CountingCallback implements ApodClient.Callback {
+        private final AtomicInteger callbacks;
+        private final CountDownLatch delivered;
+
+        CountingCallback(AtomicInteger callbacks, CountDownLatch delivered) {
+            this.callbacks = callbacks;
+            this.delivered = delivered;
+        }
+
+        @Override
+        public void onSuccess(ApodEntry entry) {
+            callbacks.incrementAndGet();
+            delivered.countDown();
+        }
+
+        @Override
+        public void onError(Exception e) {
+            callbacks.incrementAndGet();
+            delivered.countDown();
+        }
+    }
+}
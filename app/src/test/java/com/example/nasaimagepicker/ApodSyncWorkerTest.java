@@ -0,0 +1,247 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Configuration;
+import androidx.work.ListenableWorker;
+import androidx.work.NetworkType;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.WorkerFactory;
+import androidx.work.WorkerParameters;
+import androidx.work.testing.SynchronousExecutor;
+import androidx.work.testing.TestDriver;
+import androidx.work.testing.TestListenableWorkerBuilder;
+import androidx.work.testing.WorkManagerTestInitHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ApodSyncWorker} against a local mock HTTP server, driven by WorkManager's test driver.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ApodSyncWorkerTest {
+
+    private Context context;
+    private MockApodServer server;
+    private ApodClient client;
+    private ExecutorService clientExecutor;
+    private ApodCacheDatabaseHelper cache;
+    private SharedPreferences preferences;
+    private String today;
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> downloadedUrls = Collections.synchronizedList(new ArrayList<>());
+    private final Set<String> failingUrls = Collections.synchronizedSet(new HashSet<>());
+
+    private final WorkerFactory workerFactory = new WorkerFactory() {
+        @Override
+        public ListenableWorker createWorker(@NonNull Context appContext, @NonNull String workerClassName,
+                                             @NonNull WorkerParameters workerParameters) {
+            return new ApodSyncWorker(appContext, workerParameters, client, cache, ApodSyncWorkerTest.this::download, preferences);
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        context = RuntimeEnvironment.getApplication();
+        today = ApodDates.today();
+        server = new MockApodServer(0);
+        server.setDispatcher(this::response);
+        clientExecutor = Executors.newSingleThreadExecutor();
+        client = new ApodClient(server.url(), "TEST_KEY", 2000, 2000, clientExecutor, Runnable::run);
+        cache = ApodCacheDatabaseHelper.getInstance(context);
+        preferences = context.getSharedPreferences(ApodSyncWorker.PREFS_NAME, Context.MODE_PRIVATE);
+        preferences.edit().clear().commit();
+        WorkManagerTestInitHelper.initializeTestWorkManager(context, new Configuration.Builder()
+                .setMinimumLoggingLevel(Log.DEBUG)
+                .setExecutor(new SynchronousExecutor())
+                .setWorkerFactory(workerFactory)
+                .build());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.close();
+        ApodCacheDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void schedule_enqueuesOnePeriodicSync_onlyOnUnmeteredNetworksWhileCharging() throws Exception {
+        ApodSyncWorker.schedule(context);
+        ApodSyncWorker.schedule(context);
+
+        List<WorkInfo> workInfos = workInfos();
+        assertEquals(1, workInfos.size());
+        assertEquals(WorkInfo.State.ENQUEUED, workInfos.get(0).getState());
+        assertEquals(NetworkType.UNMETERED, workInfos.get(0).getConstraints().getRequiredNetworkType());
+        assertTrue(workInfos.get(0).getConstraints().requiresCharging());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void sync_backfillsTheDaysSinceTheLastSync_andToday() throws Exception {
+        String lastSynced = ApodDates.addDays(today, -4);
+        preferences.edit().putString(ApodSyncWorker.KEY_LAST_SYNCED_DATE, lastSynced).commit();
+        cache.putEntry(entry(lastSynced));
+        ApodSyncWorker.schedule(context);
+
+        TestDriver testDriver = WorkManagerTestInitHelper.getTestDriver(context);
+        testDriver.setAllConstraintsMet(workInfos().get(0).getId());
+
+        assertEquals(Arrays.asList(ApodDates.addDays(today, -3) + ".." + ApodDates.addDays(today, -1), today), requests);
+        assertEquals(5, cache.getEntriesBetween(lastSynced, today).size());
+        assertEquals(today, preferences.getString(ApodSyncWorker.KEY_LAST_SYNCED_DATE, null));
+        assertEquals(Arrays.asList(imageUrl(today), imageUrl(ApodDates.addDays(today, -1)),
+                imageUrl(ApodDates.addDays(today, -2)), imageUrl(ApodDates.addDays(today, -3))), downloadedUrls);
+        assertEquals(WorkInfo.State.ENQUEUED, workInfos().get(0).getState());
+
+        // The next period finds everything cached and makes no requests
+        testDriver.setPeriodDelayMet(workInfos().get(0).getId());
+
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void sync_firstRun_backfillsAtMostTheMaximumNumberOfDays() throws Exception {
+        ApodSyncWorker.schedule(context);
+
+        WorkManagerTestInitHelper.getTestDriver(context).setAllConstraintsMet(workInfos().get(0).getId());
+
+        assertEquals(Arrays.asList(ApodDates.addDays(today, -ApodSyncWorker.MAX_BACKFILL_DAYS) + ".."
+                + ApodDates.addDays(today, -1), today), requests);
+        assertEquals(ApodSyncWorker.MAX_BACKFILL_DAYS + 1,
+                cache.getEntriesBetween(ApodDates.addDays(today, -ApodSyncWorker.MAX_BACKFILL_DAYS), today).size());
+    }
+
+    @Test
+    public void sync_leavesTodayForTheNextRun_whenItIsNotPublishedYet() throws Exception {
+        server.setDispatcher(request -> today.equals(request.query.get("date"))
+                ? MockApodServer.MockResponse.status(404) : response(request));
+        preferences.edit().putString(ApodSyncWorker.KEY_LAST_SYNCED_DATE, ApodDates.addDays(today, -1)).commit();
+
+        ListenableWorker.Result result = newWorker().doWork();
+
+        assertEquals(ListenableWorker.Result.success(), result);
+        assertEquals(ApodDates.addDays(today, -1), preferences.getString(ApodSyncWorker.KEY_LAST_SYNCED_DATE, null));
+        assertEquals(1, cache.getEntriesBetween(ApodDates.addDays(today, -1), today).size());
+    }
+
+    @Test
+    public void sync_downloadsTheRemainingImages_whenOneDownloadFails() throws Exception {
+        preferences.edit().putString(ApodSyncWorker.KEY_LAST_SYNCED_DATE, ApodDates.addDays(today, -3)).commit();
+        failingUrls.add(imageUrl(ApodDates.addDays(today, -1)));
+
+        ListenableWorker.Result result = newWorker().doWork();
+
+        assertEquals(ListenableWorker.Result.success(), result);
+        assertEquals(Arrays.asList(imageUrl(today), imageUrl(ApodDates.addDays(today, -2)),
+                imageUrl(ApodDates.addDays(today, -3))), downloadedUrls);
+        assertEquals(today, preferences.getString(ApodSyncWorker.KEY_LAST_SYNCED_DATE, null));
+    }
+
+    @Test
+    public void sync_retries_andKeepsTheLastSyncedDate_whenTheBackfillFails() throws Exception {
+        String lastSynced = ApodDates.addDays(today, -3);
+        server.setDispatcher(request -> MockApodServer.MockResponse.status(403));
+        preferences.edit().putString(ApodSyncWorker.KEY_LAST_SYNCED_DATE, lastSynced).commit();
+
+        ListenableWorker.Result result = newWorker().doWork();
+
+        assertEquals(ListenableWorker.Result.retry(), result);
+        assertEquals(lastSynced, preferences.getString(ApodSyncWorker.KEY_LAST_SYNCED_DATE, null));
+        assertTrue(cache.getEntriesBetween(lastSynced, today).isEmpty());
+        assertTrue(downloadedUrls.isEmpty());
+    }
+
+    @Test
+    public void repository_servesTodaysSyncedEntry_withoutWaitingForTheNetwork() throws Exception {
+        // Synced earlier today, and expired unless the test runs within the first hour of the day
+        long fetchedAt = Math.max(ApodDates.startOfDay(today),
+                System.currentTimeMillis() - ApodCacheDatabaseHelper.TODAY_TTL_MS - 1000);
+        cache.putEntry(entry(today));
+        ApodDatabase.getInstance(context).getWritableDatabase().execSQL("UPDATE " + ApodDatabase.TABLE_APOD_ENTRY
+                + " SET " + ApodDatabase.COLUMN_FETCHED_AT + " = " + fetchedAt);
+        server.setDispatcher(request -> response(request).delay(500));
+
+        ApodRepository repository = new ApodRepository(client, cache, Runnable::run, Runnable::run);
+        List<ApodEntry> delivered = new ArrayList<>();
+        repository.load(today, new ApodClient.Callback() {
+            @Override
+            public void onSuccess(ApodEntry entry) {
+                delivered.add(entry);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                fail(e.toString());
+            }
+        });
+
+        assertEquals(1, delivered.size());
+        assertEquals("Title " + today, delivered.get(0).getTitle());
+        clientExecutor.submit(() -> { }).get();
+        assertNotNull(cache.getEntry(today));
+    }
+
+    private MockApodServer.MockResponse response(MockApodServer.Request request) {
+        String date = request.query.get("date");
+        if (date != null) {
+            requests.add(date);
+            return MockApodServer.MockResponse.json(MockApodServer.entryJson(date));
+        }
+        String start = request.query.get("start_date");
+        String end = request.query.get("end_date");
+        requests.add(start + ".." + end);
+        StringBuilder body = new StringBuilder("[");
+        for (String day = start; day.compareTo(end) <= 0; day = ApodDates.addDays(day, 1)) {
+            body.append(body.length() > 1 ? "," : "").append(MockApodServer.entryJson(day));
+        }
+        return MockApodServer.MockResponse.json(body.append("]").toString());
+    }
+
+    private ApodSyncWorker newWorker() {
+        return TestListenableWorkerBuilder.from(context, ApodSyncWorker.class)
+                .setWorkerFactory(workerFactory)
+                .build();
+    }
+
+    private List<WorkInfo> workInfos() throws Exception {
+        return WorkManager.getInstance(context).getWorkInfosForUniqueWork(ApodSyncWorker.UNIQUE_WORK_NAME).get();
+    }
+
+    private void download(String url) throws IOException {
+        if (failingUrls.contains(url)) {
+            throw new IOException("Failed to download " + url);
+        }
+        downloadedUrls.add(url);
+    }
+
+    private static ApodEntry entry(String date) {
+        return new ApodEntry(date, imageUrl(date), null, "Title " + date, "", "image");
+    }
+
+    private static String imageUrl(String date) {
+        return "https://apod.nasa.gov/apod/image/" + date + ".jpg";
+    }
+}
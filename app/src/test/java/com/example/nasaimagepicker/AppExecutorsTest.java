@@ -0,0 +1,63 @@
+package com.example.nasaimagepicker;
+
+import android.database.sqlite.SQLiteFullException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AppExecutors}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AppExecutorsTest {
+
+    private ExecutorService diskIO;
+    private AppExecutors executors;
+    private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        diskIO = Executors.newSingleThreadExecutor();
+        executors = new AppExecutors(diskIO, Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        diskIO.shutdownNow();
+    }
+
+    @Test
+    public void runOnDiskIO_failingTask_deliversTheExceptionToOnError() throws Exception {
+        SQLiteFullException failure = new SQLiteFullException("database or disk is full");
+        List<RuntimeException> errors = Collections.synchronizedList(new ArrayList<>());
+
+        executors.runOnDiskIO(() -> {
+            throw failure;
+        }, result -> delivered.add("result " + result), errors::add).get(2, TimeUnit.SECONDS);
+
+        assertTrue(delivered.isEmpty());
+        assertEquals(Collections.singletonList(failure), errors);
+    }
+
+    @Test
+    public void runOnDiskIO_failingTask_doesNotStopLaterTasks() throws Exception {
+        executors.runOnDiskIO(() -> {
+            throw new IllegalStateException("database is locked");
+        }, result -> delivered.add("first"));
+        executors.runOnDiskIO(() -> "second", delivered::add).get(2, TimeUnit.SECONDS);
+
+        assertEquals(Collections.singletonList("second"), delivered);
+    }
+}
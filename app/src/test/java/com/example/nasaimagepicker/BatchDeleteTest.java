@@ -0,0 +1,110 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the batch deletions of saved images and history, and the selection and incremental removal of
+ * items in {@link ImageAdapter}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BatchDeleteTest {
+
+    private HistoryDatabaseHelper historyDatabaseHelper;
+    private ImageDatabaseHelper imageDatabaseHelper;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        historyDatabaseHelper = HistoryDatabaseHelper.getInstance(context);
+        imageDatabaseHelper = ImageDatabaseHelper.getInstance(context);
+        for (int day = 1; day <= 4; day++) {
+            String url = "https://apod.nasa.gov/" + day + ".jpg";
+            String date = "2024-01-0" + day;
+            imageDatabaseHelper.insertImage(url, date, "");
+            historyDatabaseHelper.insertHistory(url, date, "History Entry", date + " 12:00:00");
+        }
+        imageDatabaseHelper.setLocalPath("https://apod.nasa.gov/2.jpg", "/data/2.jpg");
+    }
+
+    @After
+    public void tearDown() {
+        HistoryDatabaseHelper.resetInstance();
+        ImageDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void deleteImages_deletesTheSelection_andReturnsTheirLocalPaths() {
+        List<ImageItem> images = imageDatabaseHelper.getAllImages();
+        List<Long> ids = Arrays.asList(images.get(2).getId(), images.get(3).getId());
+
+        List<String> localPaths = imageDatabaseHelper.deleteImages(ids);
+
+        assertEquals(2, localPaths.size());
+        assertTrue(localPaths.contains("/data/2.jpg"));
+        assertTrue(localPaths.contains(null));
+        assertEquals(2, imageDatabaseHelper.getAllImages().size());
+        assertTrue(imageDatabaseHelper.deleteImages(new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    public void deleteImagesOlderThan_keepsImagesFromTheCutoffOn() {
+        assertEquals(2, imageDatabaseHelper.deleteImagesOlderThan("2024-01-03").size());
+
+        List<ImageItem> images = imageDatabaseHelper.getAllImages();
+        assertEquals(2, images.size());
+        assertEquals("2024-01-04", images.get(0).getDate());
+        assertEquals("2024-01-03", images.get(1).getDate());
+        assertEquals(2, imageDatabaseHelper.deleteAllImages().size());
+        assertTrue(imageDatabaseHelper.getAllImages().isEmpty());
+    }
+
+    @Test
+    public void deleteHistory_deletesSelectionRangeAndAll_withoutTouchingSavedImages() {
+        List<ImageItem> history = historyDatabaseHelper.getAllHistory();
+
+        assertEquals(1, historyDatabaseHelper.deleteHistory(Arrays.asList(history.get(0).getId())));
+        assertEquals(1, historyDatabaseHelper.deleteHistoryOlderThan("2024-01-02"));
+        assertEquals(2, historyDatabaseHelper.getAllHistory().size());
+        assertEquals(2, historyDatabaseHelper.deleteAllHistory());
+        assertTrue(historyDatabaseHelper.getAllHistory().isEmpty());
+        assertEquals(4, imageDatabaseHelper.getAllImages().size());
+    }
+
+    @Test
+    public void adapter_removesDeletedItems_andDropsThemFromTheSelection() {
+        ImageAdapter adapter = new ImageAdapter(this, null, null);
+        List<Integer> selectionCounts = new ArrayList<>();
+        adapter.setSelectionListener(selectionCounts::add);
+        List<ImageItem> images = imageDatabaseHelper.getAllImages();
+        adapter.submitList(images);
+
+        adapter.toggleSelection(images.get(0));
+        adapter.toggleSelection(images.get(1));
+        adapter.toggleSelection(images.get(2));
+        adapter.toggleSelection(images.get(2));
+        assertEquals(Arrays.asList(images.get(0).getId(), images.get(1).getId()), adapter.getSelectedIds());
+
+        adapter.removeItems(item -> item.getId() == images.get(0).getId());
+
+        assertEquals(3, adapter.getSubmittedItemCount());
+        assertEquals(Arrays.asList(images.get(1).getId()), adapter.getSelectedIds());
+        assertEquals(Arrays.asList(1, 2, 3, 2, 1), selectionCounts);
+
+        adapter.clearSelection();
+        assertFalse(adapter.hasSelection());
+        assertEquals(Integer.valueOf(0), selectionCounts.get(selectionCounts.size() - 1));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.nasaimagepicker;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares 1,000 history inserts with a connection opened and closed per operation against the
+ * shared, long-lived connection used by {@link HistoryDatabaseHelper}, by counting the connections
+ * each of them opens.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DatabaseConnectionBenchmarkTest {
+
+    private static final int INSERTS = 1000;
+
+    @After
+    public void tearDown() {
+        HistoryDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void sharedConnection_opensOnceInsteadOfOncePerInsert() {
+        Context context = RuntimeEnvironment.getApplication();
+
+        PerOperationHelper perOperationHelper = new PerOperationHelper(context);
+        for (int i = 0; i < INSERTS; i++) {
+            perOperationHelper.insertHistory("https://apod.nasa.gov/" + i + ".jpg", "2024-01-01", "History Entry", "2024-01-01 10:00:00");
+        }
+
+        HistoryDatabaseHelper sharedHelper = HistoryDatabaseHelper.getInstance(context);
+        SQLiteDatabase sharedDb = ApodDatabase.getInstance(context).getWritableDatabase();
+        for (int i = 0; i < INSERTS; i++) {
+            assertTrue(sharedHelper.insertHistory("https://apod.nasa.gov/" + i + ".jpg", "2024-01-01", "History Entry", "2024-01-01 10:00:00"));
+        }
+
+        List<ImageItem> history = sharedHelper.getAllHistory();
+        assertEquals(INSERTS, history.size());
+        assertEquals(INSERTS, perOperationHelper.opened);
+        assertTrue(HistoryDatabaseHelper.getInstance(context) == sharedHelper);
+        assertTrue(ApodDatabase.getInstance(context).getWritableDatabase() == sharedDb);
+        assertTrue(sharedDb.isOpen());
+    }
+
+    /**
+     * Reproduces the previous behaviour of opening and closing the database around every insert.
+     */
+    private static class PerOperationHelper extends SQLiteOpenHelper {
+
+        int opened;
+
+        PerOperationHelper(Context context) {
+            super(context, "per_operation_history.db", null, 1);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE history (_id INTEGER PRIMARY KEY AUTOINCREMENT, url TEXT, date TEXT, description TEXT, date_accessed TEXT)");
+        }
+
+        @Override
+        public void onOpen(SQLiteDatabase db) {
+            opened++;
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        }
+
+        void insertHistory(String url, String date, String description, String dateAccessed) {
+            SQLiteDatabase db = getWritableDatabase();
+            ContentValues contentValues = new ContentValues();
+            contentValues.put("url", url);
+            contentValues.put("date", date);
+            contentValues.put("description", description);
+            contentValues.put("date_accessed", dateAccessed);
+            db.insert("history", null, contentValues);
+            db.close();
+        }
+    }
+}
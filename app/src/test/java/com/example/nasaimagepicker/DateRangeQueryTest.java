@@ -0,0 +1,126 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the date-range queries of history and saved images, and that their plans are range scans of
+ * the date indexes without a separate sorting step.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DateRangeQueryTest {
+
+    private Context context;
+    private HistoryDatabaseHelper historyDatabaseHelper;
+    private ImageDatabaseHelper imageDatabaseHelper;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        historyDatabaseHelper = HistoryDatabaseHelper.getInstance(context);
+        imageDatabaseHelper = ImageDatabaseHelper.getInstance(context);
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/a.jpg", "2024-1-9", "A", "2024-2-1 23:30:00");
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/b.jpg", "2024-01-10", "B", "2024-02-03 08:00:00");
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/c.jpg", "2024-01-11", "C", "2024-02-02 12:00:00");
+        imageDatabaseHelper.insertImage("https://apod.nasa.gov/c.jpg", "2024-01-11", "C");
+        imageDatabaseHelper.insertImage("https://apod.nasa.gov/a.jpg", "2024-1-9", "A");
+        imageDatabaseHelper.insertImage("https://apod.nasa.gov/d.jpg", "2023-12-31", "D");
+    }
+
+    @After
+    public void tearDown() {
+        HistoryDatabaseHelper.resetInstance();
+        ImageDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void insertHistory_storesPaddedDates() {
+        ImageItem oldest = historyDatabaseHelper.getAllHistory().get(2);
+
+        assertEquals("2024-01-09", oldest.getDate());
+        assertEquals("2024-02-01 23:30:00", oldest.getDateAccessed());
+    }
+
+    @Test
+    public void getHistoryBetween_accessTime_includesTheWholeEndDay() {
+        List<ImageItem> items = historyDatabaseHelper.getHistoryBetween(
+                HistoryDatabaseHelper.DateColumn.DATE_ACCESSED, "2024-02-01", "2024-02-02", true, -1);
+
+        assertEquals(2, items.size());
+        assertEquals("https://apod.nasa.gov/c.jpg", items.get(0).getImageUrl());
+        assertTrue(items.get(0).isSaved());
+        assertEquals("https://apod.nasa.gov/a.jpg", items.get(1).getImageUrl());
+    }
+
+    @Test
+    public void getHistoryBetween_entryDate_sortsOldestFirst_andHonoursTheLimit() {
+        List<ImageItem> items = historyDatabaseHelper.getHistoryBetween(
+                HistoryDatabaseHelper.DateColumn.DATE, "2024-1-1", "2024-1-31", false, 2);
+
+        assertEquals(2, items.size());
+        assertEquals("2024-01-09", items.get(0).getDate());
+        assertEquals("2024-01-10", items.get(1).getDate());
+    }
+
+    @Test
+    public void getImagesBetween_filtersAndSortsByEntryDate() {
+        List<ImageItem> items = imageDatabaseHelper.getImagesBetween("2024-01-01", "2024-01-11", true, -1);
+
+        assertEquals(2, items.size());
+        assertEquals("2024-01-11", items.get(0).getDate());
+        assertEquals("2024-01-09", items.get(1).getDate());
+    }
+
+    @Test
+    public void historyRangeQueries_scanTheDateIndexes_withoutSorting() {
+        String accessedPlan = queryPlan(HistoryDatabaseHelper.historyBetweenSql(
+                HistoryDatabaseHelper.DateColumn.DATE_ACCESSED, true, 50));
+        String datePlan = queryPlan(HistoryDatabaseHelper.historyBetweenSql(
+                HistoryDatabaseHelper.DateColumn.DATE, false, 50));
+
+        assertTrue(accessedPlan, accessedPlan.contains("idx_history_date_accessed"));
+        assertFalse(accessedPlan, accessedPlan.contains("TEMP B-TREE"));
+        assertTrue(datePlan, datePlan.contains("idx_apod_entry_date"));
+        assertFalse(datePlan, datePlan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void imageRangeQuery_scansTheDateIndex_withoutSorting() {
+        String plan = queryPlan(ImageDatabaseHelper.imagesBetweenSql(true, 50));
+
+        assertTrue(plan, plan.contains("idx_apod_entry_date"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    /**
+     * Returns the plan SQLite chooses for a range query, one step per line.
+     *
+     * @param sql The range query.
+     * @return The details of the steps of the plan.
+     */
+    private String queryPlan(String sql) {
+        SQLiteDatabase db = ApodDatabase.getInstance(context).getReadableDatabase();
+        StringBuilder plan = new StringBuilder();
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, ApodDatabase.dateRangeArgs("2024-01-01", "2024-12-31"));
+        try {
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnCount() - 1)).append('\n');
+            }
+        } finally {
+            cursor.close();
+        }
+        return plan.toString();
+    }
+}
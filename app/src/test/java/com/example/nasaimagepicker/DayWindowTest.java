@@ -0,0 +1,190 @@
+package com.example.nasaimagepicker;
+
+import android.graphics.Bitmap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the sliding window of {@link DayWindow} against a scripted loader.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DayWindowTest {
+
+    private final Map<String, ApodEntry> store = new HashMap<>();
+    private final Map<String, ApodClient.RangeCallback> rangeLoads = new LinkedHashMap<>();
+    private final Map<String, Cancellable> rangeHandles = new HashMap<>();
+    private final Map<String, ApodClient.Callback> entryLoads = new LinkedHashMap<>();
+    private final Map<String, DayWindow.PictureCallback> pictureLoads = new LinkedHashMap<>();
+    private final List<String> cancelledPictures = new ArrayList<>();
+    private final List<String> changedDays = new ArrayList<>();
+    private DayWindow window;
+
+    @Before
+    public void setUp() {
+        DayWindow.Loader loader = new DayWindow.Loader() {
+            @Override
+            public Cancellable loadStoredEntries(String startDate, String endDate, ApodClient.RangeCallback callback) {
+                List<ApodEntry> entries = new ArrayList<>();
+                for (ApodEntry entry : store.values()) {
+                    if (entry.getDate().compareTo(startDate) >= 0 && entry.getDate().compareTo(endDate) <= 0) {
+                        entries.add(entry);
+                    }
+                }
+                callback.onSuccess(entries);
+                return new Cancellable();
+            }
+
+            @Override
+            public Cancellable loadEntries(String startDate, String endDate, ApodClient.RangeCallback callback) {
+                String range = startDate + ".." + endDate;
+                rangeLoads.put(range, callback);
+                Cancellable cancellable = new Cancellable();
+                rangeHandles.put(range, cancellable);
+                return cancellable;
+            }
+
+            @Override
+            public Cancellable loadEntry(String date, ApodClient.Callback callback) {
+                entryLoads.put(date, callback);
+                return new Cancellable();
+            }
+
+            @Override
+            public void loadPicture(String date, String url, DayWindow.PictureCallback callback) {
+                pictureLoads.put(date, callback);
+            }
+
+            @Override
+            public void cancelPicture(String date) {
+                cancelledPictures.add(date);
+            }
+        };
+        window = new DayWindow(3, loader, changedDays::add);
+    }
+
+    @Test
+    public void moveTo_fillsFromStore_andLoadsMissingDaysWithOneRangeRequest() {
+        for (String day : Arrays.asList("2020-01-07", "2020-01-08", "2020-01-10", "2020-01-12", "2020-01-13")) {
+            store.put(day, entry(day));
+        }
+
+        window.moveTo("2020-1-10");
+
+        assertEquals(Arrays.asList("2020-01-09..2020-01-11"), new ArrayList<>(rangeLoads.keySet()));
+        assertTrue(entryLoads.isEmpty());
+        assertNotNull(window.getEntry("2020-01-10"));
+        assertEquals(5, pictureLoads.size());
+
+        rangeLoads.get("2020-01-09..2020-01-11").onSuccess(
+                Arrays.asList(entry("2020-01-09"), entry("2020-01-10"), entry("2020-01-11")));
+        assertEquals("Title 2020-01-09", window.getEntry("2020-01-09").getTitle());
+        assertNotNull(window.getEntry("2020-01-11"));
+        assertTrue(changedDays.contains("2020-01-09"));
+        assertTrue(entryLoads.isEmpty());
+    }
+
+    @Test
+    public void rangeRequest_loadsOnlyTheDaysItDidNotReturnSingly() {
+        store.put("2020-01-10", entry("2020-01-10"));
+        window.moveTo("2020-01-10");
+
+        rangeLoads.get("2020-01-07..2020-01-13").onSuccess(
+                Arrays.asList(entry("2020-01-07"), entry("2020-01-08"), entry("2020-01-09"), entry("2020-01-13")));
+
+        assertEquals(Arrays.asList("2020-01-11", "2020-01-12"), new ArrayList<>(entryLoads.keySet()));
+        entryLoads.get("2020-01-11").onSuccess(entry("2020-01-11"));
+        assertNotNull(window.getEntry("2020-01-11"));
+    }
+
+    @Test
+    public void failedRangeRequest_fallsBackToSingleLoads() {
+        store.put("2020-01-10", entry("2020-01-10"));
+        window.moveTo("2020-01-10");
+
+        rangeLoads.get("2020-01-07..2020-01-13").onError(new IOException("HTTP 503"));
+
+        assertEquals(Arrays.asList("2020-01-07", "2020-01-08", "2020-01-09", "2020-01-11", "2020-01-12", "2020-01-13"),
+                new ArrayList<>(entryLoads.keySet()));
+    }
+
+    @Test
+    public void rangeRequest_isOnlyCancelledOnceAllItsDaysLeftTheWindow() {
+        store.put("2020-01-10", entry("2020-01-10"));
+        window.moveTo("2020-01-10");
+        Cancellable range = rangeHandles.get("2020-01-07..2020-01-13");
+
+        window.moveTo("2020-01-12");
+        assertFalse(range.isCancelled());
+        assertEquals(Arrays.asList("2020-01-14..2020-01-15"),
+                new ArrayList<>(rangeLoads.keySet()).subList(1, rangeLoads.size()));
+
+        window.moveTo("2020-01-20");
+        assertTrue(range.isCancelled());
+    }
+
+    @Test
+    public void moveTo_dropsDaysThatLeaveTheWindow_andKeepsPictureCountBounded() {
+        for (int i = 0; i < 30; i++) {
+            String day = ApodDates.addDays("2020-01-01", i);
+            store.put(day, entry(day));
+        }
+
+        for (int i = 3; i < 27; i++) {
+            window.moveTo(ApodDates.addDays("2020-01-01", i));
+            for (Map.Entry<String, DayWindow.PictureCallback> load : new ArrayList<>(pictureLoads.entrySet())) {
+                load.getValue().onPictureLoaded(Bitmap.createBitmap(4, 4, Bitmap.Config.RGB_565));
+            }
+            pictureLoads.clear();
+            assertTrue(window.getPictureCount() <= 7);
+        }
+
+        assertNull(window.getEntry("2020-01-20"));
+        assertNull(window.getPicture("2020-01-20"));
+        assertNotNull(window.getPicture("2020-01-27"));
+        assertEquals(7, window.getPictureCount());
+    }
+
+    @Test
+    public void pictureOfDayThatLeftTheWindow_isCancelledAndDropped() {
+        for (int i = 0; i < 10; i++) {
+            String day = ApodDates.addDays("2020-01-01", i);
+            store.put(day, entry(day));
+        }
+        window.moveTo("2020-01-04");
+        DayWindow.PictureCallback first = pictureLoads.get("2020-01-01");
+
+        window.moveTo("2020-01-05");
+        first.onPictureLoaded(Bitmap.createBitmap(4, 4, Bitmap.Config.RGB_565));
+
+        assertEquals(Arrays.asList("2020-01-01"), cancelledPictures);
+        assertNull(window.getPicture("2020-01-01"));
+    }
+
+    @Test
+    public void clear_cancelsEverything() {
+        store.put("2020-01-10", entry("2020-01-10"));
+        window.moveTo("2020-01-10");
+
+        window.clear();
+
+        assertNull(window.getEntry("2020-01-10"));
+        assertEquals(Arrays.asList("2020-01-10"), cancelledPictures);
+    }
+
+    private static ApodEntry entry(String date) {
+        return new ApodEntry(date, "https://apod.nasa.gov/apod/image/" + date + ".jpg", null, "Title " + date, "", "image");
+    }
+}
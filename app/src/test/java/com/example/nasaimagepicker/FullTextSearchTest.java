@@ -0,0 +1,180 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the full-text search of saved images and history through the FTS index of apod_entry, and
+ * that the triggers keep the index in step with inserts, updates and deletes.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FullTextSearchTest {
+
+    private static final int BACKGROUND_ENTRIES = 20000;
+    private static final String[] WORDS = {"nebula", "galaxy", "comet", "aurora", "eclipse", "cluster", "planet", "moon"};
+
+    private Context context;
+    private HistoryDatabaseHelper historyDatabaseHelper;
+    private ImageDatabaseHelper imageDatabaseHelper;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        historyDatabaseHelper = HistoryDatabaseHelper.getInstance(context);
+        imageDatabaseHelper = ImageDatabaseHelper.getInstance(context);
+        putEntry("https://apod.nasa.gov/andromeda.jpg", "2024-01-01", "Andromeda Galaxy", "Our nearest large neighbour.");
+        putEntry("https://apod.nasa.gov/spiral.jpg", "2024-01-02", "Spiral Arms", "Dust lanes, much like those of Andromeda.");
+        putEntry("https://apod.nasa.gov/comet.jpg", "2024-01-03", "Comet Tails", "Ion and dust tails.");
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/spiral.jpg", "2024-01-02", "History Entry", "2024-01-05 10:00:00");
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/andromeda.jpg", "2024-01-01", "History Entry", "2024-01-05 11:00:00");
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/comet.jpg", "2024-01-03", "History Entry", "2024-01-05 12:00:00");
+        imageDatabaseHelper.insertImage("https://apod.nasa.gov/spiral.jpg", "2024-01-02", "");
+    }
+
+    @After
+    public void tearDown() {
+        ApodCacheDatabaseHelper.resetInstance();
+        HistoryDatabaseHelper.resetInstance();
+        ImageDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void searchHistory_matchesPrefixes_andRanksTitleMatchesFirst() {
+        List<ImageItem> results = historyDatabaseHelper.searchHistory("andro", 10);
+
+        assertEquals(2, results.size());
+        assertEquals("https://apod.nasa.gov/andromeda.jpg", results.get(0).getImageUrl());
+        assertEquals("https://apod.nasa.gov/spiral.jpg", results.get(1).getImageUrl());
+        assertTrue(results.get(1).isSaved());
+    }
+
+    @Test
+    public void search_requiresEveryWord_andIgnoresQuerySyntax() {
+        assertEquals(1, historyDatabaseHelper.searchHistory("dust ion", 10).size());
+        assertEquals(1, historyDatabaseHelper.searchHistory("\"comet\" -tail*", 10).size());
+        assertTrue(historyDatabaseHelper.searchHistory("  *  ", 10).isEmpty());
+    }
+
+    @Test
+    public void searchImages_onlyReturnsSavedImages() {
+        List<ImageItem> results = imageDatabaseHelper.searchImages("andromeda", 10);
+
+        assertEquals(1, results.size());
+        assertEquals("https://apod.nasa.gov/spiral.jpg", results.get(0).getImageUrl());
+    }
+
+    @Test
+    public void savingAndViewingAnEntry_indexesItsTitleAndExplanation() {
+        ApodEntry pillars = new ApodEntry("2024-01-04", "https://apod.nasa.gov/pillars.jpg", null, "Pillars of Creation",
+                "Columns of cold gas in the Eagle Nebula.", "image");
+        ApodEntry horsehead = new ApodEntry("2024-01-05", "https://apod.nasa.gov/horsehead.jpg", null, "Horsehead",
+                "A dark nebula in Orion.", "image");
+        // Recorded before its details were known
+        historyDatabaseHelper.insertHistory(horsehead.getUrl(), horsehead.getDate(), "History Entry", "2024-01-06 09:00:00");
+
+        assertEquals(ImageDatabaseHelper.SaveResult.NEW, imageDatabaseHelper.insertImage(pillars));
+        assertEquals(1, historyDatabaseHelper.insertHistory(
+                Collections.singletonList(new HistoryDatabaseHelper.PendingView(horsehead, "2024-01-06 10:00:00")), false));
+
+        List<ImageItem> saved = imageDatabaseHelper.searchImages("pillars eagle", 10);
+        assertEquals(1, saved.size());
+        assertEquals("Columns of cold gas in the Eagle Nebula.", saved.get(0).getDescription());
+        assertEquals(2, historyDatabaseHelper.searchHistory("horsehead", 10).size());
+        assertTrue(historyDatabaseHelper.searchHistory("history", 10).isEmpty());
+    }
+
+    @Test
+    public void index_followsUpdatesAndDeletes() {
+        putEntry("https://apod.nasa.gov/comet.jpg", "2024-01-03", "Meteor Shower", "Streaks across the sky.");
+
+        assertTrue(historyDatabaseHelper.searchHistory("comet", 10).isEmpty());
+        assertEquals(1, historyDatabaseHelper.searchHistory("meteor", 10).size());
+
+        SQLiteDatabase db = ApodDatabase.getInstance(context).getWritableDatabase();
+        db.delete(ApodDatabase.TABLE_APOD_ENTRY, ApodDatabase.COLUMN_URL + " = ?", new String[]{"https://apod.nasa.gov/comet.jpg"});
+
+        assertTrue(historyDatabaseHelper.searchHistory("meteor", 10).isEmpty());
+        assertEquals(0, DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM " + ApodDatabase.TABLE_APOD_ENTRY_FTS +
+                " WHERE " + ApodDatabase.TABLE_APOD_ENTRY_FTS + " MATCH 'meteor'", null));
+    }
+
+    @Test
+    public void search_overTensOfThousandsOfEntries_returnsOnlyTheMatches() {
+        SQLiteDatabase db = ApodDatabase.getInstance(context).getWritableDatabase();
+        SQLiteStatement insertEntry = db.compileStatement("INSERT INTO " + ApodDatabase.TABLE_APOD_ENTRY +
+                " (" + ApodDatabase.COLUMN_URL + ", " + ApodDatabase.COLUMN_DATE + ", " + ApodDatabase.COLUMN_TITLE +
+                ", " + ApodDatabase.COLUMN_EXPLANATION + ") VALUES (?, '2000-01-01', ?, ?)");
+        SQLiteStatement insertHistory = db.compileStatement("INSERT INTO " + ApodDatabase.TABLE_HISTORY +
+                " (" + ApodDatabase.COLUMN_ENTRY_ID + ", " + ApodDatabase.COLUMN_DATE_ACCESSED + ") VALUES (?, '2024-01-01 10:00:00')");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < BACKGROUND_ENTRIES; i++) {
+                insertEntry.bindString(1, "https://apod.nasa.gov/background/" + i + ".jpg");
+                insertEntry.bindString(2, WORDS[i % WORDS.length] + " number" + i);
+                insertEntry.bindString(3, "A view of a " + WORDS[(i / WORDS.length) % WORDS.length] + " seen from Earth.");
+                insertHistory.bindLong(1, insertEntry.executeInsert());
+                insertHistory.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        List<ImageItem> selective = historyDatabaseHelper.searchHistory("number1234", 100);
+        List<ImageItem> broad = historyDatabaseHelper.searchHistory("nebu", 100);
+
+        assertEquals(1, selective.size());
+        assertEquals("https://apod.nasa.gov/background/1234.jpg", selective.get(0).getImageUrl());
+        assertEquals(100, broad.size());
+    }
+
+    @Test
+    public void searchHistory_looksUpMatchesInTheFullTextIndex() {
+        String plan = queryPlan(HistoryDatabaseHelper.searchHistorySql(10), ApodDatabase.searchArgs("nebu"));
+
+        // Index 0 is a full scan of the virtual table, the others a MATCH against the full-text index
+        assertTrue(plan, plan.contains(ApodDatabase.TABLE_APOD_ENTRY_FTS));
+        assertTrue(plan, plan.contains("VIRTUAL TABLE INDEX"));
+        assertFalse(plan, plan.contains("VIRTUAL TABLE INDEX 0:"));
+    }
+
+    /**
+     * Returns the plan SQLite chooses for a query, one step per line.
+     *
+     * @param sql  The query.
+     * @param args The arguments of the query.
+     * @return The details of the steps of the plan.
+     */
+    private String queryPlan(String sql, String[] args) {
+        SQLiteDatabase db = ApodDatabase.getInstance(context).getReadableDatabase();
+        StringBuilder plan = new StringBuilder();
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        try {
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnCount() - 1)).append('\n');
+            }
+        } finally {
+            cursor.close();
+        }
+        return plan.toString();
+    }
+
+    private void putEntry(String url, String date, String title, String explanation) {
+        ApodCacheDatabaseHelper.getInstance(context).putEntry(new ApodEntry(date, url, null, title, explanation, "image"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pages through 100,000 history rows with {@link ImageItemPager} and checks that every page is a
+ * bounded range scan of the primary key rather than a sort of the whole table.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class HistoryPagingTest {
+
+    private static final int ROWS = 100000;
+    private static final int PAGE_SIZE = 50;
+
+    private HistoryDatabaseHelper historyDatabaseHelper;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        historyDatabaseHelper = HistoryDatabaseHelper.getInstance(context);
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/image.jpg", "2024-01-01", "History Entry", "2024-01-01 10:00:00");
+
+        SQLiteDatabase db = ApodDatabase.getInstance(context).getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement("INSERT INTO " + ApodDatabase.TABLE_HISTORY +
+                " (" + ApodDatabase.COLUMN_ENTRY_ID + ", " + ApodDatabase.COLUMN_DATE_ACCESSED + ")" +
+                " SELECT " + ApodDatabase.COLUMN_ENTRY_ID + ", ? FROM " + ApodDatabase.TABLE_HISTORY + " LIMIT 1");
+        db.beginTransaction();
+        try {
+            for (int i = 1; i < ROWS; i++) {
+                statement.bindString(1, "2024-01-01 10:00:00");
+                statement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        HistoryDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void pager_visitsEveryRowOnceInDescendingOrder() {
+        ImageItemPager pager = new ImageItemPager(historyDatabaseHelper::getHistoryPage, PAGE_SIZE);
+        long previousId = Long.MAX_VALUE;
+        int count = 0;
+        while (pager.hasMore()) {
+            List<ImageItem> page = pager.nextPage();
+            assertTrue(page.size() <= PAGE_SIZE);
+            for (ImageItem item : page) {
+                assertTrue(item.getId() < previousId);
+                previousId = item.getId();
+                count++;
+            }
+        }
+        assertEquals(ROWS, count);
+        assertTrue(pager.nextPage().isEmpty());
+    }
+
+    @Test
+    public void pager_isNotShiftedByDeletedRows() {
+        ImageItemPager pager = new ImageItemPager(historyDatabaseHelper::getHistoryPage, PAGE_SIZE);
+        List<ImageItem> first = pager.nextPage();
+        for (ImageItem item : first) {
+            assertTrue(historyDatabaseHelper.deleteHistory(item.getId()));
+        }
+
+        List<ImageItem> second = pager.nextPage();
+        assertEquals(PAGE_SIZE, second.size());
+        assertEquals(first.get(PAGE_SIZE - 1).getId() - 1, second.get(0).getId());
+    }
+
+    @Test
+    public void deepPage_usesPrimaryKeyRangeScan() {
+        long deepestId = ROWS / 10;
+        List<ImageItem> page = historyDatabaseHelper.getHistoryPage(deepestId, PAGE_SIZE);
+        assertEquals(PAGE_SIZE, page.size());
+        assertEquals(deepestId - 1, page.get(0).getId());
+
+        SQLiteDatabase db = ApodDatabase.getInstance(RuntimeEnvironment.getApplication()).getReadableDatabase();
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN SELECT " + ApodDatabase.COLUMN_ID + " FROM " + ApodDatabase.TABLE_HISTORY +
+                " WHERE " + ApodDatabase.COLUMN_ID + " < ? ORDER BY " + ApodDatabase.COLUMN_ID + " DESC LIMIT " + PAGE_SIZE,
+                new String[]{String.valueOf(deepestId)});
+        StringBuilder plan = new StringBuilder();
+        while (cursor.moveToNext()) {
+            plan.append(cursor.getString(cursor.getColumnIndexOrThrow("detail"))).append('\n');
+        }
+        cursor.close();
+        assertTrue(plan.toString(), plan.toString().contains("INTEGER PRIMARY KEY"));
+        assertFalse(plan.toString(), plan.toString().contains("TEMP B-TREE"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Tests the buffering of history writes, the combining of repeated views and the retention policy.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class HistoryRecorderTest {
+
+    private static final long FLUSH_DELAY_MS = 1000;
+    private static final int MAX_ROWS = 3;
+    private static final long MAX_AGE_MS = TimeUnit.DAYS.toMillis(30);
+
+    private HistoryDatabaseHelper historyDatabaseHelper;
+    private HistoryRecorder recorder;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        historyDatabaseHelper = HistoryDatabaseHelper.getInstance(context);
+        recorder = new HistoryRecorder(historyDatabaseHelper,
+                context.getSharedPreferences(HistoryRecorder.PREFS_NAME, Context.MODE_PRIVATE),
+                Runnable::run, new Handler(Looper.getMainLooper()), FLUSH_DELAY_MS, MAX_ROWS, MAX_AGE_MS);
+    }
+
+    @After
+    public void tearDown() {
+        HistoryDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void record_buffersViews_untilTheFlushDelayHasPassed() {
+        recorder.record("https://apod.nasa.gov/a.jpg", "2024-01-01", "History Entry", now());
+        recorder.record("https://apod.nasa.gov/b.jpg", "2024-01-02", "History Entry", now());
+
+        assertEquals(2, recorder.getBufferedCount());
+        assertTrue(historyDatabaseHelper.getAllHistory().isEmpty());
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(FLUSH_DELAY_MS));
+
+        assertEquals(0, recorder.getBufferedCount());
+        List<ImageItem> history = historyDatabaseHelper.getAllHistory();
+        assertEquals(2, history.size());
+        assertEquals("https://apod.nasa.gov/b.jpg", history.get(0).getImageUrl());
+    }
+
+    @Test
+    public void record_flushesAtOnce_whenTheBufferIsFull() {
+        for (int i = 0; i < HistoryRecorder.MAX_BUFFERED_VIEWS; i++) {
+            recorder.record("https://apod.nasa.gov/a.jpg", "2024-01-01", "History Entry", now());
+        }
+
+        assertEquals(0, recorder.getBufferedCount());
+        assertEquals(HistoryRecorder.MAX_BUFFERED_VIEWS, historyDatabaseHelper.getAllHistory().size());
+    }
+
+    @Test
+    public void flush_combinesRepeatedViews_whenEnabled() {
+        recorder.setCombiningViews(true);
+        recorder.record("https://apod.nasa.gov/a.jpg", "2024-01-01", "History Entry", "2024-02-01 10:00:00");
+        recorder.record("https://apod.nasa.gov/b.jpg", "2024-01-02", "History Entry", "2024-02-01 11:00:00");
+        recorder.record("https://apod.nasa.gov/a.jpg", "2024-01-01", "History Entry", "2024-02-01 12:00:00");
+        recorder.flush();
+        recorder.record("https://apod.nasa.gov/a.jpg", "2024-01-01", "History Entry", "2024-02-02 09:00:00");
+        recorder.flush();
+
+        List<ImageItem> history = historyDatabaseHelper.getAllHistory();
+        assertEquals(2, history.size());
+        assertEquals("https://apod.nasa.gov/a.jpg", history.get(0).getImageUrl());
+        assertEquals(3, history.get(0).getViewCount());
+        assertEquals("2024-02-02 09:00:00", history.get(0).getDateAccessed());
+        assertEquals(1, history.get(1).getViewCount());
+    }
+
+    @Test
+    public void compactHistory_combinesExistingRecords() {
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/a.jpg", "2024-01-01", "History Entry", "2024-02-01 10:00:00");
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/a.jpg", "2024-01-01", "History Entry", "2024-02-03 10:00:00");
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/b.jpg", "2024-01-02", "History Entry", "2024-02-04 10:00:00");
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/a.jpg", "2024-01-01", "History Entry", "2024-02-02 10:00:00");
+
+        assertEquals(2, historyDatabaseHelper.compactHistory());
+
+        List<ImageItem> history = historyDatabaseHelper.getAllHistory();
+        assertEquals(2, history.size());
+        assertEquals("https://apod.nasa.gov/a.jpg", history.get(0).getImageUrl());
+        assertEquals(3, history.get(0).getViewCount());
+        assertEquals("2024-02-03 10:00:00", history.get(0).getDateAccessed());
+        assertEquals(0, historyDatabaseHelper.compactHistory());
+    }
+
+    @Test
+    public void enforceRetention_deletesOldRecords_andRecordsBeyondTheMaximum() {
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/old.jpg", "2020-01-01", "History Entry", "2020-01-02 10:00:00");
+        for (int i = 1; i <= 4; i++) {
+            historyDatabaseHelper.insertHistory("https://apod.nasa.gov/" + i + ".jpg", "2024-01-0" + i, "History Entry", now());
+        }
+
+        assertEquals(2, recorder.enforceRetention());
+
+        List<ImageItem> history = historyDatabaseHelper.getAllHistory();
+        assertEquals(MAX_ROWS, history.size());
+        assertEquals("https://apod.nasa.gov/4.jpg", history.get(0).getImageUrl());
+        assertEquals("https://apod.nasa.gov/2.jpg", history.get(2).getImageUrl());
+    }
+
+    /**
+     * Returns the current time as an access time.
+     *
+     * @return The current time in the format "yyyy-MM-dd HH:mm:ss".
+     */
+    private static String now() {
+        return ApodDates.formatTimestamp(System.currentTimeMillis());
+    }
+}
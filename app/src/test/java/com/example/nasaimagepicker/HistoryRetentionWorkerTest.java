@@ -0,0 +1,119 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Configuration;
+import androidx.work.ListenableWorker;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.WorkerFactory;
+import androidx.work.WorkerParameters;
+import androidx.work.testing.SynchronousExecutor;
+import androidx.work.testing.TestDriver;
+import androidx.work.testing.WorkManagerTestInitHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link HistoryRetentionWorker}, driven by WorkManager's test driver.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class HistoryRetentionWorkerTest {
+
+    private static final int MAX_ROWS = 3;
+    private static final long MAX_AGE_MS = TimeUnit.DAYS.toMillis(30);
+
+    private Context context;
+    private HistoryDatabaseHelper historyDatabaseHelper;
+    private HistoryRecorder recorder;
+
+    private final WorkerFactory workerFactory = new WorkerFactory() {
+        @Override
+        public ListenableWorker createWorker(@NonNull Context appContext, @NonNull String workerClassName,
+                                             @NonNull WorkerParameters workerParameters) {
+            return new HistoryRetentionWorker(appContext, workerParameters, recorder);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        historyDatabaseHelper = HistoryDatabaseHelper.getInstance(context);
+        recorder = new HistoryRecorder(historyDatabaseHelper,
+                context.getSharedPreferences(HistoryRecorder.PREFS_NAME, Context.MODE_PRIVATE),
+                Runnable::run, new Handler(Looper.getMainLooper()), 1000, MAX_ROWS, MAX_AGE_MS);
+        WorkManagerTestInitHelper.initializeTestWorkManager(context, new Configuration.Builder()
+                .setMinimumLoggingLevel(Log.DEBUG)
+                .setExecutor(new SynchronousExecutor())
+                .setWorkerFactory(workerFactory)
+                .build());
+    }
+
+    @After
+    public void tearDown() {
+        HistoryDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void schedule_enqueuesOnePeriodicJob_onlyWhileTheBatteryIsNotLow() throws Exception {
+        HistoryRetentionWorker.schedule(context);
+        HistoryRetentionWorker.schedule(context);
+
+        List<WorkInfo> workInfos = workInfos();
+        assertEquals(1, workInfos.size());
+        assertEquals(WorkInfo.State.ENQUEUED, workInfos.get(0).getState());
+        assertTrue(workInfos.get(0).getConstraints().requiresBatteryNotLow());
+    }
+
+    @Test
+    public void run_enforcesTheRetentionPolicy_everyPeriod() throws Exception {
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/old.jpg", "2020-01-01", "History Entry", "2020-01-02 10:00:00");
+        for (int i = 1; i <= 4; i++) {
+            historyDatabaseHelper.insertHistory("https://apod.nasa.gov/" + i + ".jpg", "2024-01-0" + i, "History Entry", now());
+        }
+        HistoryRetentionWorker.schedule(context);
+
+        TestDriver testDriver = WorkManagerTestInitHelper.getTestDriver(context);
+        testDriver.setAllConstraintsMet(workInfos().get(0).getId());
+
+        List<ImageItem> history = historyDatabaseHelper.getAllHistory();
+        assertEquals(MAX_ROWS, history.size());
+        assertEquals("https://apod.nasa.gov/4.jpg", history.get(0).getImageUrl());
+        assertEquals(WorkInfo.State.ENQUEUED, workInfos().get(0).getState());
+
+        // The next period trims the records added since
+        historyDatabaseHelper.insertHistory("https://apod.nasa.gov/5.jpg", "2024-01-05", "History Entry", now());
+        testDriver.setPeriodDelayMet(workInfos().get(0).getId());
+
+        history = historyDatabaseHelper.getAllHistory();
+        assertEquals(MAX_ROWS, history.size());
+        assertEquals("https://apod.nasa.gov/5.jpg", history.get(0).getImageUrl());
+    }
+
+    private List<WorkInfo> workInfos() throws Exception {
+        return WorkManager.getInstance(context).getWorkInfosForUniqueWork(HistoryRetentionWorker.UNIQUE_WORK_NAME).get();
+    }
+
+    /**
+     * Returns the current time as an access time.
+     *
+     * @return The current time in the format "yyyy-MM-dd HH:mm:ss".
+     */
+    private static String now() {
+        return ApodDates.formatTimestamp(System.currentTimeMillis());
+    }
+}
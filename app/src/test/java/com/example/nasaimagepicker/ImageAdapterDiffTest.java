@@ -0,0 +1,124 @@
+package com.example.nasaimagepicker;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the diff computed by {@link ImageAdapter} touches only the rows that actually changed.
+ */
+public class ImageAdapterDiffTest {
+
+    @Test
+    public void deletingOneItem_removesOneRowAndRebindsNothing() {
+        List<ImageItem> before = items(100);
+        List<ImageItem> after = new ArrayList<>(before);
+        after.remove(42);
+
+        CountingCallback callback = dispatch(before, after);
+
+        assertEquals(1, callback.removed);
+        assertEquals(0, callback.inserted);
+        assertEquals(0, callback.changed);
+        assertEquals(0, callback.moved);
+    }
+
+    @Test
+    public void appendingPage_insertsOnlyNewRows() {
+        List<ImageItem> before = items(50);
+        List<ImageItem> after = items(100);
+
+        CountingCallback callback = dispatch(before, after);
+
+        assertEquals(50, callback.inserted);
+        assertEquals(0, callback.removed);
+        assertEquals(0, callback.changed);
+    }
+
+    @Test
+    public void savingImage_rebindsOnlyThatRow() {
+        List<ImageItem> before = items(20);
+        List<ImageItem> after = new ArrayList<>(before);
+        ImageItem item = after.get(3);
+        after.set(3, new ImageItem(item.getId(), item.getImageUrl(), item.getDate(), item.getDescription(), item.getDateAccessed(), true,
+                null, null, null, 0));
+
+        CountingCallback callback = dispatch(before, after);
+
+        assertEquals(1, callback.changed);
+        assertEquals(0, callback.inserted);
+        assertEquals(0, callback.removed);
+    }
+
+    /**
+     * Returns items with descending IDs, so that a longer list extends a shorter one at the end like pages do.
+     */
+    private static List<ImageItem> items(int count) {
+        List<ImageItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long id = 1000 - i;
+            items.add(new ImageItem(id, "https://apod.nasa.gov/" + id + ".jpg", "2024-01-01", "Description " + id, null, false, null, null, null, 0));
+        }
+        return items;
+    }
+
+    private static CountingCallback dispatch(List<ImageItem> before, List<ImageItem> after) {
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return before.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return after.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return ImageAdapter.DIFF_CALLBACK.areItemsTheSame(before.get(oldItemPosition), after.get(newItemPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return ImageAdapter.DIFF_CALLBACK.areContentsTheSame(before.get(oldItemPosition), after.get(newItemPosition));
+            }
+        });
+        CountingCallback callback = new CountingCallback();
+        result.dispatchUpdatesTo(callback);
+        return callback;
+    }
+
+    private static class CountingCallback implements ListUpdateCallback {
+        int inserted;
+        int removed;
+        int moved;
+        int changed;
+
+        @Override
+        public void onInserted(int position, int count) {
+            inserted += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            removed += count;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            moved++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            changed += count;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.nasaimagepicker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ImageDownloader} against a local mock HTTP server.
+ */
+public class ImageDownloaderTest {
+
+    private static final String IMAGE = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockApodServer server;
+    private ImageDownloader downloader;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockApodServer(0);
+        downloader = new ImageDownloader(2000, 2000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void download_streamsWholeBodyToTarget() throws Exception {
+        server.setDispatcher(request -> MockApodServer.MockResponse.json(IMAGE));
+        File target = new File(folder.getRoot(), "image.jpg");
+
+        assertEquals(IMAGE.length(), downloader.download(server.url(), target));
+        assertEquals(IMAGE, read(target));
+        assertFalse(new File(target.getPath() + ImageDownloader.PARTIAL_SUFFIX).exists());
+    }
+
+    @Test
+    public void download_truncatedBody_failsAndResumesWithRange() throws Exception {
+        File target = new File(folder.getRoot(), "image.jpg");
+        server.setDispatcher(request -> MockApodServer.MockResponse.json(IMAGE).truncateAt(10));
+        try {
+            downloader.download(server.url(), target);
+            fail("Expected IOException for a body shorter than its Content-Length");
+        } catch (IOException expected) {
+            // The first ten bytes are kept for the next attempt
+        }
+        assertFalse(target.exists());
+
+        String[] range = new String[1];
+        server.setDispatcher(request -> {
+            range[0] = request.headers.get("range");
+            int offset = Integer.parseInt(range[0].substring("bytes=".length(), range[0].length() - 1));
+            return MockApodServer.MockResponse.json(IMAGE.substring(offset)).withStatus(206);
+        });
+
+        assertEquals(IMAGE.length(), downloader.download(server.url(), target));
+        assertEquals("bytes=10-", range[0]);
+        assertEquals(IMAGE, read(target));
+    }
+
+    @Test
+    public void download_rangeIgnored_startsOver() throws Exception {
+        File target = new File(folder.getRoot(), "image.jpg");
+        Files.write(new File(target.getPath() + ImageDownloader.PARTIAL_SUFFIX).toPath(), "stale".getBytes(StandardCharsets.UTF_8));
+        server.setDispatcher(request -> MockApodServer.MockResponse.json(IMAGE));
+
+        assertEquals(IMAGE.length(), downloader.download(server.url(), target));
+        assertEquals(IMAGE, read(target));
+    }
+
+    @Test
+    public void download_rangeNotSatisfiable_finishesOnlyWhenThePartialFileIsComplete() throws Exception {
+        File target = new File(folder.getRoot(), "image.jpg");
+        Files.write(new File(target.getPath() + ImageDownloader.PARTIAL_SUFFIX).toPath(), IMAGE.getBytes(StandardCharsets.UTF_8));
+        server.setDispatcher(request -> MockApodServer.MockResponse.status(416)
+                .header("Content-Range", "bytes */" + IMAGE.length()));
+
+        assertEquals(IMAGE.length(), downloader.download(server.url(), target));
+        assertEquals(IMAGE, read(target));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void download_rangeNotSatisfiable_afterTheFileChanged_startsOver() throws Exception {
+        File target = new File(folder.getRoot(), "image.jpg");
+        String shorter = IMAGE.substring(0, 12);
+        Files.write(new File(target.getPath() + ImageDownloader.PARTIAL_SUFFIX).toPath(), IMAGE.getBytes(StandardCharsets.UTF_8));
+        server.setDispatcher(request -> request.headers.containsKey("range")
+                ? MockApodServer.MockResponse.status(416).header("Content-Range", "bytes */" + shorter.length())
+                : MockApodServer.MockResponse.json(shorter));
+
+        assertEquals(shorter.length(), downloader.download(server.url(), target));
+        assertEquals(shorter, read(target));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void totalLength_readsTheTotalOfAnUnsatisfiedRange() {
+        assertEquals(1234, ImageDownloader.totalLength("bytes */1234"));
+        assertEquals(-1, ImageDownloader.totalLength("bytes */*"));
+        assertEquals(-1, ImageDownloader.totalLength(null));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
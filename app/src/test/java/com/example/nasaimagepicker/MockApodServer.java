@@ -0,0 +1,224 @@
+package com.example.nasaimagepicker;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MockApodServer is a minimal HTTP/1.1 server with keep-alive support used to test the APOD
+ * fetch layer against a local endpoint. Every new connection can be delayed to simulate the
+ * cost of a TCP/TLS handshake, and the server counts connections and requests.
+ */
+class MockApodServer implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final long handshakeDelayMs;
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile Dispatcher dispatcher = request -> MockResponse.json(entryJson(request.query.get("date")));
+
+    /**
+     * Starts a new server on a free local port.
+     *
+     * @param handshakeDelayMs The delay, in milliseconds, added to every new connection.
+     * @throws IOException If the server socket cannot be opened.
+     */
+    MockApodServer(long handshakeDelayMs) throws IOException {
+        this.handshakeDelayMs = handshakeDelayMs;
+        serverSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        executor.execute(this::acceptLoop);
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/planetary/apod";
+    }
+
+    void setDispatcher(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Builds a minimal APOD entry object for the given date.
+     */
+    static String entryJson(String date) {
+        return "{\"date\":\"" + date + "\",\"explanation\":\"Line one.\\nLine two.\","
+                + "\"hdurl\":\"https://apod.nasa.gov/apod/image/hd_" + date + ".jpg\","
+                + "\"media_type\":\"image\",\"service_version\":\"v1\",\"title\":\"Title " + date + "\","
+                + "\"url\":\"https://apod.nasa.gov/apod/image/" + date + ".jpg\"}";
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionCount.incrementAndGet();
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            if (handshakeDelayMs > 0) {
+                Thread.sleep(handshakeDelayMs);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.ISO_8859_1));
+            OutputStream out = s.getOutputStream();
+            while (true) {
+                String requestLine = reader.readLine();
+                if (requestLine == null || requestLine.isEmpty()) {
+                    return;
+                }
+                Map<String, String> headers = new HashMap<>();
+                String line;
+                while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                    int colon = line.indexOf(':');
+                    if (colon > 0) {
+                        headers.put(line.substring(0, colon).trim().toLowerCase(Locale.US), line.substring(colon + 1).trim());
+                    }
+                }
+                requestCount.incrementAndGet();
+
+                Request request = new Request(requestLine.split(" ")[1], headers);
+                MockResponse response = dispatcher.dispatch(request);
+                if (response.delayMs > 0) {
+                    Thread.sleep(response.delayMs);
+                }
+                boolean close = "close".equalsIgnoreCase(headers.get("connection"));
+                byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+                StringBuilder head = new StringBuilder()
+                        .append("HTTP/1.1 ").append(response.status).append(" Mock\r\n")
+                        .append("Content-Type: application/json\r\n")
+                        .append("Content-Length: ").append(body.length).append("\r\n")
+                        .append("Connection: ").append(close ? "close" : "keep-alive").append("\r\n");
+                for (Map.Entry<String, String> header : response.headers.entrySet()) {
+                    head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+                }
+                head.append("\r\n");
+                out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+                if (response.truncateAt >= 0) {
+                    // Drop the connection part way through the announced body
+                    out.write(body, 0, response.truncateAt);
+                    out.flush();
+                    return;
+                }
+                out.write(body);
+                out.flush();
+                if (close) {
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+            // The client went away or the server is shutting down
+        }
+    }
+
+    /**
+     * A request received by the server.
+     */
+    static class Request {
+        final String path;
+        final Map<String, String> query = new HashMap<>();
+        final Map<String, String> headers;
+
+        Request(String target, Map<String, String> headers) {
+            this.headers = headers;
+            int question = target.indexOf('?');
+            path = question < 0 ? target : target.substring(0, question);
+            if (question >= 0) {
+                for (String pair : target.substring(question + 1).split("&")) {
+                    int equals = pair.indexOf('=');
+                    if (equals > 0) {
+                        try {
+                            query.put(pair.substring(0, equals), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+                        } catch (java.io.UnsupportedEncodingException e) {
+                            throw new AssertionError(e);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A scripted response.
+     */
+    static class MockResponse {
+        int status = 200;
+        String body = "";
+        long delayMs;
+        int truncateAt = -1;
+        final Map<String, String> headers = new LinkedHashMap<>();
+
+        static MockResponse json(String body) {
+            MockResponse response = new MockResponse();
+            response.body = body;
+            return response;
+        }
+
+        static MockResponse status(int status) {
+            MockResponse response = new MockResponse();
+            response.status = status;
+            response.body = "{\"error\":{\"code\":\"" + status + "\"}}";
+            return response;
+        }
+
+        MockResponse header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        MockResponse delay(long delayMs) {
+            this.delayMs = delayMs;
+            return this;
+        }
+
+        MockResponse withStatus(int status) {
+            this.status = status;
+            return this;
+        }
+
+        MockResponse truncateAt(int bytes) {
+            this.truncateAt = bytes;
+            return this;
+        }
+    }
+
+    /**
+     * Produces the response for a request.
+     */
+    interface Dispatcher {
+        MockResponse dispatch(Request request);
+    }
+}
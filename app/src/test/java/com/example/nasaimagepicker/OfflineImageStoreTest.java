@@ -0,0 +1,120 @@
+package com.example.nasaimagepicker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link OfflineImageStore} against a local mock HTTP server.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class OfflineImageStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockApodServer server;
+    private ImageDatabaseHelper imageDatabaseHelper;
+    private ApodCacheDatabaseHelper cache;
+    private ExecutorService executor;
+    private OfflineImageStore store;
+    private final List<String> paths = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = RuntimeEnvironment.getApplication();
+        server = new MockApodServer(0);
+        server.setDispatcher(request -> {
+            paths.add(request.path);
+            return MockApodServer.MockResponse.json("image bytes");
+        });
+        imageDatabaseHelper = ImageDatabaseHelper.getInstance(context);
+        cache = ApodCacheDatabaseHelper.getInstance(context);
+        executor = Executors.newSingleThreadExecutor();
+        SharedPreferences preferences = context.getSharedPreferences(OfflineImageStore.PREFS_NAME, Context.MODE_PRIVATE);
+        preferences.edit().clear().commit();
+        store = new OfflineImageStore(imageDatabaseHelper, new ImageDownloader(2000, 2000), folder.getRoot(),
+                executor, preferences);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        server.close();
+        ImageDatabaseHelper.resetInstance();
+        ApodCacheDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void scheduleDownload_image_storesStandardImageByDefault() throws Exception {
+        ApodEntry entry = save(new ApodEntry("2024-03-07", imageUrl("image.jpg"), imageUrl("hd.jpg"), "Title", "", "image"));
+
+        store.scheduleDownload(entry);
+        drain();
+
+        assertEquals(Collections.singletonList("/image.jpg"), paths);
+        assertTrue(imageDatabaseHelper.getEntriesWithoutLocalFile().isEmpty());
+    }
+
+    @Test
+    public void scheduleDownload_hdSetting_storesHdImage() throws Exception {
+        ApodEntry entry = save(new ApodEntry("2024-03-07", imageUrl("image.jpg"), imageUrl("hd.jpg"), "Title", "", "image"));
+        store.setDownloadingHdImages(true);
+
+        store.scheduleDownload(entry);
+        drain();
+
+        assertTrue(store.isDownloadingHdImages());
+        assertEquals(Collections.singletonList("/hd.jpg"), paths);
+        assertTrue(imageDatabaseHelper.getEntriesWithoutLocalFile().isEmpty());
+    }
+
+    @Test
+    public void resumePendingDownloads_skipsVideos() throws Exception {
+        save(new ApodEntry("2024-03-07", imageUrl("embed/video"), null, "Video", "", "video", imageUrl("thumb.jpg")));
+        save(new ApodEntry("2024-03-08", imageUrl("image.jpg"), null, "Image", "", "image"));
+
+        store.resumePendingDownloads();
+        drain();
+        drain();
+
+        assertEquals(Collections.singletonList("/image.jpg"), paths);
+        List<ApodEntry> pending = imageDatabaseHelper.getEntriesWithoutLocalFile();
+        assertEquals(1, pending.size());
+        assertEquals("video", pending.get(0).getMediaType());
+    }
+
+    private ApodEntry save(ApodEntry entry) {
+        cache.putEntry(entry);
+        assertEquals(ImageDatabaseHelper.SaveResult.NEW, imageDatabaseHelper.insertImage(entry.getUrl(), entry.getDate(), ""));
+        return entry;
+    }
+
+    /**
+     * Waits until the tasks queued on the store's executor so far have run.
+     */
+    private void drain() throws Exception {
+        executor.submit(() -> { }).get();
+    }
+
+    private String imageUrl(String name) {
+        return server.url().replace("/planetary/apod", "/" + name);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.nasaimagepicker;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Measures the time to first render produced by {@link ProgressDisplayPolicy}, alone and with two
+ * overlapping kinds of work sharing one indicator.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ProgressDisplayPolicyTest {
+
+    private static final long SHOW_DELAY_MS = 150;
+    private static final long MIN_SHOW_MS = 300;
+
+    private Handler handler;
+    private ProgressDisplayPolicy policy;
+    private long startedAt;
+    private long shownAt;
+    private long renderedAt;
+
+    @Before
+    public void setUp() {
+        handler = new Handler(Looper.getMainLooper());
+        policy = new ProgressDisplayPolicy(handler, SHOW_DELAY_MS, MIN_SHOW_MS);
+        shownAt = -1;
+        renderedAt = -1;
+    }
+
+    @Test
+    public void fastResult_rendersImmediately_withoutShowingProgress() {
+        long timeToRender = simulateFetch(50);
+
+        assertEquals(50, timeToRender);
+        assertEquals(-1, shownAt);
+    }
+
+    @Test
+    public void resultDuringMinimumDisplay_waitsOnlyForTheRemainder() {
+        long timeToRender = simulateFetch(200);
+
+        assertEquals(SHOW_DELAY_MS, shownAt - startedAt);
+        assertEquals(SHOW_DELAY_MS + MIN_SHOW_MS, timeToRender);
+    }
+
+    @Test
+    public void slowResult_isNeverDelayed() {
+        long timeToRender = simulateFetch(1200);
+
+        assertEquals(SHOW_DELAY_MS, shownAt - startedAt);
+        assertEquals(1200, timeToRender);
+    }
+
+    @Test
+    public void timeToFirstRender_isFarBelowTheOldFixedDelay() {
+        for (long fetchMs : new long[]{0, 10, 100, 149, 150, 151, 300, 449, 450, 800}) {
+            setUp();
+            long timeToRender = simulateFetch(fetchMs);
+            assertTrue(timeToRender >= fetchMs);
+            assertTrue(timeToRender <= Math.max(fetchMs, SHOW_DELAY_MS + MIN_SHOW_MS));
+            assertTrue(timeToRender < 3000);
+        }
+    }
+
+    @Test
+    public void overlappingDateAndRangeLoads_renderBoth_andKeepTheSharedIndicatorForTheOther() {
+        ProgressDisplayPolicy rangePolicy = new ProgressDisplayPolicy(handler, SHOW_DELAY_MS, MIN_SHOW_MS);
+        boolean[] progressVisible = {false};
+        long[] rangeRenderedAt = {-1};
+        boolean[] visibleAfterRangeRender = {false};
+        startedAt = SystemClock.uptimeMillis();
+
+        // A date load shows the indicator at 150 ms and its result at 200 ms waits until 450 ms
+        policy.start(() -> progressVisible[0] = true);
+        handler.postDelayed(() -> policy.finish(() -> {
+            renderedAt = SystemClock.uptimeMillis();
+            if (!rangePolicy.isProgressShown()) {
+                progressVisible[0] = false;
+            }
+        }), 200);
+        // A fast range load starts and finishes while the date result is waiting
+        handler.postDelayed(() -> rangePolicy.start(() -> progressVisible[0] = true), 250);
+        handler.postDelayed(() -> rangePolicy.finish(() -> {
+            rangeRenderedAt[0] = SystemClock.uptimeMillis();
+            if (!policy.isProgressShown()) {
+                progressVisible[0] = false;
+            }
+            visibleAfterRangeRender[0] = progressVisible[0];
+        }), 300);
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(5000));
+
+        assertEquals(300, rangeRenderedAt[0] - startedAt);
+        assertTrue("The range result must not hide the indicator of the date load", visibleAfterRangeRender[0]);
+        assertEquals(SHOW_DELAY_MS + MIN_SHOW_MS, renderedAt - startedAt);
+        assertFalse(progressVisible[0]);
+        assertFalse(policy.isProgressShown());
+        assertFalse(rangePolicy.isProgressShown());
+    }
+
+    /**
+     * Starts the policy, delivers a result after the given fetch time and returns the time to first render.
+     */
+    private long simulateFetch(long fetchMs) {
+        startedAt = SystemClock.uptimeMillis();
+        policy.start(() -> shownAt = SystemClock.uptimeMillis());
+        handler.postDelayed(() -> policy.finish(() -> renderedAt = SystemClock.uptimeMillis()), fetchMs);
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(5000));
+
+        assertNotEquals(-1, renderedAt);
+        return renderedAt - startedAt;
+    }
+}
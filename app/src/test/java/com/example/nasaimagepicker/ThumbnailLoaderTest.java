@@ -0,0 +1,101 @@
+package com.example.nasaimagepicker;
+
+import com.squareup.picasso.LruCache;
+
+import okhttp3.Request;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests how {@link ThumbnailLoader} and the media type of entries keep non-image URLs from being
+ * requested as bitmaps, and the disk cache statistics of the loader.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ThumbnailLoaderTest {
+
+    @After
+    public void tearDown() {
+        ApodCacheDatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void looksDecodable_rejectsVideoPlayersAndNonImageFiles() {
+        assertTrue(ThumbnailLoader.looksDecodable("https://apod.nasa.gov/apod/image/2403/eclipse.jpg"));
+        assertTrue(ThumbnailLoader.looksDecodable("https://img.youtube.com/vi/abc/0.jpg"));
+        assertFalse(ThumbnailLoader.looksDecodable("https://www.youtube.com/embed/abc?rel=0"));
+        assertFalse(ThumbnailLoader.looksDecodable("https://player.vimeo.com/video/123"));
+        assertFalse(ThumbnailLoader.looksDecodable("https://apod.nasa.gov/apod/image/2403/orbit.mp4"));
+        assertFalse(ThumbnailLoader.looksDecodable("https://apod.nasa.gov/apod/ap240308.HTML"));
+        assertFalse(ThumbnailLoader.looksDecodable(null));
+    }
+
+    @Test
+    public void markNonDecodable_isRemembered() {
+        ThumbnailLoader loader = ThumbnailLoader.getInstance(RuntimeEnvironment.getApplication());
+        String url = "https://apod.nasa.gov/apod/image/2403/interactive.jpg";
+        assertTrue(loader.isDecodable(url));
+
+        loader.markNonDecodable(url);
+
+        assertFalse(loader.isDecodable(url));
+    }
+
+    @Test
+    public void isNonImageContentType_onlyRejectsKnownNonImageTypes() {
+        assertFalse(ThumbnailLoader.isNonImageContentType("image/jpeg"));
+        assertFalse(ThumbnailLoader.isNonImageContentType("IMAGE/PNG"));
+        assertFalse(ThumbnailLoader.isNonImageContentType("application/octet-stream"));
+        assertFalse(ThumbnailLoader.isNonImageContentType(null));
+        assertTrue(ThumbnailLoader.isNonImageContentType("text/html; charset=UTF-8"));
+        assertTrue(ThumbnailLoader.isNonImageContentType("video/mp4"));
+        assertTrue(ThumbnailLoader.isNonImageContentType("application/json"));
+    }
+
+    @Test
+    public void download_remembersNonImageResponses_andCountsDiskCacheRequests() throws Exception {
+        File cacheDir = new File(RuntimeEnvironment.getApplication().getCacheDir(), "thumbnail_test");
+        ThumbnailLoader loader = new ThumbnailLoader(RuntimeEnvironment.getApplication(), new LruCache(1024 * 1024),
+                cacheDir, 1024 * 1024);
+        try (MockApodServer server = new MockApodServer(0)) {
+            String pageUrl = server.url() + "?date=2024-03-07";
+            assertTrue(loader.isDecodable(pageUrl));
+
+            loader.getHttpClient().newCall(new Request.Builder().url(pageUrl).build()).execute().close();
+
+            assertFalse(loader.isDecodable(pageUrl));
+            assertEquals(1, loader.getDiskCacheRequestCount());
+            assertEquals(0, loader.getDiskCacheHitCount());
+            assertEquals(0, loader.getDiskCacheHitRate(), 0);
+        }
+    }
+
+    @Test
+    public void previewUrl_usesThumbnailForVideosAndUrlForImagesAndLegacyRows() {
+        assertEquals("https://a/i.jpg", new ImageItem(1, "https://a/i.jpg", "2024-03-07", "", null, false, null, "image", null, 0).getPreviewUrl());
+        assertEquals("https://a/i.jpg", new ImageItem(1, "https://a/i.jpg", "2024-03-07", "", null, false, null, null, null, 0).getPreviewUrl());
+        assertEquals("https://a/t.jpg", new ImageItem(1, "https://a/embed", "2024-03-08", "", null, false, null, "video", "https://a/t.jpg", 0).getPreviewUrl());
+        assertNull(new ImageItem(1, "https://a/embed", "2024-03-08", "", null, false, null, "video", null, 0).getPreviewUrl());
+    }
+
+    @Test
+    public void thumbnailUrl_isStoredWithTheEntry() {
+        ApodCacheDatabaseHelper cache = ApodCacheDatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+        cache.putEntries(Collections.singletonList(new ApodEntry("2024-03-08", "https://www.youtube.com/embed/abc", null,
+                "Eclipse", "", "video", "https://img.youtube.com/vi/abc/0.jpg")));
+
+        List<ApodEntry> stored = cache.getEntriesBetween("2024-03-08", "2024-03-08");
+
+        assertEquals(1, stored.size());
+        assertEquals("https://img.youtube.com/vi/abc/0.jpg", stored.get(0).getPreviewUrl());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.nasaimagepicker;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the tile arithmetic and the lifecycle of {@link TiledImageView}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TiledImageViewTest {
+
+    @Test
+    public void sampleSizeFor_decodesNoMorePixelsThanAreShown() {
+        assertEquals(1, TiledImageView.sampleSizeFor(2f));
+        assertEquals(1, TiledImageView.sampleSizeFor(1f));
+        assertEquals(1, TiledImageView.sampleSizeFor(0.6f));
+        assertEquals(2, TiledImageView.sampleSizeFor(0.5f));
+        assertEquals(4, TiledImageView.sampleSizeFor(0.2f));
+        assertEquals(16, TiledImageView.sampleSizeFor(0.05f));
+    }
+
+    @Test
+    public void tileRegion_coversSampledExtentAndIsClippedToImage() {
+        Rect region = new Rect();
+
+        // With 512 pixel tiles, a tile at sample size 2 covers 1024 image pixels per side
+        new TiledImageView.Tile(2, 1, 0).region(3000, 1500, region);
+        assertEquals(new Rect(1024, 0, 2048, 1024), region);
+
+        new TiledImageView.Tile(2, 2, 1).region(3000, 1500, region);
+        assertEquals(new Rect(2048, 1024, 3000, 1500), region);
+    }
+
+    @Test
+    public void reattachedView_requestsTilesWithoutRejection() throws Exception {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        TiledImageView view = new TiledImageView(activity, null);
+        activity.setContentView(view);
+        ((ViewGroup) view.getParent()).removeView(view);
+        activity.setContentView(view);
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        Bitmap.createBitmap(64, 64, Bitmap.Config.ARGB_8888).compress(Bitmap.CompressFormat.PNG, 100, png);
+        view.setDecoder(BitmapRegionDecoder.newInstance(new ByteArrayInputStream(png.toByteArray()), false));
+        view.layout(0, 0, 64, 64);
+
+        // Before, the decode executor was shut down for good on the first detach and this threw
+        view.draw(new Canvas(Bitmap.createBitmap(64, 64, Bitmap.Config.ARGB_8888)));
+    }
+
+    @Test
+    public void tilesWithSamePositionAndSampleSize_areEqual() {
+        assertEquals(new TiledImageView.Tile(4, 3, 2), new TiledImageView.Tile(4, 3, 2));
+        assertEquals(new TiledImageView.Tile(4, 3, 2).hashCode(), new TiledImageView.Tile(4, 3, 2).hashCode());
+        assertNotEquals(new TiledImageView.Tile(2, 3, 2), new TiledImageView.Tile(4, 3, 2));
+    }
+}